@@ -0,0 +1,374 @@
+package com.dinochrome.bots;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.network.ClientPrediction;
+import com.dinochrome.game.network.ClockSync;
+import com.dinochrome.game.network.PacketBundler;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.network.ReliableChannel;
+import com.dinochrome.game.network.TextCodec;
+import com.dinochrome.game.utils.FixedTimestep;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Un jugador simulado: su propio socket (el server identifica sesiones por
+ * dirección) y la misma secuencia que hace NetThread + GameScreenMulti,
+ * en binario y sin nada de GL:
+ *
+ *   DISCOVER -> HERE -> CONNECT -> WELCOME -> LOBBY (READY cuando la sala
+ *   tiene roomSize jugadores) -> START -> STATE a hz con inputs al azar y
+ *   predicción -> DEAD (rendirse, al cumplir --life) -> RESULT -> READY
+ *   de nuevo (revancha)
+ *
+ * Si lo mata un choque no manda DEAD: sigue mandando STATE y el server lo
+ * mata al simular esos inputs. READY y DEAD van por el canal confiable,
+ * como en NetThread, y ya
+ * conectado lo de cada tick sale junto en un datagrama (out, ver BotGroup).
+ *
+ * Todo corre en el hilo de su BotGroup: tick() para lo que depende del
+ * tiempo, onBinary()/onText() para lo que llega.
+ */
+final class Bot {
+
+    enum Phase { IDLE, DISCOVER, CONNECT, LOBBY, COUNTDOWN, RUNNING, DEAD, DONE }
+
+    // =========================
+    // Config
+    // =========================
+    private static final long DISCOVER_INTERVAL_NS = 250_000_000L;
+    private static final long CONNECT_RESEND_NS = 1_000_000_000L;
+    private static final long PING_INTERVAL_NS = 1_000_000_000L;
+    // la sala no se llena: READY igual, para no quedar colgados
+    private static final long READY_TIMEOUT_NS = 10_000_000_000L;
+    // mismo criterio que NetThread para dar al server por caído
+    private static final long SERVER_TIMEOUT_NS = 5_000_000_000L;
+    private static final long MAX_COUNTDOWN_MS = 10_000L;
+
+    private static final float JUMP_CHANCE = 0.08f;
+    private static final float SLIDE_CHANCE = 0.04f;
+
+    final int index;
+    final DatagramChannel channel;
+    private final BotGroup group;
+    private final BotConfig config;
+    private final String name;
+
+    volatile Phase phase = Phase.IDLE;
+
+    private InetSocketAddress server;
+    private final long startAtNs;
+    private long nextActionAt;
+    private long firstDiscoverNs;
+    private long firstConnectNs;
+    private long lastReceiveNs;
+
+    private int myId;
+    private long nextPingAt;
+    private int pingSeq;
+    private final ClockSync clock = new ClockSync();
+    private final ReliableChannel reliable = new ReliableChannel();
+    final PacketBundler out = new PacketBundler();
+    private int reportedRetransmits;
+
+    private int lobbyPlayers;
+    private boolean readySent;
+    private boolean rematch;
+    private long lobbySinceNs;
+
+    private long runAtNs;
+    private long dieAtNs;
+    private boolean crashed;
+    private long nextStateAt;
+    // mismos pasos fijos que el cliente: el server corre un paso por comando
+    private final FixedTimestep timestep = new FixedTimestep();
+    private int stateSeq;
+    private int slideTicks;
+    private final DinoBody body = new DinoBody(DinoBody.GROUND_Y);
+    private final ClientPrediction prediction = new ClientPrediction();
+
+    Bot(int index, BotGroup group, BotConfig config, long startAtNs) throws IOException {
+        this.index = index;
+        this.group = group;
+        this.config = config;
+        this.startAtNs = startAtNs;
+        this.name = "bot" + index;
+        this.channel = group.openChannel(this);
+    }
+
+    boolean isConnected() {
+        return phase.ordinal() >= Phase.LOBBY.ordinal() && phase != Phase.DONE;
+    }
+
+    // =========================
+    // Tiempo
+    // =========================
+    void tick(long now) {
+        switch (phase) {
+            case IDLE:
+                if (now >= startAtNs) {
+                    firstDiscoverNs = now;
+                    nextActionAt = now;
+                    phase = Phase.DISCOVER;
+                }
+                break;
+
+            case DISCOVER:
+                if (now >= nextActionAt) {
+                    group.sendDiscover(this);
+                    nextActionAt = now + DISCOVER_INTERVAL_NS;
+                }
+                break;
+
+            case CONNECT:
+                if (now >= nextActionAt) {
+                    Protocol.encodeConnect(group.beginSend(), name, config.room);
+                    group.endSend(this, server);
+                    nextActionAt = now + CONNECT_RESEND_NS;
+                }
+                break;
+
+            case LOBBY:
+                if (!readySent && (rematch || now - lobbySinceNs >= READY_TIMEOUT_NS)) sendReady();
+                break;
+
+            case COUNTDOWN:
+                if (now >= runAtNs) {
+                    phase = Phase.RUNNING;
+                    long lifeNs = (config.minLifeSeconds
+                            + group.rng.nextInt(config.maxLifeSeconds - config.minLifeSeconds + 1)) * 1_000_000_000L;
+                    dieAtNs = now + lifeNs;
+                    crashed = false;
+                    nextStateAt = now;
+                    timestep.reset();
+                }
+                break;
+
+            case RUNNING:
+                // se rinde cuando le toca; si choca, sigue mandando los inputs hasta
+                // que el server (que simula lo mismo) lo mate y cierre con RESULT
+                if (!crashed && body.isDead()) {
+                    crashed = true;
+                    group.stats.onDead();
+                }
+                if (now >= dieAtNs) {
+                    phase = Phase.DEAD;
+                    if (!crashed) group.stats.onDead();
+                    Protocol.encodeDead(group.beginReliable(), score(now), (int) ((now - runAtNs) / 1_000_000_000L));
+                    group.endReliable(this, reliable, server, now);
+                } else if (now >= nextStateAt) {
+                    stepAndSend(now);
+                    nextStateAt += 1_000_000_000L / config.stateHz;
+                    if (nextStateAt < now) nextStateAt = now;
+                }
+                break;
+
+            default:
+                break;
+        }
+
+        if (!isConnected()) return;
+
+        if (now >= nextPingAt) {
+            pingSeq = Protocol.nextSeq(pingSeq);
+            Protocol.encodePing(group.beginSend(), pingSeq, now);
+            group.endSend(this, server);
+            // hasta sincronizar el reloj pingueamos más seguido, como NetThread
+            nextPingAt = now + (clock.isSynced() ? PING_INTERVAL_NS : PING_INTERVAL_NS / 5);
+        }
+
+        flushReliable(now);
+        if (reliable.isFailed() || now - lastReceiveNs > SERVER_TIMEOUT_NS) {
+            group.stats.onTimeout();
+            reliable.reset();
+            reportedRetransmits = 0;
+            beginConnect(now);
+        }
+    }
+
+    /** Lo nuevo, las retransmisiones vencidas y el ack pendiente del canal confiable. */
+    void flushReliable(long now) {
+        if (!isConnected()) return;
+        group.flushReliable(this, reliable, server, now);
+        int rtx = reliable.getRetransmits();
+        if (rtx != reportedRetransmits) {
+            group.stats.onRetransmits(rtx - reportedRetransmits);
+            reportedRetransmits = rtx;
+        }
+    }
+
+    /** Manda lo que se encoló en este tick / recepción. */
+    void flushOut() {
+        if (server != null) group.flushOut(this, server);
+    }
+
+    /** Los pasos de física desde el último STATE (input al azar), registrados en la predicción y mandados. */
+    private void stepAndSend(long now) {
+        // como GameScreenMulti: los pasos que van desde t0 (runAtNs), sin descartar atrasos
+        int steps = timestep.advanceTo((now - runAtNs) / 1e9, FixedTimestep.MAX_STEPS_PER_FRAME);
+
+        int bits = 0;
+        if (slideTicks > 0) {
+            slideTicks--;
+            bits = DinoBody.INPUT_SLIDE;
+        } else if (body.isOnGround()) {
+            float r = group.rng.nextFloat();
+            if (r < JUMP_CHANCE) bits = DinoBody.INPUT_JUMP;
+            else if (r < JUMP_CHANCE + SLIDE_CHANCE) slideTicks = 1 + group.rng.nextInt(config.stateHz);
+        }
+
+        for (int s = 0; s < steps; s++) {
+            body.applyInput(bits);
+            body.step(FixedTimestep.DT);
+            prediction.record(bits, FixedTimestep.DT, body);
+            bits &= ~DinoBody.INPUT_JUMP;   // el salto es de un paso; el slide se mantiene
+        }
+
+        stateSeq = Protocol.nextSeq(stateSeq);
+        Protocol.encodeState(group.beginSend(), stateSeq, body.getY(), body.isOnGround(), body.isSliding(),
+                body.getHp(), score(now), prediction);
+        group.endSend(this, server);
+        group.stats.onStateSent();
+    }
+
+    private int score(long now) {
+        return (int) Math.max(0, (now - runAtNs) / 100_000_000L);
+    }
+
+    /** Cierra la sesión (fin de la prueba). */
+    void disconnect() {
+        if (isConnected()) {
+            Protocol.encodeEmpty(group.beginSend(), Protocol.DISCONNECT);
+            group.endSend(this, server);
+            flushOut();
+        }
+        phase = Phase.DONE;
+    }
+
+    // =========================
+    // Recepción
+    // =========================
+
+    /** Datagrama binario, con el header ya leído. */
+    void onBinary(int type, ByteBuffer in, InetSocketAddress from, long now) {
+        lastReceiveNs = now;
+        switch (type) {
+            case Protocol.HERE:
+                if (phase == Phase.DISCOVER) onHere(from, now);
+                break;
+
+            case Protocol.WELCOME: {
+                if (phase != Phase.CONNECT) break;
+                int id = Protocol.decodeWelcome(in);
+                // sesión nueva en el server: el canal confiable arranca de cero
+                if (id != myId) {
+                    reliable.reset();
+                    reportedRetransmits = 0;
+                }
+                myId = id;
+                group.stats.onWelcome(now - firstConnectNs);
+                phase = Phase.LOBBY;
+                lobbySinceNs = now;
+                readySent = false;
+                rematch = false;
+                nextPingAt = now;
+                break;
+            }
+
+            case Protocol.RELIABLE: {
+                reliable.onReliable(in, now);
+                ByteBuffer msg;
+                while ((msg = reliable.poll()) != null) {
+                    int inner = Protocol.readHeader(msg);
+                    if (inner >= 0 && inner != Protocol.RELIABLE && inner != Protocol.ACK) onBinary(inner, msg, from, now);
+                }
+                break;
+            }
+
+            case Protocol.ACK:
+                reliable.onAck(in, now);
+                break;
+
+            case Protocol.LOBBY:
+                Protocol.decodeLobby(in, group.lobby);
+                lobbyPlayers = group.lobby.players;
+                if (phase == Phase.LOBBY && !readySent && lobbyPlayers >= config.roomSize) sendReady();
+                break;
+
+            case Protocol.START:
+                if (phase != Phase.LOBBY) break;
+                Protocol.decodeStart(in, group.start);
+                long leadMs = Math.max(0, Math.min(MAX_COUNTDOWN_MS, group.start.t0 - clock.serverNowMs()));
+                runAtNs = now + leadMs * 1_000_000L;
+                group.stats.onStart(group.start.room, group.start.t0, now, runAtNs);
+
+                body.reset();
+                prediction.reset();
+                slideTicks = 0;
+                phase = Phase.COUNTDOWN;
+                break;
+
+            case Protocol.STATE_ACK:
+                if (phase != Phase.RUNNING && phase != Phase.DEAD) break;
+                Protocol.decodeStateAck(in, group.ack);
+                group.stats.onAck(prediction.reconcile(group.ack, body));
+                break;
+
+            case Protocol.RIVAL_STATE:
+                group.stats.onRivalState();
+                break;
+
+            case Protocol.PONG:
+                Protocol.decodePong(in, group.ping);
+                group.stats.onRtt(now - group.ping.timeNs);
+                clock.onSample(group.ping.timeNs, now, group.ping.serverTimeMs);
+                break;
+
+            case Protocol.RESULT:
+                if (phase != Phase.COUNTDOWN && phase != Phase.RUNNING && phase != Phase.DEAD) break;
+                group.stats.onResult();
+                phase = Phase.LOBBY;
+                lobbySinceNs = now;
+                readySent = false;
+                rematch = true;
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    /** Datagrama de texto (el server contesta DISCOVER siempre en texto). */
+    void onText(byte[] data, int len, InetSocketAddress from, long now) {
+        lastReceiveNs = now;
+        if (phase == Phase.DISCOVER && Protocol.textType(data, len) == Protocol.HERE) {
+            int port = TextCodec.intValue(data, len, "port", config.port);
+            onHere(new InetSocketAddress(from.getAddress(), port), now);
+        }
+    }
+
+    // =========================
+    // Helpers
+    // =========================
+    private void onHere(InetSocketAddress at, long now) {
+        server = at;
+        group.stats.onDiscover(now - firstDiscoverNs);
+        beginConnect(now);
+    }
+
+    private void beginConnect(long now) {
+        phase = Phase.CONNECT;
+        firstConnectNs = now;
+        nextActionAt = now;
+        lastReceiveNs = now;
+    }
+
+    private void sendReady() {
+        Protocol.encodeReady(group.beginReliable(), true);
+        group.endReliable(this, reliable, server, System.nanoTime());
+        readySent = true;
+    }
+}
@@ -0,0 +1,99 @@
+package com.dinochrome.bots;
+
+/**
+ * Opciones de la corrida, de la línea de comandos:
+ * --clave=valor (ver usage()). Todo tiene default razonable para apuntar a
+ * un server local.
+ */
+final class BotConfig {
+
+    /** null = discovery por broadcast en la LAN, como el cliente. */
+    String host = null;
+    int port = 4321;
+
+    int bots = 200;
+    int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    // bots que arrancan por segundo (rampa, para no mandar 1000 DISCOVER juntos)
+    int rampPerSecond = 200;
+
+    // 0 = matchmaking; si no, todos piden esa sala
+    int room = 0;
+    // jugadores en el lobby antes de mandar READY (con timeout, ver Bot)
+    int roomSize = 8;
+
+    int stateHz = 20;
+    int durationSeconds = 60;
+    // cada bot muere en un momento al azar de este rango (desde que arranca la partida)
+    int minLifeSeconds = 10;
+    int maxLifeSeconds = 30;
+
+    int reportSeconds = 5;
+
+    // pérdida simulada (%, en los dos sentidos) para probar el canal confiable
+    int lossPercent = 0;
+
+    static BotConfig parse(String[] args) {
+        BotConfig c = new BotConfig();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) throw new IllegalArgumentException("Opción inválida: " + arg);
+            int eq = arg.indexOf('=');
+            String key = eq < 0 ? arg.substring(2) : arg.substring(2, eq);
+            String value = eq < 0 ? "" : arg.substring(eq + 1);
+
+            switch (key) {
+                case "host": c.host = value.isEmpty() ? null : value; break;
+                case "port": c.port = Integer.parseInt(value); break;
+                case "bots": c.bots = Integer.parseInt(value); break;
+                case "threads": c.threads = Integer.parseInt(value); break;
+                case "ramp": c.rampPerSecond = Integer.parseInt(value); break;
+                case "room": c.room = Integer.parseInt(value) & 0xFFFF; break;
+                case "room-size": c.roomSize = Integer.parseInt(value); break;
+                case "hz": c.stateHz = Integer.parseInt(value); break;
+                case "duration": c.durationSeconds = Integer.parseInt(value); break;
+                case "life": {
+                    int dash = value.indexOf('-');
+                    c.minLifeSeconds = Integer.parseInt(dash < 0 ? value : value.substring(0, dash));
+                    c.maxLifeSeconds = dash < 0 ? c.minLifeSeconds : Integer.parseInt(value.substring(dash + 1));
+                    break;
+                }
+                case "report": c.reportSeconds = Integer.parseInt(value); break;
+                case "loss": c.lossPercent = Integer.parseInt(value); break;
+                default: throw new IllegalArgumentException("Opción desconocida: " + arg);
+            }
+        }
+
+        c.bots = Math.max(1, c.bots);
+        c.threads = Math.max(1, Math.min(c.threads, c.bots));
+        c.rampPerSecond = Math.max(1, c.rampPerSecond);
+        c.roomSize = Math.max(2, c.roomSize);
+        c.stateHz = Math.max(1, Math.min(60, c.stateHz));
+        c.maxLifeSeconds = Math.max(c.minLifeSeconds, c.maxLifeSeconds);
+        c.reportSeconds = Math.max(1, c.reportSeconds);
+        c.lossPercent = Math.max(0, Math.min(100, c.lossPercent));
+        return c;
+    }
+
+    static String usage() {
+        return "java -jar DinoChrome-bots.jar [opciones]\n"
+                + "  --host=IP          server (sin host: discovery por broadcast)\n"
+                + "  --port=4321        puerto UDP del server\n"
+                + "  --bots=200         jugadores simulados\n"
+                + "  --threads=N        hilos de I/O (cada uno atiende bots/N)\n"
+                + "  --ramp=200         bots que arrancan por segundo\n"
+                + "  --room=0           sala a pedir (0 = matchmaking)\n"
+                + "  --room-size=8      jugadores en el lobby antes de READY\n"
+                + "  --hz=20            STATE por segundo durante la partida\n"
+                + "  --duration=60      segundos de prueba\n"
+                + "  --life=10-30       segundos hasta mandar DEAD (al azar en el rango)\n"
+                + "  --report=5         cada cuántos segundos imprimir el progreso\n"
+                + "  --loss=0           % de datagramas que se tiran (entrada y salida)";
+    }
+
+    @Override
+    public String toString() {
+        return "bots=" + bots + " threads=" + threads + " server=" + (host == null ? "<discovery>" : host) + ":" + port
+                + " room=" + room + " roomSize=" + roomSize + " hz=" + stateHz
+                + " duration=" + durationSeconds + "s life=" + minLifeSeconds + "-" + maxLifeSeconds + "s"
+                + (lossPercent > 0 ? " loss=" + lossPercent + "%" : "");
+    }
+}
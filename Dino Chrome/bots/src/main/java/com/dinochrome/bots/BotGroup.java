@@ -0,0 +1,256 @@
+package com.dinochrome.bots;
+
+import com.dinochrome.game.network.NetThread;
+import com.dinochrome.game.network.NetworkUtils;
+import com.dinochrome.game.network.PacketBundler;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.network.ReliableChannel;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Un hilo que atiende a muchos bots: cada uno tiene su DatagramChannel (el
+ * server distingue sesiones por puerto) pero todos se registran en un solo
+ * Selector, así mil bots son unos pocos hilos y no mil NetThread. Cada
+ * vuelta del loop lee lo que haya y le da tick() a todos.
+ *
+ * Los buffers y structs de decodificación son del grupo (un solo hilo los
+ * toca), igual que los scratch de NetThread. Lo que manda un bot conectado
+ * se junta en su PacketBundler y sale en un datagrama después de su tick()
+ * o de leer lo que le llegó, como el flush() por frame de NetThread.
+ */
+final class BotGroup implements Runnable {
+
+    // resolución del loop: los STATE a 20 Hz salen con ±TICK_MS de error
+    private static final long TICK_MS = 2;
+
+    final int index;
+    final LoadStats stats = new LoadStats();
+    final Random rng;
+
+    private final BotConfig config;
+    private final Selector selector;
+    private final List<Bot> bots = new ArrayList<>();
+    private final List<InetSocketAddress> discoverTargets = new ArrayList<>();
+
+    private volatile boolean running = true;
+    private volatile long stopAtNs = Long.MAX_VALUE;
+
+    // Solo los usa el hilo del grupo
+    private final ByteBuffer recvBuf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET + 200);
+    private final byte[] recvData = new byte[Protocol.MAX_PACKET + 200];
+    private final ByteBuffer sendBuf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET);
+    private final ByteBuffer reliableBuf = ByteBuffer.allocate(ReliableChannel.MAX_MESSAGE);
+    private final byte[] discoverBytes = "DISCOVER".getBytes(StandardCharsets.UTF_8);
+
+    // scratch de decodificación compartido por los bots del grupo
+    final NetThread.LobbyState lobby = new NetThread.LobbyState();
+    final NetThread.StartInfo start = new NetThread.StartInfo();
+    final NetThread.StateAck ack = new NetThread.StateAck();
+    final NetThread.PingInfo ping = new NetThread.PingInfo();
+
+    BotGroup(int index, BotConfig config) throws IOException {
+        this.index = index;
+        this.config = config;
+        this.rng = new Random(0x5EED_0000L + index);
+        this.selector = Selector.open();
+
+        if (config.host != null) {
+            discoverTargets.add(new InetSocketAddress(config.host, config.port));
+        } else {
+            for (InetAddress b : NetworkUtils.getBroadcastAddresses()) discoverTargets.add(new InetSocketAddress(b, config.port));
+        }
+    }
+
+    /** Crea un bot del grupo que arranca (DISCOVER) en startAtNs. */
+    void addBot(int botIndex, long startAtNs) throws IOException {
+        bots.add(new Bot(botIndex, this, config, startAtNs));
+    }
+
+    DatagramChannel openChannel(Bot bot) throws IOException {
+        DatagramChannel ch = DatagramChannel.open(StandardProtocolFamily.INET);
+        ch.setOption(StandardSocketOptions.SO_BROADCAST, true);
+        ch.bind(new InetSocketAddress(0));
+        ch.configureBlocking(false);
+        ch.register(selector, SelectionKey.OP_READ, bot);
+        return ch;
+    }
+
+    int getBotCount() { return bots.size(); }
+
+    /** Cuenta cuántos bots hay en cada fase (lectura sin lock: es para el progreso). */
+    void countPhases(int[] out) {
+        for (int i = 0; i < bots.size(); i++) out[bots.get(i).phase.ordinal()]++;
+    }
+
+    /** Los bots mandan DISCONNECT y el loop termina en stopAtNs. */
+    void stopAt(long stopAtNs) {
+        this.stopAtNs = stopAtNs;
+        selector.wakeup();
+    }
+
+    void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    // =========================
+    // Loop
+    // =========================
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(TICK_MS);
+
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey key = it.next();
+                    it.remove();
+                    if (key.isValid() && key.isReadable()) drain((Bot) key.attachment());
+                }
+
+                long now = System.nanoTime();
+                if (now >= stopAtNs) break;
+                for (int i = 0; i < bots.size(); i++) {
+                    Bot b = bots.get(i);
+                    b.tick(now);
+                    b.flushOut();
+                }
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            for (int i = 0; i < bots.size(); i++) {
+                Bot b = bots.get(i);
+                b.disconnect();
+                try { b.channel.close(); } catch (IOException ignored) {}
+            }
+            try { selector.close(); } catch (IOException ignored) {}
+        }
+    }
+
+    private void drain(Bot bot) throws IOException {
+        while (true) {
+            recvBuf.clear();
+            SocketAddress from = bot.channel.receive(recvBuf);
+            if (from == null) break;
+            recvBuf.flip();
+
+            long now = System.nanoTime();
+            int len = recvBuf.remaining();
+            stats.onReceive(len);
+            if (dropped()) continue;
+
+            if (Protocol.isBinary(recvBuf)) {
+                int type = Protocol.readHeader(recvBuf);
+                if (type < 0) continue;
+                try {
+                    if (type == Protocol.BUNDLE) onBundle(bot, (InetSocketAddress) from, now);
+                    else bot.onBinary(type, recvBuf, (InetSocketAddress) from, now);
+                } catch (RuntimeException e) {
+                    // datagrama truncado o corrupto: se descarta, como en NetThread
+                }
+            } else {
+                recvBuf.get(recvData, 0, len);
+                bot.onText(recvData, len, (InetSocketAddress) from, now);
+            }
+        }
+        // acks de lo confiable que llegó, con lo que haya contestado el bot
+        bot.flushReliable(System.nanoTime());
+        bot.flushOut();
+    }
+
+    /** Cada mensaje del BUNDLE como si hubiera llegado suelto. */
+    private void onBundle(Bot bot, InetSocketAddress from, long now) {
+        int end = recvBuf.limit();
+        while (recvBuf.position() < end) {
+            int next = PacketBundler.nextMessage(recvBuf);
+            int type = Protocol.readHeader(recvBuf);
+            if (type >= 0 && type != Protocol.BUNDLE) bot.onBinary(type, recvBuf, from, now);
+            recvBuf.limit(end).position(next);
+        }
+    }
+
+    // =========================
+    // Envío
+    // =========================
+    ByteBuffer beginSend() {
+        sendBuf.clear();
+        return sendBuf;
+    }
+
+    /** Conectado: al PacketBundler del bot (sale en flushOut). Si no (DISCOVER, CONNECT), ya. */
+    void endSend(Bot bot, InetSocketAddress to) {
+        sendBuf.flip();
+        stats.onMessageOut();
+        if (!bot.isConnected()) {
+            send(bot, sendBuf, to);
+            return;
+        }
+        if (!bot.out.add(sendBuf)) {
+            send(bot, bot.out.take(), to);
+            bot.out.add(sendBuf);
+        }
+    }
+
+    void flushOut(Bot bot, InetSocketAddress to) {
+        ByteBuffer packet = bot.out.take();
+        if (packet != null) send(bot, packet, to);
+    }
+
+    private void send(Bot bot, ByteBuffer packet, InetSocketAddress to) {
+        int bytes = packet.remaining();
+        if (dropped()) return;
+        try {
+            bot.channel.send(packet, to);
+            stats.onSend(bytes);
+        } catch (IOException e) {
+            stats.onSendError();
+        }
+    }
+
+    ByteBuffer beginReliable() {
+        reliableBuf.clear();
+        return reliableBuf;
+    }
+
+    /** Encola el mensaje en el canal confiable del bot y lo manda ya. */
+    void endReliable(Bot bot, ReliableChannel reliable, InetSocketAddress to, long now) {
+        reliableBuf.flip();
+        if (reliable.queue(reliableBuf)) flushReliable(bot, reliable, to, now);
+    }
+
+    void flushReliable(Bot bot, ReliableChannel reliable, InetSocketAddress to, long now) {
+        while (reliable.writeNext(beginSend(), now)) endSend(bot, to);
+    }
+
+    /** Pérdida simulada (--loss). */
+    private boolean dropped() {
+        return config.lossPercent > 0 && rng.nextInt(100) < config.lossPercent;
+    }
+
+    void sendDiscover(Bot bot) {
+        for (int i = 0; i < discoverTargets.size(); i++) {
+            sendBuf.clear();
+            sendBuf.put(discoverBytes);
+            sendBuf.flip();
+            stats.onMessageOut();
+            send(bot, sendBuf, discoverTargets.get(i));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.dinochrome.bots;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prueba de carga del server: java -jar DinoChrome-bots.jar [opciones]
+ * (ver BotConfig.usage()). Levanta los bots repartidos en BotGroup, imprime
+ * el progreso cada --report segundos y al final el reporte completo:
+ * latencias de discovery / connect / RTT en percentiles, skew del START
+ * por partida y el throughput que vio el server.
+ */
+public final class BotLauncher {
+
+    private BotLauncher() {}
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && (args[0].equals("--help") || args[0].equals("-h"))) {
+            System.out.println(BotConfig.usage());
+            return;
+        }
+
+        BotConfig config;
+        try {
+            config = BotConfig.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(BotConfig.usage());
+            System.exit(2);
+            return;
+        }
+        log(config.toString());
+
+        // bot i al grupo i % threads; arrancan escalonados según la rampa
+        BotGroup[] groups = new BotGroup[config.threads];
+        for (int g = 0; g < groups.length; g++) groups[g] = new BotGroup(g, config);
+
+        long begin = System.nanoTime();
+        for (int i = 0; i < config.bots; i++) {
+            long startAt = begin + i * 1_000_000_000L / config.rampPerSecond;
+            groups[i % groups.length].addBot(i, startAt);
+        }
+
+        Thread[] threads = new Thread[groups.length];
+        for (int g = 0; g < groups.length; g++) {
+            threads[g] = new Thread(groups[g], "BotGroup-" + g);
+            threads[g].setDaemon(true);
+            threads[g].start();
+        }
+
+        long endAt = begin + config.durationSeconds * 1_000_000_000L;
+        for (BotGroup group : groups) group.stopAt(endAt);
+
+        // Ctrl+C: cortar ya, pero dejar que salga el reporte
+        CountDownLatch reported = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            for (BotGroup group : groups) group.stopAt(System.nanoTime());
+            try { reported.await(3, TimeUnit.SECONDS); } catch (InterruptedException ignored) {}
+        }, "BotLauncher-shutdown"));
+
+        progressLoop(config, groups, threads, begin);
+
+        for (Thread t : threads) t.join(2000);
+        for (BotGroup group : groups) group.close();
+
+        LoadStats total = new LoadStats();
+        for (BotGroup group : groups) group.stats.mergeInto(total);
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        log(String.format(Locale.ROOT, "Fin: %d bots, %.1f s", config.bots, seconds));
+        System.out.println(total.report(seconds));
+        reported.countDown();
+    }
+
+    /** Una línea cada reportSeconds mientras algún grupo siga corriendo. */
+    private static void progressLoop(BotConfig config, BotGroup[] groups, Thread[] threads, long begin) throws InterruptedException {
+        long lastNs = begin;
+        long lastIn = 0, lastOut = 0;
+        int[] phases = new int[Bot.Phase.values().length];
+
+        while (anyAlive(threads)) {
+            long wakeAt = System.nanoTime() + config.reportSeconds * 1_000_000_000L;
+            for (Thread t : threads) t.join(Math.max(1, (wakeAt - System.nanoTime()) / 1_000_000L));
+            if (!anyAlive(threads)) break;
+
+            LoadStats total = new LoadStats();
+            for (BotGroup group : groups) group.stats.mergeInto(total);
+            Arrays.fill(phases, 0);
+            for (BotGroup group : groups) group.countPhases(phases);
+
+            long now = System.nanoTime();
+            double dt = Math.max(1e-3, (now - lastNs) / 1e9);
+            StringBuilder sb = new StringBuilder(256);
+            sb.append((now - begin) / 1_000_000_000L).append("s ");
+            for (Bot.Phase p : Bot.Phase.values()) {
+                sb.append(' ').append(p.name().toLowerCase(Locale.ROOT)).append('=').append(phases[p.ordinal()]);
+            }
+            sb.append(" | server in ").append(LoadStats.rate(total.getPacketsOut() - lastOut, dt)).append(" pkt/s")
+                    .append(" out ").append(LoadStats.rate(total.getPacketsIn() - lastIn, dt)).append(" pkt/s")
+                    .append(" | rtt p50 ").append(total.getRtt().percentileUs(0.5) / 1000.0)
+                    .append(" p99 ").append(total.getRtt().percentileUs(0.99) / 1000.0).append(" ms")
+                    .append(" | starts ").append(total.getStarts()).append(" results ").append(total.getResults());
+            log(sb.toString());
+
+            lastNs = now;
+            lastIn = total.getPacketsIn();
+            lastOut = total.getPacketsOut();
+        }
+    }
+
+    private static boolean anyAlive(Thread[] threads) {
+        for (Thread t : threads) if (t.isAlive()) return true;
+        return false;
+    }
+
+    static void log(String s) {
+        System.out.println("[BOTS] " + s);
+    }
+}
@@ -0,0 +1,92 @@
+package com.dinochrome.bots;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Histograma de latencias en microsegundos con buckets logarítmicos (cada
+ * uno 2% más ancho que el anterior): tamaño fijo, record() sin alocar y
+ * percentiles con error acotado al ancho del bucket, que para reportar p99
+ * de un load test sobra.
+ *
+ * No es thread-safe: cada BotGroup tiene los suyos y se juntan con merge().
+ */
+final class Histogram {
+
+    private static final double GROWTH = 1.02;
+    private static final double LOG_GROWTH = Math.log(GROWTH);
+    // 1 us .. ~100 s
+    private static final int BUCKETS = (int) Math.ceil(Math.log(100_000_000.0) / LOG_GROWTH) + 1;
+
+    private final long[] counts = new long[BUCKETS];
+    private long count;
+    private long sumUs;
+    private long maxUs;
+
+    void record(long us) {
+        if (us < 0) return;
+        counts[bucketOf(us)]++;
+        count++;
+        sumUs += us;
+        if (us > maxUs) maxUs = us;
+    }
+
+    void recordNs(long ns) {
+        record(ns / 1000);
+    }
+
+    void merge(Histogram o) {
+        for (int i = 0; i < BUCKETS; i++) counts[i] += o.counts[i];
+        count += o.count;
+        sumUs += o.sumUs;
+        if (o.maxUs > maxUs) maxUs = o.maxUs;
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        count = 0;
+        sumUs = 0;
+        maxUs = 0;
+    }
+
+    long getCount() { return count; }
+    long getMaxUs() { return maxUs; }
+    double getMeanUs() { return count == 0 ? 0 : (double) sumUs / count; }
+
+    /** Valor (us) por debajo del cual cae la fracción p de las muestras; 0 sin muestras. */
+    long percentileUs(double p) {
+        if (count == 0) return 0;
+        long target = (long) Math.ceil(p * count);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, target)) return Math.min(maxUs, upperBound(i));
+        }
+        return maxUs;
+    }
+
+    /** "n=... p50=... p90=... p99=... max=..." en ms. */
+    void appendSummary(StringBuilder sb) {
+        sb.append("n=").append(count);
+        if (count == 0) return;
+        sb.append(" mean=").append(ms(getMeanUs()))
+                .append(" p50=").append(ms(percentileUs(0.50)))
+                .append(" p90=").append(ms(percentileUs(0.90)))
+                .append(" p99=").append(ms(percentileUs(0.99)))
+                .append(" max=").append(ms(maxUs)).append(" ms");
+    }
+
+    private static int bucketOf(long us) {
+        if (us <= 1) return 0;
+        int b = (int) (Math.log(us) / LOG_GROWTH);
+        return Math.min(BUCKETS - 1, b);
+    }
+
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(GROWTH, bucket + 1));
+    }
+
+    private static String ms(double us) {
+        return String.format(Locale.ROOT, "%.2f", us / 1000.0);
+    }
+}
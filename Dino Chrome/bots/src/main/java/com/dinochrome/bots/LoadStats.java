@@ -0,0 +1,167 @@
+package com.dinochrome.bots;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Lo que mide un BotGroup: latencias (discovery, CONNECT -> WELCOME, RTT),
+ * tráfico y eventos del juego, más la llegada del START de cada partida
+ * para calcular el skew entre jugadores de la misma sala.
+ *
+ * Escribe el hilo del grupo, lee el de reporte: métodos sincronizados y
+ * cortos (el lock casi nunca se disputa). El reporte junta los de todos
+ * los grupos con mergeInto().
+ */
+final class LoadStats {
+
+    // índices de cada partida en startsByMatch
+    private static final int RECV_MIN = 0, RECV_MAX = 1, RUN_MIN = 2, RUN_MAX = 3, PLAYERS = 4;
+
+    private final Histogram discover = new Histogram();
+    private final Histogram connect = new Histogram();
+    private final Histogram rtt = new Histogram();
+
+    private long packetsOut, bytesOut, packetsIn, bytesIn, sendErrors, messagesOut;
+    private long statesSent, acks, corrections, rivalStates, retransmits;
+    private long welcomes, starts, deaths, results, timeouts;
+
+    // partida (sala, t0) -> llegada del START y arranque estimado, min/max entre los bots
+    private final Map<Long, long[]> startsByMatch = new HashMap<>();
+
+    // =========================
+    // Registro (hilo del grupo)
+    // =========================
+    synchronized void onSend(int bytes) { packetsOut++; bytesOut += bytes; }
+    synchronized void onSendError() { sendErrors++; }
+    synchronized void onMessageOut() { messagesOut++; }
+    synchronized void onReceive(int bytes) { packetsIn++; bytesIn += bytes; }
+
+    synchronized void onDiscover(long ns) { discover.recordNs(ns); }
+    synchronized void onWelcome(long connectNs) { welcomes++; connect.recordNs(connectNs); }
+    synchronized void onRtt(long ns) { rtt.recordNs(ns); }
+
+    synchronized void onStateSent() { statesSent++; }
+    synchronized void onAck(boolean corrected) { acks++; if (corrected) corrections++; }
+    synchronized void onRivalState() { rivalStates++; }
+    synchronized void onRetransmits(int n) { retransmits += n; }
+    synchronized void onDead() { deaths++; }
+    synchronized void onResult() { results++; }
+    synchronized void onTimeout() { timeouts++; }
+
+    /**
+     * START de una partida: receivedNs = cuándo llegó, runAtNs = cuándo
+     * arranca el bot según su reloj del server (nanoTime de este proceso,
+     * comparable entre bots).
+     */
+    synchronized void onStart(int room, long t0, long receivedNs, long runAtNs) {
+        starts++;
+        long key = (long) room << 48 ^ t0;
+        long[] m = startsByMatch.get(key);
+        if (m == null) {
+            startsByMatch.put(key, new long[] { receivedNs, receivedNs, runAtNs, runAtNs, 1 });
+            return;
+        }
+        merge(m, receivedNs, receivedNs, runAtNs, runAtNs, 1);
+    }
+
+    // =========================
+    // Reporte
+    // =========================
+
+    /** Suma este grupo en total (un LoadStats del hilo de reporte). */
+    synchronized void mergeInto(LoadStats total) {
+        synchronized (total) {
+            total.discover.merge(discover);
+            total.connect.merge(connect);
+            total.rtt.merge(rtt);
+
+            total.packetsOut += packetsOut;
+            total.bytesOut += bytesOut;
+            total.packetsIn += packetsIn;
+            total.bytesIn += bytesIn;
+            total.sendErrors += sendErrors;
+            total.messagesOut += messagesOut;
+            total.statesSent += statesSent;
+            total.acks += acks;
+            total.corrections += corrections;
+            total.rivalStates += rivalStates;
+            total.retransmits += retransmits;
+            total.welcomes += welcomes;
+            total.starts += starts;
+            total.deaths += deaths;
+            total.results += results;
+            total.timeouts += timeouts;
+
+            for (Map.Entry<Long, long[]> e : startsByMatch.entrySet()) {
+                long[] v = e.getValue();
+                long[] m = total.startsByMatch.get(e.getKey());
+                if (m == null) total.startsByMatch.put(e.getKey(), v.clone());
+                else merge(m, v[RECV_MIN], v[RECV_MAX], v[RUN_MIN], v[RUN_MAX], v[PLAYERS]);
+            }
+        }
+    }
+
+    synchronized long getPacketsOut() { return packetsOut; }
+    synchronized long getBytesOut() { return bytesOut; }
+    synchronized long getPacketsIn() { return packetsIn; }
+    synchronized long getBytesIn() { return bytesIn; }
+    synchronized long getWelcomes() { return welcomes; }
+    synchronized long getStarts() { return starts; }
+    synchronized long getResults() { return results; }
+    synchronized Histogram getRtt() { return rtt; }
+
+    /** Reporte final, con throughput promediado en seconds. */
+    synchronized String report(double seconds) {
+        StringBuilder sb = new StringBuilder(1024);
+
+        sb.append("discover     "); discover.appendSummary(sb); sb.append('\n');
+        sb.append("connect      "); connect.appendSummary(sb); sb.append('\n');
+        sb.append("rtt          "); rtt.appendSummary(sb); sb.append('\n');
+
+        // skew del START: por partida con 2+ bots, diferencia entre el primero y el último
+        Histogram recvSpread = new Histogram();
+        Histogram runSkew = new Histogram();
+        for (long[] m : startsByMatch.values()) {
+            if (m[PLAYERS] < 2) continue;
+            recvSpread.recordNs(m[RECV_MAX] - m[RECV_MIN]);
+            runSkew.recordNs(m[RUN_MAX] - m[RUN_MIN]);
+        }
+        sb.append("start recv   "); recvSpread.appendSummary(sb); sb.append("  (llegada del START, entre bots de una partida)\n");
+        sb.append("start skew   "); runSkew.appendSummary(sb); sb.append("  (arranque estimado con t0, entre bots de una partida)\n");
+
+        double s = Math.max(seconds, 1e-3);
+        sb.append("server in    ").append(rate(packetsOut, s)).append(" pkt/s  ").append(rate(bytesOut / 1024, s)).append(" KB/s")
+                .append("  ").append(String.format(Locale.ROOT, "%.2f", messagesOut / (double) Math.max(1, packetsOut))).append(" msg/pkt")
+                .append("  (send errors ").append(sendErrors).append(")\n");
+        sb.append("server out   ").append(rate(packetsIn, s)).append(" pkt/s  ").append(rate(bytesIn / 1024, s)).append(" KB/s\n");
+
+        sb.append("welcomes ").append(welcomes)
+                .append("  starts ").append(starts)
+                .append("  deaths ").append(deaths)
+                .append("  results ").append(results)
+                .append("  timeouts ").append(timeouts).append('\n');
+        sb.append("STATE sent ").append(statesSent)
+                .append("  acked ").append(acks).append(" (").append(percent(acks, statesSent)).append("%)")
+                .append("  corrections ").append(corrections)
+                .append("  RIVAL_STATE in ").append(rivalStates)
+                .append("  reliable retransmits ").append(retransmits);
+        return sb.toString();
+    }
+
+    private static void merge(long[] m, long recvMin, long recvMax, long runMin, long runMax, long players) {
+        m[RECV_MIN] = Math.min(m[RECV_MIN], recvMin);
+        m[RECV_MAX] = Math.max(m[RECV_MAX], recvMax);
+        m[RUN_MIN] = Math.min(m[RUN_MIN], runMin);
+        m[RUN_MAX] = Math.max(m[RUN_MAX], runMax);
+        m[PLAYERS] += players;
+    }
+
+    static long rate(long n, double seconds) {
+        return Math.round(n / seconds);
+    }
+
+    private static long percent(long n, long total) {
+        return total == 0 ? 0 : Math.round(100.0 * n / total);
+    }
+}
@@ -0,0 +1,77 @@
+package com.dinochrome.bots;
+
+import com.dinochrome.game.sim.Replay;
+import com.dinochrome.game.sim.ReplayPlayer;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Re-simula repeticiones (.dcr) sin GL y lo más rápido posible, y avisa
+ * las que no terminan igual que cuando se grabaron:
+ *
+ *   java -cp DinoChrome-bots.jar com.dinochrome.bots.ReplayCheck replays/
+ *
+ * Sale con 1 si hubo algún desync o archivo ilegible (para usarlo en CI).
+ */
+public final class ReplayCheck {
+
+    private ReplayCheck() {}
+
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.err.println("java -cp DinoChrome-bots.jar com.dinochrome.bots.ReplayCheck <archivo.dcr | carpeta>...");
+            System.exit(2);
+            return;
+        }
+
+        List<File> files = new ArrayList<>();
+        for (String arg : args) collect(new File(arg), files);
+
+        int failed = 0;
+        long totalSteps = 0;
+        long begin = System.nanoTime();
+        for (File f : files) {
+            try {
+                ReplayPlayer player = ReplayPlayer.load(f);
+                long t = System.nanoTime();
+                long steps = player.runToEnd();
+                double ms = (System.nanoTime() - t) / 1e6;
+                totalSteps += steps;
+
+                String status;
+                if (!player.hasEnd()) status = "CORTADA";
+                else if (player.matchesRecording()) status = "OK";
+                else {
+                    status = "DESYNC (grabada: " + player.getEndSteps() + " pasos, score " + player.getEndScore()
+                            + ", hp " + player.getEndHp() + "; simulada: " + player.getWorld().getSteps() + " pasos, score "
+                            + player.getWorld().getScore() + ", hp " + player.getWorld().getDino().getHp() + ")";
+                    failed++;
+                }
+                System.out.println(String.format(Locale.ROOT, "[REPLAY] %s: seed %d, %d pasos en %.1f ms, %d bytes: %s",
+                        f.getName(), player.getSeed(), steps, ms, f.length(), status));
+            } catch (IOException e) {
+                System.out.println("[REPLAY] " + f.getName() + ": ERROR " + e.getMessage());
+                failed++;
+            }
+        }
+
+        double secs = (System.nanoTime() - begin) / 1e9;
+        System.out.println(String.format(Locale.ROOT, "[REPLAY] %d repeticiones, %d con problemas, %.1f M pasos/s",
+                files.size(), failed, secs > 0 ? totalSteps / secs / 1e6 : 0));
+        if (failed > 0) System.exit(1);
+    }
+
+    private static void collect(File f, List<File> out) {
+        if (f.isDirectory()) {
+            File[] children = f.listFiles();
+            if (children == null) return;
+            for (File c : children) if (c.getName().endsWith(Replay.EXTENSION)) out.add(c);
+        } else {
+            out.add(f);
+        }
+    }
+}
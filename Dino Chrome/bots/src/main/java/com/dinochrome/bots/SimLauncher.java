@@ -0,0 +1,79 @@
+package com.dinochrome.bots;
+
+import com.dinochrome.game.sim.MatchSimulator;
+import com.dinochrome.game.sim.World;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Partidas simuladas sin server ni GL, para balancear los spawns:
+ *
+ *   java -cp DinoChrome-bots.jar com.dinochrome.bots.SimLauncher --spawn=0.9-1.6,0.8-1.4
+ *
+ * Cada rango de --spawn corre las mismas seeds con MatchSimulator.REFLEX
+ * en un ForkJoinPool de --threads hilos e imprime el resumen.
+ */
+public final class SimLauncher {
+
+    private SimLauncher() {}
+
+    public static void main(String[] args) {
+        int matches = 10_000;
+        int firstSeed = 1;
+        float maxSeconds = 120f;
+        int threads = Runtime.getRuntime().availableProcessors();
+        String spawn = World.DEFAULT_SPAWN_MIN + "-" + World.DEFAULT_SPAWN_MAX;
+
+        try {
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) throw new IllegalArgumentException("Opción inválida: " + arg);
+                String key = arg.substring(2, eq);
+                String value = arg.substring(eq + 1);
+                switch (key) {
+                    case "matches": matches = Math.max(1, Integer.parseInt(value)); break;
+                    case "seed": firstSeed = Integer.parseInt(value); break;
+                    case "max": maxSeconds = Float.parseFloat(value); break;
+                    case "threads": threads = Math.max(1, Integer.parseInt(value)); break;
+                    case "spawn": spawn = value; break;
+                    default: throw new IllegalArgumentException("Opción desconocida: " + arg);
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(usage());
+            System.exit(2);
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            for (String range : spawn.split(",")) {
+                int dash = range.indexOf('-');
+                float min = Float.parseFloat(dash < 0 ? range : range.substring(0, dash));
+                float max = dash < 0 ? min : Float.parseFloat(range.substring(dash + 1));
+
+                MatchSimulator sim = new MatchSimulator(min, max, maxSeconds, MatchSimulator.REFLEX);
+                long t = System.nanoTime();
+                MatchSimulator.Summary s = sim.run(pool, firstSeed, matches);
+                double secs = (System.nanoTime() - t) / 1e9;
+
+                System.out.println(String.format(Locale.ROOT, "[SIM] spawn %.2f-%.2fs: %.2f s, %.0f partidas/s, %.1f M pasos/s",
+                        min, max, secs, s.matches / secs, s.steps / secs / 1e6));
+                System.out.println(s);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static String usage() {
+        return "java -cp DinoChrome-bots.jar com.dinochrome.bots.SimLauncher [opciones]\n"
+                + "  --matches=10000    partidas por rango\n"
+                + "  --seed=1           primera seed (las siguientes son consecutivas)\n"
+                + "  --spawn=0.9-1.6    rangos de intervalo entre spawns, separados por coma\n"
+                + "  --max=120          tope de segundos por partida\n"
+                + "  --threads=N        hilos del ForkJoinPool";
+    }
+}
@@ -2,19 +2,35 @@ package com.dinochrome.game;
 
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Preferences;
 import com.badlogic.gdx.audio.Music;
 import com.dinochrome.game.network.NetThread;
-import com.dinochrome.game.screens.LobbyScreen;
-import com.dinochrome.game.screens.MenuScreen;
+import com.dinochrome.game.screens.ScreenManager;
+import com.dinochrome.game.utils.Assets;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 
 public class DinoChromeGame extends Game {
 
+    private static final int SERVER_PORT = 4321;
+    private static final int DISCOVERY_TIMEOUT_MS = 3000;
+
+    // último server que contestó, para probarlo primero en el próximo arranque
+    private static final String PREFS = "dinochrome";
+    private static final String PREF_LAST_SERVER = "lastServer";
+
     private Music backgroundMusic;
     private NetThread net;
+    private Assets assets;
+    private ScreenManager screens;
 
     @Override
     public void create() {
 
+        // sprites: un atlas para todo el juego, cargado una vez
+        assets = new Assets();
+
         // =========================
         // Música de fondo (GLOBAL)
         // =========================
@@ -32,21 +48,46 @@ public class DinoChromeGame extends Game {
         net = new NetThread();
         net.start();
 
-        // intenta encontrar server en LAN durante 3 segundos
-        net.discoverAndConnect("Luki", 4321, 3000);
-
-
-        setScreen(new MenuScreen(this, net));
+        // busca server en la LAN en segundo plano (el menú ya se ve mientras tanto)
+        Preferences prefs = Gdx.app.getPreferences(PREFS);
+        String last = prefs.getString(PREF_LAST_SERVER, "");
+        if (!last.isEmpty()) {
+            try {
+                net.setLastKnownServer(InetAddress.getByName(last), SERVER_PORT);   // IP literal: no hay DNS
+            } catch (UnknownHostException ignored) {}
+        }
+        net.setMulticastDiscovery(true);
+        net.discoverAsync("Luki", SERVER_PORT, DISCOVERY_TIMEOUT_MS, server -> {
+            if (server == null) return;
+            String ip = server.getAddress().getHostAddress();
+            Gdx.app.postRunnable(() -> {
+                prefs.putString(PREF_LAST_SERVER, ip);
+                prefs.flush();
+            });
+        });
+
+        // screens cacheadas con batch / fuente / fondo compartidos
+        screens = new ScreenManager(this);
+        screens.showMenu();
     }
 
     public Music getBackgroundMusic() {
         return backgroundMusic;
     }
 
+    /** Sprites compartidos (regiones del atlas); viven lo que vive el juego. */
+    public Assets getAssets() {
+        return assets;
+    }
+
     public NetThread getNet() {
         return net;
     }
 
+    public ScreenManager getScreens() {
+        return screens;
+    }
+
     @Override
     public void pause() {
         super.pause();
@@ -76,5 +117,14 @@ public class DinoChromeGame extends Game {
         }
 
         super.dispose();
+
+        // las screens antes que el atlas
+        if (screens != null) {
+            screens.dispose();
+        }
+
+        if (assets != null) {
+            assets.dispose();
+        }
     }
 }
@@ -0,0 +1,146 @@
+package com.dinochrome.game.entities;
+
+/**
+ * Física y vida del dino, sin nada de render (no toca GL). La usa Dino para
+ * dibujarse y la predicción de red para rebobinar y re-simular inputs.
+ */
+public final class DinoBody {
+
+    // Bits de input por frame
+    public static final int INPUT_JUMP = 1;       // apretado este frame
+    public static final int INPUT_SLIDE = 1 << 1; // mantenido
+
+    /** Altura del piso del mundo (el server simula sin cargar Ground). */
+    public static final float GROUND_Y = 50f;
+
+    // Constantes físicas
+    public static final float GRAVITY = 1200f;
+    public static final float JUMP_FORCE = 480f;
+
+    // Hitbox (x fija, la pone quien simula el mundo)
+    public static final float WIDTH = 44f;
+    public static final float HEIGHT = 60f;
+    public static final float SLIDE_WIDTH = 60f;
+    public static final float SLIDE_HEIGHT = 30f;
+
+    // Vida
+    public static final int MAX_HP = 10;
+    public static final float HIT_COOLDOWN_TIME = 0.8f;
+
+    private final float groundY;
+
+    private float y;
+    // y al empezar el último step(), para interpolar el render
+    private float prevY;
+    private float velocityY;
+    private boolean onGround;
+    private boolean sliding;
+
+    private int hp;
+    private float hitCooldown;
+
+    public DinoBody(float groundY) {
+        this.groundY = groundY;
+        reset();
+    }
+
+    public void reset() {
+        y = groundY;
+        prevY = groundY;
+        velocityY = 0;
+        onGround = true;
+        sliding = false;
+        hp = MAX_HP;
+        hitCooldown = 0f;
+    }
+
+    /** Aplica los inputs de un frame (antes de step). */
+    public void applyInput(int bits) {
+        if ((bits & INPUT_JUMP) != 0) jump();
+        if ((bits & INPUT_SLIDE) != 0) startSlide();
+        else stopSlide();
+    }
+
+    /** Un paso completo: la invulnerabilidad corre y después la física. */
+    public void step(float delta) {
+        if (hitCooldown > 0f) hitCooldown -= delta;
+        stepPhysics(delta);
+    }
+
+    /**
+     * Solo salto / caída, sin tocar la invulnerabilidad: es lo que se
+     * rebobina y re-simula al reconciliar, el cooldown ya corrió.
+     */
+    public void stepPhysics(float delta) {
+        prevY = y;
+
+        velocityY -= GRAVITY * delta;
+        y += velocityY * delta;
+
+        if (y <= groundY) {
+            y = groundY;
+            velocityY = 0;
+            onGround = true;
+        }
+    }
+
+    public void jump() {
+        if (onGround) {
+            velocityY = JUMP_FORCE;
+            onGround = false;
+        }
+    }
+
+    public void startSlide() {
+        if (onGround) sliding = true;
+    }
+
+    public void stopSlide() {
+        sliding = false;
+    }
+
+    public void damage(int amount) {
+        if (amount <= 0) return;
+        if (hitCooldown > 0f) return;
+
+        hp -= amount;
+        if (hp < 0) hp = 0;
+
+        hitCooldown = HIT_COOLDOWN_TIME;
+    }
+
+    public void set(DinoBody o) {
+        y = o.y;
+        prevY = o.prevY;
+        velocityY = o.velocityY;
+        onGround = o.onGround;
+        sliding = o.sliding;
+        hp = o.hp;
+        hitCooldown = o.hitCooldown;
+    }
+
+    /** Pisa la parte física con un estado autoritativo (reconciliación). */
+    public void setPhysics(float y, float velocityY, boolean onGround, boolean sliding) {
+        this.y = y;
+        this.velocityY = velocityY;
+        this.onGround = onGround;
+        this.sliding = sliding;
+    }
+
+    public float getGroundY() { return groundY; }
+    public float getY() { return y; }
+    public float getPrevY() { return prevY; }
+    public float getWidth() { return sliding ? SLIDE_WIDTH : WIDTH; }
+    public float getHeight() { return sliding ? SLIDE_HEIGHT : HEIGHT; }
+    public float getVelocityY() { return velocityY; }
+    public boolean isOnGround() { return onGround; }
+    public boolean isSliding() { return sliding; }
+    public int getHp() { return hp; }
+    public boolean isDead() { return hp <= 0; }
+
+    /** Posición sin interpolar (rivales: la y ya viene interpolada por red). */
+    public void setY(float y) { this.y = y; this.prevY = y; }
+    public void setOnGround(boolean onGround) { this.onGround = onGround; }
+    public void setSliding(boolean sliding) { this.sliding = sliding; }
+    public void setHp(int hp) { this.hp = hp; }
+}
@@ -0,0 +1,31 @@
+package com.dinochrome.game.entities;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Frames del dino, regiones del atlas de Assets. Todos los Dino comparten
+ * la misma instancia y la misma textura: N dinos se dibujan sin que el
+ * SpriteBatch tenga que hacer flush entre uno y otro. La textura es del
+ * atlas: acá no hay nada que liberar.
+ */
+public final class DinoSprites {
+
+    private final Animation<TextureRegion> runAnimation;
+    private final TextureRegion jumpFrame;
+    private final TextureRegion slideFrame;
+
+    public DinoSprites(TextureRegion run1, TextureRegion run2, TextureRegion jump, TextureRegion slide) {
+        runAnimation = new Animation<>(0.12f, run1, run2);
+        runAnimation.setPlayMode(Animation.PlayMode.LOOP);
+        jumpFrame = jump;
+        slideFrame = slide;
+    }
+
+    /** Frame que corresponde al estado del body. */
+    public TextureRegion frameFor(DinoBody body, float stateTime) {
+        if (!body.isOnGround()) return jumpFrame;
+        if (body.isSliding()) return slideFrame;
+        return runAnimation.getKeyFrame(stateTime);
+    }
+}
@@ -0,0 +1,170 @@
+package com.dinochrome.game.network;
+
+import com.dinochrome.game.entities.DinoBody;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Predicción del dino local con reconciliación contra el server.
+ *
+ * Cada frame se registra un comando (seq, bits de input, dt) junto con el
+ * estado predicho que dejó. Los comandos sin ack viajan en cada STATE (con
+ * redundancia, así una pérdida no hace falta reenviarla). Cuando llega un
+ * STATE_ACK se compara el estado autoritativo con lo predicho para ese seq:
+ * si difiere, se rebobina el body al estado del server y se re-simulan los
+ * comandos que el server todavía no procesó. El salto se siente local, sin
+ * esperar el round-trip. La vida también viene del server (simula los
+ * choques con la misma seed): si la del ack no es la predicha, se corrige.
+ *
+ * Todo corre en el hilo de juego.
+ */
+public final class ClientPrediction {
+
+    private static final int HISTORY = 256;
+    private static final float POSITION_EPSILON = 0.5f;
+    private static final float VELOCITY_EPSILON = 1f;
+
+    // comandos
+    private final int[] seq = new int[HISTORY];
+    private final int[] bits = new int[HISTORY];
+    private final int[] dtUnits = new int[HISTORY];
+
+    // estado predicho después de cada comando
+    private final float[] y = new float[HISTORY];
+    private final float[] vy = new float[HISTORY];
+    private final boolean[] onGround = new boolean[HISTORY];
+    private final boolean[] sliding = new boolean[HISTORY];
+    private final int[] hp = new int[HISTORY];
+
+    private int tail;   // comando sin ack más viejo
+    private int count;
+    private int lastSeq;
+
+    private int corrections;
+
+    public void reset() {
+        tail = 0;
+        count = 0;
+        lastSeq = 0;
+        corrections = 0;
+    }
+
+    /** dt redondeado a la resolución del protocolo; usar este para simular el dino. */
+    public float quantize(float delta) {
+        return Protocol.dequantizeDt(Protocol.quantizeDt(delta));
+    }
+
+    /**
+     * Registra el comando del frame, ya aplicado y simulado sobre body.
+     * Si el historial se llena se pierde el más viejo (no se podrá
+     * reconciliar contra él, pero el resto sigue andando).
+     */
+    public int record(int inputBits, float dt, DinoBody body) {
+        if (count == HISTORY) { tail = (tail + 1) % HISTORY; count--; }
+
+        lastSeq = Protocol.nextSeq(lastSeq);
+        int i = (tail + count) % HISTORY;
+        seq[i] = lastSeq;
+        bits[i] = inputBits;
+        dtUnits[i] = Protocol.quantizeDt(dt);
+        store(i, body);
+        count++;
+        return lastSeq;
+    }
+
+    /**
+     * Aplica un ack del server. Devuelve true si hubo que corregir body
+     * (el caller tiene que refrescar bounds / render).
+     */
+    public boolean reconcile(NetThread.StateAck ack, DinoBody body) {
+        // descartamos lo que el server ya procesó, quedándonos con el slot del ack
+        int acked = -1;
+        while (count > 0 && !Protocol.seqNewer(seq[tail], ack.inputSeq)) {
+            if (seq[tail] == ack.inputSeq) acked = tail;
+            tail = (tail + 1) % HISTORY;
+            count--;
+        }
+        if (acked < 0) {
+            // sin el comando no sabemos qué vida predijimos ahí: solo puede bajar
+            if (ack.hp < body.getHp()) body.setHp(ack.hp);
+            return false;
+        }
+
+        // la vida la decide el server (choques simulados allá): lo que difiere
+        // en el ack se corre a lo pendiente y al body, que conservan lo que
+        // predijimos perder después
+        int hpDiff = ack.hp - hp[acked];
+        if (hpDiff != 0) {
+            for (int n = 0; n < count; n++) {
+                int i = (tail + n) % HISTORY;
+                hp[i] = clampHp(hp[i] + hpDiff);
+            }
+            body.setHp(clampHp(body.getHp() + hpDiff));
+        }
+
+        boolean matches = Math.abs(y[acked] - ack.y) <= POSITION_EPSILON
+                && Math.abs(vy[acked] - ack.velocityY) <= VELOCITY_EPSILON
+                && onGround[acked] == ack.onGround
+                && sliding[acked] == ack.sliding;
+        if (matches) return false;
+
+        // rebobinar al estado del server y re-simular lo pendiente (solo
+        // física: el cooldown de golpe de esos pasos ya se gastó)
+        body.setPhysics(ack.y, ack.velocityY, ack.onGround, ack.sliding);
+        for (int n = 0; n < count; n++) {
+            int i = (tail + n) % HISTORY;
+            body.applyInput(bits[i]);
+            body.stepPhysics(Protocol.dequantizeDt(dtUnits[i]));
+            storePhysics(i, body);
+        }
+        corrections++;
+        return true;
+    }
+
+    /**
+     * Escribe en buf los comandos sin ack (los últimos MAX_INPUTS_PER_STATE)
+     * con el formato de Protocol.readInputs: corridas de bits iguales y los
+     * dt como diferencia con el anterior.
+     */
+    public void writeUnacked(ByteBuffer buf) {
+        int n = Math.min(count, Protocol.MAX_INPUTS_PER_STATE);
+        buf.putShort((short) lastSeq);
+        buf.put((byte) n);
+
+        int prevDt = 0;
+        int k = count - n;
+        while (k < count) {
+            int runBits = bits[(tail + k) % HISTORY];
+            int run = 1;
+            while (k + run < count && run < Protocol.MAX_INPUT_RUN && bits[(tail + k + run) % HISTORY] == runBits) run++;
+
+            buf.put((byte) (runBits | (run - 1) << Protocol.INPUT_RUN_SHIFT));
+            for (int r = 0; r < run; r++) {
+                int dt = dtUnits[(tail + k + r) % HISTORY];
+                Protocol.putVarInt(buf, Protocol.zigzag(dt - prevDt));
+                prevDt = dt;
+            }
+            k += run;
+        }
+    }
+
+    public int getLastSeq() { return lastSeq; }
+    public int getPendingCount() { return count; }
+    public int getCorrections() { return corrections; }
+
+    private void store(int i, DinoBody body) {
+        storePhysics(i, body);
+        hp[i] = body.getHp();
+    }
+
+    private void storePhysics(int i, DinoBody body) {
+        y[i] = body.getY();
+        vy[i] = body.getVelocityY();
+        onGround[i] = body.isOnGround();
+        sliding[i] = body.isSliding();
+    }
+
+    private static int clampHp(int v) {
+        return Math.max(0, Math.min(DinoBody.MAX_HP, v));
+    }
+}
@@ -0,0 +1,91 @@
+package com.dinochrome.game.network;
+
+/**
+ * Estimación del reloj del server al estilo NTP.
+ *
+ * Cada PONG trae el reloj del server (ms) del momento en que contestó. Si el
+ * PING salió en t1 y el PONG llegó en t2 (nanoTime local), suponiendo un
+ * camino simétrico el server estaba en serverMs cuando acá era (t1 + t2) / 2,
+ * así que offset = serverMs - (t1 + t2) / 2. Las muestras con RTT alto son
+ * las menos confiables (más colas, más asimetría): de las últimas WINDOW nos
+ * quedamos con la de RTT mínimo.
+ *
+ * Todo se apoya en nanoTime (monótono): serverNowMs() nunca salta por un
+ * cambio del reloj de pared local. Sin muestras todavía (o con un server
+ * viejo que no manda su hora) se usa el reloj de pared, como antes.
+ */
+public final class ClockSync {
+
+    private static final int WINDOW = 8;
+
+    /** Muestras necesarias para considerar el offset estable. */
+    public static final int MIN_SAMPLES = 5;
+
+    private final double[] rttMs = new double[WINDOW];
+    private final double[] offsetMs = new double[WINDOW];
+    private int head;
+    private int count;
+    private int totalSamples;
+
+    // offset vigente: serverMs = nanoTime / 1e6 + offset
+    private double currentOffsetMs;
+    private double currentRttMs;
+
+    public ClockSync() {
+        reset();
+    }
+
+    public synchronized void reset() {
+        head = 0;
+        count = 0;
+        totalSamples = 0;
+        currentOffsetMs = System.currentTimeMillis() - System.nanoTime() / 1_000_000.0;
+        currentRttMs = Double.MAX_VALUE;
+    }
+
+    /**
+     * @param sentNs     nanoTime local al mandar el PING
+     * @param receivedNs nanoTime local al recibir el PONG
+     * @param serverMs   reloj del server que vino en el PONG
+     */
+    public synchronized void onSample(long sentNs, long receivedNs, long serverMs) {
+        double rtt = (receivedNs - sentNs) / 1_000_000.0;
+        if (rtt < 0) return;
+
+        double midLocalMs = (sentNs + (receivedNs - sentNs) / 2) / 1_000_000.0;
+        rttMs[head] = rtt;
+        offsetMs[head] = serverMs - midLocalMs;
+        head = (head + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        totalSamples++;
+
+        int best = 0;
+        for (int i = 1; i < count; i++) {
+            if (rttMs[i] < rttMs[best]) best = i;
+        }
+        currentOffsetMs = offsetMs[best];
+        currentRttMs = rttMs[best];
+    }
+
+    /** Hora actual del server en ms, según el mejor offset conocido. */
+    public synchronized long serverNowMs() {
+        return (long) (System.nanoTime() / 1_000_000.0 + currentOffsetMs);
+    }
+
+    /** True cuando ya hay suficientes muestras para confiar en el offset. */
+    public synchronized boolean isSynced() {
+        return totalSamples >= MIN_SAMPLES;
+    }
+
+    public synchronized int getSampleCount() { return totalSamples; }
+
+    /** Offset contra el reloj de pared local (lo que se "corrige"), en ms. */
+    public synchronized double getSkewMs() {
+        return currentOffsetMs - (System.currentTimeMillis() - System.nanoTime() / 1_000_000.0);
+    }
+
+    /** RTT de la muestra que se está usando (cota del error: ±rtt/2). */
+    public synchronized double getBestRttMs() {
+        return count == 0 ? 0 : currentRttMs;
+    }
+}
@@ -0,0 +1,20 @@
+package com.dinochrome.game.network;
+
+/**
+ * Comandos de input que viajan al final de un STATE (lado server).
+ * Van del más viejo (k = 0) al más nuevo (k = count - 1, seq = lastSeq).
+ */
+public final class InputBatch {
+
+    public int lastSeq;
+    public int count;
+    public final int[] bits = new int[Protocol.MAX_INPUTS_PER_STATE];
+    public final int[] dtUnits = new int[Protocol.MAX_INPUTS_PER_STATE];
+
+    /** Secuencia del comando k. */
+    public int seqAt(int k) {
+        int s = lastSeq;
+        for (int n = count - 1; n > k; n--) s = Protocol.prevSeq(s);
+        return s;
+    }
+}
@@ -0,0 +1,151 @@
+package com.dinochrome.game.network;
+
+/**
+ * Calidad del enlace con el server: RTT suavizado y su varianza (estilo
+ * TCP, RFC 6298), jitter entre muestras consecutivas y una estimación de
+ * pérdida a partir de huecos en secuencias que pone este enlace: las de
+ * nuestros STATE que vuelven en los STATE_ACK y las de nuestros PING que
+ * vuelven en los PONG (un hueco = se perdió la ida o la vuelta). Las de los
+ * RIVAL_STATE no sirven: son las del rival, con las pérdidas de su enlace.
+ * Con eso se recomienda cada cuánto mandar STATE: entre 60 Hz con un enlace
+ * limpio y 10 Hz con uno malo.
+ *
+ * Escribe el hilo de red, lee el de juego: métodos sincronizados y cortos.
+ */
+public final class LinkStats {
+
+    public static final float MIN_SEND_INTERVAL = 1f / 60f;
+    public static final float MAX_SEND_INTERVAL = 1f / 10f;
+
+    private static final double RTT_ALPHA = 0.125;
+    private static final double RTT_BETA = 0.25;
+    private static final double JITTER_GAIN = 1.0 / 16.0;
+    private static final double LOSS_ALPHA = 0.02;
+    private static final int MAX_GAP = 64;
+
+    // a partir de acá el enlace se considera malo (10 Hz)
+    private static final double BAD_RTT_MS = 250;
+    private static final double GOOD_RTT_MS = 50;
+    private static final double BAD_LOSS = 0.10;
+
+    private boolean hasRtt;
+    private double srttMs;
+    private double rttVarMs;
+    private double jitterMs;
+    private double lastRttMs;
+
+    private double lossRate;
+    private int lostPackets;
+    private int outOfOrder;
+
+    private int highestAckSeq = -1;
+    private int highestPongSeq = -1;
+
+    public LinkStats() {
+        reset();
+    }
+
+    public synchronized void reset() {
+        hasRtt = false;
+        srttMs = rttVarMs = jitterMs = lastRttMs = 0;
+        lossRate = 0;
+        lostPackets = 0;
+        outOfOrder = 0;
+        highestAckSeq = -1;
+        highestPongSeq = -1;
+    }
+
+    public synchronized void onRttSample(double rttMs) {
+        if (!hasRtt) {
+            srttMs = rttMs;
+            rttVarMs = rttMs / 2;
+            hasRtt = true;
+        } else {
+            rttVarMs = (1 - RTT_BETA) * rttVarMs + RTT_BETA * Math.abs(srttMs - rttMs);
+            srttMs = (1 - RTT_ALPHA) * srttMs + RTT_ALPHA * rttMs;
+            jitterMs += (Math.abs(rttMs - lastRttMs) - jitterMs) * JITTER_GAIN;
+        }
+        lastRttMs = rttMs;
+    }
+
+    /** Secuencia de nuestro STATE que confirma un STATE_ACK (0 = sin secuencia, se ignora). */
+    public synchronized void onAckSequence(int seq) {
+        highestAckSeq = track(seq, highestAckSeq);
+    }
+
+    /** Secuencia de un PONG recibido (un hueco = PING o PONG perdido). */
+    public synchronized void onPongSequence(int seq) {
+        highestPongSeq = track(seq, highestPongSeq);
+    }
+
+    /**
+     * Partida nueva: los STATE que mandamos después de morir (o entre
+     * partidas) el server no los confirma, no son pérdida.
+     */
+    public synchronized void resetAckSequence() {
+        highestAckSeq = -1;
+    }
+
+    public synchronized boolean hasRtt() { return hasRtt; }
+    public synchronized float getRttMs() { return (float) srttMs; }
+    public synchronized float getRttVarMs() { return (float) rttVarMs; }
+    public synchronized float getJitterMs() { return (float) jitterMs; }
+    public synchronized float getLossRate() { return (float) lossRate; }
+    public synchronized int getLostPackets() { return lostPackets; }
+    public synchronized int getOutOfOrder() { return outOfOrder; }
+
+    /**
+     * Intervalo de envío de STATE recomendado, en segundos. Sin muestras
+     * todavía se queda en 20 Hz (lo que se usaba fijo).
+     */
+    public synchronized float recommendedSendInterval() {
+        if (!hasRtt) return 0.05f;
+
+        double rttQuality = 1 - clamp((srttMs + 2 * jitterMs - GOOD_RTT_MS) / (BAD_RTT_MS - GOOD_RTT_MS));
+        double lossQuality = 1 - clamp(lossRate / BAD_LOSS);
+        double quality = rttQuality * lossQuality;
+
+        double hz = 10 + 50 * quality;
+        return (float) clamp(1.0 / hz, MIN_SEND_INTERVAL, MAX_SEND_INTERVAL);
+    }
+
+    private int track(int seq, int highest) {
+        if (seq == 0) return highest;
+        if (highest < 0) {
+            addLossSamples(0, 1);
+            return seq;
+        }
+
+        int d = (seq - highest) & 0xFFFF;
+        if (d == 0) return highest;              // duplicado
+        if (d >= 0x8000) {                       // llegó tarde: lo habíamos contado como perdido
+            outOfOrder++;
+            if (lostPackets > 0) lostPackets--;
+            addLossSamples(0, 1);
+            return highest;
+        }
+
+        // seq nuevo: nextSeq saltea el 0, así que un hueco que lo cruza tiene uno menos
+        int gap = d - 1;
+        if (seq < highest && gap > 0) gap--;
+        gap = Math.min(gap, MAX_GAP);
+
+        lostPackets += gap;
+        addLossSamples(gap, 1);
+        return seq;
+    }
+
+    /** Promedio exponencial por paquete: cada perdido empuja hacia 1, cada recibido hacia 0. */
+    private void addLossSamples(int lost, int received) {
+        for (int i = 0; i < lost; i++) lossRate += (1 - lossRate) * LOSS_ALPHA;
+        for (int i = 0; i < received; i++) lossRate -= lossRate * LOSS_ALPHA;
+    }
+
+    private static double clamp(double v) {
+        return clamp(v, 0, 1);
+    }
+
+    private static double clamp(double v, double min, double max) {
+        return Math.max(min, Math.min(max, v));
+    }
+}
@@ -0,0 +1,159 @@
+package com.dinochrome.game.network;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Contadores de red: paquetes y bytes por tipo de mensaje (entrada y
+ * salida), tiempo de parseo, histograma de RTT y errores de envío. La
+ * pérdida, los desordenados y el jitter vienen de LinkStats; la profundidad
+ * del jitter buffer y de la inbox cruda se leen en el momento.
+ *
+ * Lo escriben el hilo de red y el de juego a la vez: todo atómico, sin locks
+ * ni alocaciones en el camino caliente.
+ */
+public final class NetMetrics {
+
+    /** Límites superiores (ms) de cada balde del histograma de RTT; el último es "más". */
+    public static final int[] RTT_BUCKETS_MS = { 5, 10, 20, 50, 100, 200, 500 };
+
+    private final AtomicLongArray packetsIn = new AtomicLongArray(Protocol.TYPE_COUNT);
+    private final AtomicLongArray bytesIn = new AtomicLongArray(Protocol.TYPE_COUNT);
+    private final AtomicLongArray packetsOut = new AtomicLongArray(Protocol.TYPE_COUNT);
+    private final AtomicLongArray bytesOut = new AtomicLongArray(Protocol.TYPE_COUNT);
+
+    private final AtomicLong parseCount = new AtomicLong();
+    private final AtomicLong parseTotalNs = new AtomicLong();
+    private final AtomicLong parseMaxNs = new AtomicLong();
+
+    private final AtomicLongArray rttHistogram = new AtomicLongArray(RTT_BUCKETS_MS.length + 1);
+    private final AtomicLong sendErrors = new AtomicLong();
+
+    private volatile long sinceMs = System.currentTimeMillis();
+
+    public void reset() {
+        for (int i = 0; i < Protocol.TYPE_COUNT; i++) {
+            packetsIn.set(i, 0); bytesIn.set(i, 0);
+            packetsOut.set(i, 0); bytesOut.set(i, 0);
+        }
+        for (int i = 0; i < rttHistogram.length(); i++) rttHistogram.set(i, 0);
+        parseCount.set(0);
+        parseTotalNs.set(0);
+        parseMaxNs.set(0);
+        sendErrors.set(0);
+        sinceMs = System.currentTimeMillis();
+    }
+
+    public void onReceive(int type, int bytes, long parseNs) {
+        int t = clampType(type);
+        packetsIn.incrementAndGet(t);
+        bytesIn.addAndGet(t, bytes);
+
+        parseCount.incrementAndGet();
+        parseTotalNs.addAndGet(parseNs);
+        long max;
+        while (parseNs > (max = parseMaxNs.get()) && !parseMaxNs.compareAndSet(max, parseNs)) { }
+    }
+
+    public void onSend(int type, int bytes) {
+        int t = clampType(type);
+        packetsOut.incrementAndGet(t);
+        bytesOut.addAndGet(t, bytes);
+    }
+
+    public void onSendError() {
+        sendErrors.incrementAndGet();
+    }
+
+    public void onRtt(double rttMs) {
+        int b = 0;
+        while (b < RTT_BUCKETS_MS.length && rttMs > RTT_BUCKETS_MS[b]) b++;
+        rttHistogram.incrementAndGet(b);
+    }
+
+    public long getPacketsIn(int type) { return packetsIn.get(clampType(type)); }
+    public long getBytesIn(int type) { return bytesIn.get(clampType(type)); }
+    public long getPacketsOut(int type) { return packetsOut.get(clampType(type)); }
+    public long getBytesOut(int type) { return bytesOut.get(clampType(type)); }
+
+    public long getTotalPacketsIn() { return sum(packetsIn); }
+    public long getTotalBytesIn() { return sum(bytesIn); }
+    public long getTotalPacketsOut() { return sum(packetsOut); }
+    public long getTotalBytesOut() { return sum(bytesOut); }
+
+    public long getRttBucket(int i) { return rttHistogram.get(i); }
+    public long getSendErrors() { return sendErrors.get(); }
+    public long getParseMaxNs() { return parseMaxNs.get(); }
+
+    public double getParseAvgNs() {
+        long n = parseCount.get();
+        return n == 0 ? 0 : (double) parseTotalNs.get() / n;
+    }
+
+    /** Segundos desde el último reset (para pasar contadores a tasas). */
+    public double getElapsedSeconds() {
+        return Math.max(0.001, (System.currentTimeMillis() - sinceMs) / 1000.0);
+    }
+
+    /**
+     * Vuelca todo como CSV (metric,key,value). link y rivals pueden ser
+     * null si no aplican.
+     */
+    public void writeCsv(Writer out, LinkStats link, RivalTable rivals) throws IOException {
+        out.write("metric,key,value\n");
+        row(out, "elapsed_s", "", getElapsedSeconds());
+
+        for (int t = 0; t < Protocol.TYPE_COUNT; t++) {
+            if (packetsIn.get(t) == 0 && packetsOut.get(t) == 0) continue;
+            String name = Protocol.typeName(t);
+            row(out, "packets_in", name, packetsIn.get(t));
+            row(out, "bytes_in", name, bytesIn.get(t));
+            row(out, "packets_out", name, packetsOut.get(t));
+            row(out, "bytes_out", name, bytesOut.get(t));
+        }
+
+        row(out, "parse_avg_ns", "", getParseAvgNs());
+        row(out, "parse_max_ns", "", getParseMaxNs());
+        row(out, "send_errors", "", getSendErrors());
+
+        for (int b = 0; b < rttHistogram.length(); b++) {
+            String key = b < RTT_BUCKETS_MS.length ? "le_" + RTT_BUCKETS_MS[b] + "ms" : "gt_" + RTT_BUCKETS_MS[b - 1] + "ms";
+            row(out, "rtt_hist", key, rttHistogram.get(b));
+        }
+
+        if (link != null) {
+            row(out, "rtt_ms", "srtt", link.getRttMs());
+            row(out, "rtt_ms", "var", link.getRttVarMs());
+            row(out, "jitter_ms", "", link.getJitterMs());
+            row(out, "loss_rate", "", link.getLossRate());
+            row(out, "lost_packets", "", link.getLostPackets());
+            row(out, "out_of_order", "", link.getOutOfOrder());
+        }
+        if (rivals != null) {
+            row(out, "rival_buffer", "rivals", rivals.size());
+            row(out, "rival_buffer", "depth", rivals.totalDepth());
+            row(out, "rival_buffer", "rejected", rivals.totalRejected());
+        }
+    }
+
+    private static void row(Writer out, String metric, String key, double value) throws IOException {
+        out.write(metric);
+        out.write(',');
+        out.write(key);
+        out.write(',');
+        out.write(value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value));
+        out.write('\n');
+    }
+
+    private static long sum(AtomicLongArray a) {
+        long s = 0;
+        for (int i = 0; i < a.length(); i++) s += a.get(i);
+        return s;
+    }
+
+    private static int clampType(int type) {
+        return type > 0 && type < Protocol.TYPE_COUNT ? type : 0;
+    }
+}
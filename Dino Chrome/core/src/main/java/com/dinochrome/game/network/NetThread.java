@@ -2,37 +2,123 @@ package com.dinochrome.game.network;
 
 import com.badlogic.gdx.Gdx;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.net.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Motor de red del cliente: un único hilo con DatagramChannel no bloqueante
+ * + Selector. El mismo loop recibe, corre los timers (ping, reenvío de
+ * DISCOVER) y se despierta con selector.wakeup() cuando cambia algo.
+ * Los envíos desde el hilo de juego se codifican en un buffer compartido
+ * bajo sendLock; ya conectados en binario no salen en el momento sino que
+ * se juntan en un PacketBundler y salen en un solo datagrama con flush()
+ * (el juego lo llama una vez por frame; el loop, después de cada vuelta).
+ */
 public final class NetThread extends Thread {
 
+    /** CONNECT del lado server: nombre y sala pedida (0 = matchmaking). */
+    public static final class ConnectInfo {
+        public String name;
+        public int room;
+    }
+
+    /** Jugadores de la sala en orden de llegada: entradas válidas 0..players-1. */
     public static final class LobbyState {
+        public int room;
         public int players;
-        public String p1Name; public boolean p1Ready;
-        public String p2Name; public boolean p2Ready;
+        public final int[] ids = new int[Protocol.MAX_ROOM_PLAYERS];
+        public final String[] names = new String[Protocol.MAX_ROOM_PLAYERS];
+        public final boolean[] ready = new boolean[Protocol.MAX_ROOM_PLAYERS];
+
+        public void set(LobbyState o) {
+            room = o.room;
+            players = o.players;
+            System.arraycopy(o.ids, 0, ids, 0, ids.length);
+            System.arraycopy(o.names, 0, names, 0, names.length);
+            System.arraycopy(o.ready, 0, ready, 0, ready.length);
+        }
+
+        /** Nombre del jugador con ese id, o null si no está en la sala. */
+        public String nameOf(int id) {
+            for (int i = 0; i < players; i++) {
+                if (ids[i] == id) return names[i];
+            }
+            return null;
+        }
     }
 
     public static final class StartInfo {
+        public int room;
         public int seed;
         public long t0;
         public float speed;
+
+        public void set(StartInfo o) { room = o.room; seed = o.seed; t0 = o.t0; speed = o.speed; }
     }
 
     public static final class ResultInfo {
         public int winner;
         public String reason;
+
+        public void set(ResultInfo o) { winner = o.winner; reason = o.reason; }
     }
 
     public static final class RivalState {
         public int id;
+        public int seq;
+        /** Momento de la partida (ms desde t0) del estado; -1 = no vino (server viejo). */
+        public int timeMs;
         public float y;
         public boolean onGround;
         public boolean sliding;
         public int hp;
         public int score;
+
+        public void set(RivalState o) {
+            id = o.id; seq = o.seq; timeMs = o.timeMs; y = o.y; onGround = o.onGround; sliding = o.sliding; hp = o.hp; score = o.score;
+        }
+    }
+
+    /** Ack del server para la predicción local (último input procesado + estado autoritativo). */
+    public static final class StateAck {
+        public int stateSeq;
+        public int inputSeq;
+        public float y;
+        public float velocityY;
+        public boolean onGround;
+        public boolean sliding;
+        public int hp;
+
+        public void set(StateAck o) {
+            stateSeq = o.stateSeq; inputSeq = o.inputSeq; y = o.y; velocityY = o.velocityY;
+            onGround = o.onGround; sliding = o.sliding; hp = o.hp;
+        }
+    }
+
+    /**
+     * Fin del discovery (en el hilo de red: para tocar cosas de libGDX,
+     * Gdx.app.postRunnable). server = el que contestó, ya conectando; null
+     * si no contestó nadie antes del timeout.
+     */
+    public interface DiscoveryListener {
+        void onDiscovery(InetSocketAddress server);
+    }
+
+    /** PING / PONG: secuencia, nanoTime del cliente al mandar el PING y (en PONG) reloj del server. */
+    public static final class PingInfo {
+        public int seq;
+        public long timeNs;
+        public long serverTimeMs;
     }
 
     // =========================
@@ -40,38 +126,139 @@ public final class NetThread extends Thread {
     // =========================
     private static final int DEFAULT_PORT = 4321;
 
+    private static final long PING_INTERVAL_NS = 1200_000_000L;
+    // hasta tener el reloj del server sincronizado pingueamos más seguido
+    private static final long PING_FAST_INTERVAL_NS = 200_000_000L;
+    private static final long DISCOVER_INTERVAL_NS = 250_000_000L;
+    // CONNECT se reintenta (con backoff) hasta el WELCOME
+    private static final long CONNECT_RETRY_NS = 500_000_000L;
+    private static final long MAX_CONNECT_RETRY_NS = 2_000_000_000L;
+    private static final int MAX_CONNECT_ATTEMPTS = 8;
+    private static final long IDLE_SELECT_MS = 1000;
+    // si un timer falla se reintenta a este ritmo (no a IDLE_SELECT_MS: se cortarían los pings)
+    private static final long TIMER_ERROR_SELECT_MS = 100;
+
+    // sin recibir nada del server en este tiempo lo damos por caído
+    private static final long SERVER_TIMEOUT_NS = 5_000_000_000L;
+
     // =========================
     // Estado
     // =========================
     private volatile boolean running = true;
 
-    private DatagramSocket socket;
+    private final DatagramChannel channel;
+    private final Selector selector;
 
     private volatile InetAddress serverIp = null;
     private volatile int serverPort = DEFAULT_PORT;
+    private volatile InetSocketAddress serverAddr = null;
 
     private volatile boolean connected = false;
     private volatile boolean discovering = false;
+    private volatile boolean serverLost = false;
+
+    // calidad del enlace (RTT, jitter, pérdida) y último paquete recibido
+    private final LinkStats linkStats = new LinkStats();
+    private final ClockSync clockSync = new ClockSync();
+    private final NetMetrics metrics = new NetMetrics();
+    private final PingInfo pingScratch = new PingInfo();
+    private int pingSeq = 0;
+    private volatile long lastReceiveNs = 0L;
+
+    // Timers del loop (System.nanoTime); Long.MAX_VALUE = apagado
+    private volatile long nextPingAt = Long.MAX_VALUE;
+    private volatile long nextDiscoverAt = Long.MAX_VALUE;
+    private volatile long discoverDeadline = 0L;
+    private volatile long nextConnectAt = Long.MAX_VALUE;
+    private volatile int connectAttempts;
+    private volatile int discoverPort = DEFAULT_PORT;
+    private volatile String discoverName = null;
+    private volatile DiscoveryListener discoveryListener = null;
+    private final Object discoveryLock = new Object();
+
+    // además del broadcast: DISCOVER al grupo multicast y al último server que contestó
+    private volatile boolean multicastDiscovery = false;
+    private volatile InetSocketAddress lastKnownServer = null;
 
     private volatile int myId = 0;
+    private volatile String playerName = null;
+
+    // sala pedida en el CONNECT (0 = que el server elija)
+    private volatile int requestedRoom = 0;
+
+    // Protocolo binario: se activa solo cuando el server contesta en binario
+    // (o a mano con setBinaryProtocol). Mientras tanto hablamos texto.
+    private volatile boolean binaryProtocol = false;
+
+    // Doble buffer: el hilo de red decodifica en el "scratch" (solo lo toca él)
+    // y después copia al compartido bajo el lock. El render copia a su propia
+    // instancia con copyXxx(out). Cero alocaciones en régimen.
+    private final LobbyState lobbyScratch = new LobbyState();
+    private final LobbyState lobbyShared = new LobbyState();
+
+    private final StartInfo startScratch = new StartInfo();
+    private final StartInfo startShared = new StartInfo();
+    private boolean startPending = false;
 
-    private volatile LobbyState lobbyState = new LobbyState();
-    private volatile StartInfo pendingStart = null;
-    private volatile ResultInfo pendingResult = null;
-    private volatile RivalState lastRivalState = null;
+    private final ResultInfo resultScratch = new ResultInfo();
+    private final ResultInfo resultShared = new ResultInfo();
+    private boolean resultPending = false;
 
+    private final StateAck ackScratch = new StateAck();
+    private final StateAck ackShared = new StateAck();
+    private boolean ackPending = false;
+
+    // RIVAL_STATE va al jitter buffer de cada rival (ordenado por seq, en el tiempo de la partida)
+    private final RivalState rivalScratch = new RivalState();
+    private final RivalTable rivals = new RivalTable();
+
+    // claves pN del LOBBY de texto (sin armar Strings por paquete)
+    private static final String[] LOBBY_KEYS = new String[Protocol.MAX_ROOM_PLAYERS];
+    static {
+        for (int i = 0; i < LOBBY_KEYS.length; i++) LOBBY_KEYS[i] = "p" + (i + 1);
+    }
+
+    // secuencia de nuestros STATE (la usa el rival para descartar desordenados)
+    private int stateSeq = 0;
+
+    // STATE_DELTA: historial de lo mandado + último STATE que el server confirmó
+    private final StateDeltaCodec deltaOut = new StateDeltaCodec();
+    private volatile int ackedStateSeq = 0;
+
+    private final Object stateLock = new Object();
+
+    // Buffers de recepción reutilizados (solo los usa run())
+    private final ByteBuffer recvBuf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET + 200);
+    private final byte[] textBuf = new byte[Protocol.MAX_PACKET + 200];
+
+    // Buffer de envío compartido (hilo de juego + loop)
+    private final ByteBuffer sendBuf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET);
+    private final Object sendLock = new Object();
+
+    // Mensajes de control (READY, DEAD / START, RESULT) por el canal confiable; bajo sendLock
+    private final ReliableChannel reliable = new ReliableChannel();
+    private final ByteBuffer reliableBuf = ByteBuffer.allocate(ReliableChannel.MAX_MESSAGE);
+
+    // Lo que se manda en un frame (STATE, PING, DEAD, acks...) sale junto en flush(); bajo sendLock
+    private final PacketBundler out = new PacketBundler();
+
+    // Copia cruda de lo recibido, solo para debug (arma un String por paquete)
+    private volatile boolean rawInboxEnabled = false;
     private final ConcurrentLinkedQueue<String> inbox = new ConcurrentLinkedQueue<>();
-    private Thread pingThread;
 
     public NetThread() {
         try {
-            socket = new DatagramSocket(); // puerto aleatorio local
-            socket.setBroadcast(true);
-            socket.setSoTimeout(500);
+            channel = DatagramChannel.open(StandardProtocolFamily.INET);
+            channel.setOption(StandardSocketOptions.SO_BROADCAST, true);
+            channel.bind(new InetSocketAddress(0)); // puerto aleatorio local
+            channel.configureBlocking(false);
+
+            selector = Selector.open();
+            channel.register(selector, SelectionKey.OP_READ);
         } catch (Exception e) {
-            throw new RuntimeException("No se pudo crear DatagramSocket en cliente", e);
+            throw new RuntimeException("No se pudo crear DatagramChannel en cliente", e);
         }
-        setName("NetThread-Recv");
+        setName("NetThread");
         setDaemon(true);
     }
 
@@ -82,64 +269,221 @@ public final class NetThread extends Thread {
     /** Modo A: conectar directo por IP (para debug) */
     public void setServer(String host, int port) {
         try {
-            this.serverIp = InetAddress.getByName(host);
-            this.serverPort = port;
+            setServerAddress(InetAddress.getByName(host), port);
         } catch (Exception e) {
             throw new RuntimeException("Host inválido: " + host, e);
         }
     }
 
-    /** Modo B: discovery LAN (recomendado) */
-    public void discoverAndConnect(String playerName, int port, int timeoutMs) {
-        this.serverPort = port;
+    /**
+     * Modo B: discovery LAN (recomendado), sin bloquear. El loop reenvía
+     * DISCOVER cada 250 ms (al último server conocido primero, después
+     * broadcast y, si está activo, multicast) y conecta solo cuando llega
+     * HERE. listener (puede ser null) se entera del resultado.
+     */
+    public void discoverAsync(String playerName, int port, int timeoutMs, DiscoveryListener listener) {
+        discoverPort = port;
+        discoverName = playerName;
+        discoveryListener = listener;
+        serverIp = null;    // onHere se queda con el primero que conteste
+        serverAddr = null;
+        discoverDeadline = System.nanoTime() + timeoutMs * 1_000_000L;
         discovering = true;
+        nextDiscoverAt = System.nanoTime();
+        selector.wakeup();
+    }
 
-        long deadline = System.currentTimeMillis() + timeoutMs;
-
-        // Mandamos DISCOVER varias veces (por si el WiFi se come el primer paquete)
-        while (running && System.currentTimeMillis() < deadline && serverIp == null) {
-            sendDiscover(port);
-            // esperamos respuestas en el run() (recibe)
-            sleepQuiet(250);
-        }
-
-        discovering = false;
+    /** Como discoverAsync, pero espera hasta el HERE o el timeout (tests, herramientas). */
+    public void discoverAndConnect(String playerName, int port, int timeoutMs) {
+        discoverAsync(playerName, port, timeoutMs, null);
 
-        if (serverIp == null) {
-            log("NET", "DISCOVER: no se encontró servidor en la LAN (timeout).");
-            return;
+        synchronized (discoveryLock) {
+            while (running && discovering) {
+                long left = (discoverDeadline - System.nanoTime()) / 1_000_000L;
+                if (left <= 0) break;
+                try { discoveryLock.wait(left); } catch (InterruptedException e) { return; }
+            }
         }
-
-        conectar(playerName);
     }
 
     public void conectar(String nombre) {
+        playerName = nombre;
         if (serverIp == null) {
             log("NET", "No hay serverIp seteada. Usá setServer() o discoverAndConnect().");
             return;
         }
-        enviar("CONNECT name=" + sanitizeName(nombre));
+        enviarConnect();
         iniciarPing();
+
+        // hasta el WELCOME lo reintenta el loop
+        connectAttempts = 1;
+        nextConnectAt = System.nanoTime() + CONNECT_RETRY_NS;
+        selector.wakeup();
+    }
+
+    private void enviarConnect() {
+        String nombre = playerName;
+        if (binaryProtocol) {
+            synchronized (sendLock) {
+                Protocol.encodeConnect(beginSend(), sanitizeName(nombre), requestedRoom);
+                endSend();
+            }
+        } else {
+            // proto= le avisa al server que entendemos binario
+            enviar("CONNECT name=" + sanitizeName(nombre) + ";proto=" + Protocol.VERSION + ";room=" + requestedRoom);
+        }
+    }
+
+    /**
+     * Server de la sesión anterior (lo guarda el juego): el discovery le
+     * manda DISCOVER directo antes que el broadcast, así si sigue ahí
+     * reconecta en un RTT.
+     */
+    public void setLastKnownServer(InetAddress ip, int port) {
+        lastKnownServer = ip != null ? new InetSocketAddress(ip, port) : null;
+    }
+
+    /** DISCOVER también al grupo NetworkUtils.DISCOVERY_GROUP (redes que filtran broadcast). */
+    public void setMulticastDiscovery(boolean enabled) {
+        multicastDiscovery = enabled;
+    }
+
+    public boolean isDiscovering() {
+        return discovering;
+    }
+
+    /** Vuelve a mandar CONNECT al último server (después de un timeout). */
+    public void reconectar() {
+        serverLost = false;
+        lastReceiveNs = System.nanoTime();
+        conectar(playerName);
+    }
+
+    private void setServerAddress(InetAddress ip, int port) {
+        serverIp = ip;
+        serverPort = port;
+        serverAddr = new InetSocketAddress(ip, port);
+    }
+
+    /**
+     * Sala a pedir en el próximo CONNECT (1..65535, para jugar con alguien
+     * en particular). 0 = matchmaking. La sala asignada llega en LOBBY.
+     */
+    public void setRoom(int room) {
+        requestedRoom = room & 0xFFFF;
     }
 
     public boolean isConnected() {
         return connected;
     }
 
+    /** True si estábamos conectados y el server dejó de responder (timeout). */
+    public boolean isServerLost() {
+        return serverLost;
+    }
+
+    public LinkStats getLinkStats() {
+        return linkStats;
+    }
+
+    /** Contadores de tráfico para el overlay de debug y el CSV de fin de partida. */
+    public NetMetrics getMetrics() {
+        return metrics;
+    }
+
+    /** Vuelca las métricas de la partida como CSV (ver NetMetrics.writeCsv). */
+    public void writeMetricsCsv(Writer out) throws IOException {
+        metrics.writeCsv(out, linkStats, rivals);
+    }
+
+    /** Mensajes de control sin ack del server. */
+    public int getReliablePending() {
+        synchronized (sendLock) { return reliable.pendingCount(); }
+    }
+
+    /** Retransmisiones del canal confiable en esta sesión. */
+    public int getReliableRetransmits() {
+        synchronized (sendLock) { return reliable.getRetransmits(); }
+    }
+
+    /** Mensajes por datagrama que salieron juntos por flush() (1 = sin coalescing). */
+    public float getMessagesPerPacket() {
+        synchronized (sendLock) {
+            return out.getPackets() == 0 ? 0f : (float) out.getMessages() / out.getPackets();
+        }
+    }
+
+    /** Mensajes crudos sin consumir (solo si la inbox está habilitada). */
+    public int getInboxDepth() {
+        return inbox.size();
+    }
+
+    /** Reloj del server (para START t0 y el runtime de la partida). */
+    public ClockSync getClockSync() {
+        return clockSync;
+    }
+
     public InetAddress getServerIp() {
         return serverIp;
     }
 
+    /** Fuerza el protocolo (true = binario, false = texto). */
+    public void setBinaryProtocol(boolean binary) {
+        this.binaryProtocol = binary;
+    }
+
+    public boolean isBinaryProtocol() {
+        return binaryProtocol;
+    }
+
     public void setReady(boolean ready) {
+        if (binaryProtocol) {
+            synchronized (sendLock) {
+                Protocol.encodeReady(beginReliable(), ready);
+                endReliable();
+            }
+            return;
+        }
         enviar("READY v=" + (ready ? "1" : "0"));
     }
 
+    /**
+     * Rendirse (o, sin inputs en los STATE, avisar la muerte). Con predicción
+     * no se manda al morir: el server la decide simulando los inputs.
+     */
     public void avisarMuerte(int score, int timeSeconds) {
+        if (binaryProtocol) {
+            synchronized (sendLock) {
+                Protocol.encodeDead(beginReliable(), score, timeSeconds);
+                endReliable();
+            }
+            return;
+        }
         enviar("DEAD score=" + score + ";time=" + timeSeconds);
     }
 
     public void enviarEstadoJugador(float y, boolean onGround, boolean sliding, int hp, int score) {
-        String msg = "STATE y=" + y
+        enviarEstadoJugador(y, onGround, sliding, hp, score, null);
+    }
+
+    /**
+     * Estado del jugador + inputs sin ack de la predicción local. En binario
+     * va como STATE_DELTA contra el último STATE que confirmó el server; los
+     * comandos solo viajan en binario (un server de texto no tiene autoridad).
+     */
+    public void enviarEstadoJugador(float y, boolean onGround, boolean sliding, int hp, int score, ClientPrediction inputs) {
+        if (binaryProtocol) {
+            synchronized (sendLock) {
+                stateSeq = Protocol.nextSeq(stateSeq);
+                deltaOut.encode(beginSend(), stateSeq, ackedStateSeq, y, onGround, sliding, hp, score, inputs);
+                endSend();
+            }
+            return;
+        }
+        int seq;
+        synchronized (sendLock) { seq = stateSeq = Protocol.nextSeq(stateSeq); }
+        String msg = "STATE seq=" + seq
+                + ";y=" + y
                 + ";g=" + (onGround ? "1" : "0")
                 + ";s=" + (sliding ? "1" : "0")
                 + ";hp=" + hp
@@ -147,27 +491,88 @@ public final class NetThread extends Thread {
         enviar(msg);
     }
 
+    /**
+     * Manda en un datagrama lo que se encoló desde el último flush. El juego
+     * lo llama al final de cada frame; lo que encola el hilo de red lo manda
+     * él mismo.
+     */
+    public void flush() {
+        synchronized (sendLock) {
+            ByteBuffer packet = out.take();
+            if (packet != null) sendDatagram(packet);
+        }
+    }
+
+    /** Manda DISCONNECT, corta el loop y espera a que cierre el canal. */
     public void desconectar() {
+        try {
+            enviarVacio(Protocol.DISCONNECT, "DISCONNECT");
+            flush();
+        } catch (Exception ignored) {}
         running = false;
-        try { enviar("DISCONNECT"); } catch (Exception ignored) {}
-        if (pingThread != null) pingThread.interrupt();
-        if (socket != null && !socket.isClosed()) socket.close();
+        synchronized (discoveryLock) { discoveryLock.notifyAll(); }
+        selector.wakeup();
+
+        if (isAlive() && Thread.currentThread() != this) {
+            try { join(200); } catch (InterruptedException ignored) {}
+        } else if (!isAlive()) {
+            closeQuietly();
+        }
     }
 
     public int getMyId() { return myId; }
 
-    public LobbyState getLobbyStateSnapshot() {
-        LobbyState src = lobbyState;
-        LobbyState copy = new LobbyState();
-        copy.players = src.players;
-        copy.p1Name = src.p1Name; copy.p1Ready = src.p1Ready;
-        copy.p2Name = src.p2Name; copy.p2Ready = src.p2Ready;
-        return copy;
+    /** Copia el último LOBBY recibido en out. */
+    public void copyLobbyState(LobbyState out) {
+        synchronized (stateLock) { out.set(lobbyShared); }
+    }
+
+    /** Si llegó un START sin consumir, lo copia en out y devuelve true. */
+    public boolean consumeStart(StartInfo out) {
+        synchronized (stateLock) {
+            if (!startPending) return false;
+            out.set(startShared);
+            startPending = false;
+            return true;
+        }
+    }
+
+    /** Si llegó un RESULT sin consumir, lo copia en out y devuelve true. */
+    public boolean consumeResult(ResultInfo out) {
+        synchronized (stateLock) {
+            if (!resultPending) return false;
+            out.set(resultShared);
+            resultPending = false;
+            return true;
+        }
+    }
+
+    /** Si llegó un STATE_ACK nuevo lo copia en out (solo importa el último). */
+    public boolean consumeStateAck(StateAck out) {
+        synchronized (stateLock) {
+            if (!ackPending) return false;
+            out.set(ackShared);
+            ackPending = false;
+            return true;
+        }
+    }
+
+    /** Copia el último RIVAL_STATE del rival id en out; false si todavía no llegó ninguno. */
+    public boolean copyLastRivalState(int id, RivalState out) {
+        int slot = rivals.indexOf(id);
+        return slot >= 0 && rivals.bufferAt(slot).latest(out);
     }
 
-    public StartInfo consumeStart() { StartInfo s = pendingStart; pendingStart = null; return s; }
-    public ResultInfo consumeResult() { ResultInfo r = pendingResult; pendingResult = null; return r; }
-    public RivalState getLastRivalState() { return lastRivalState; }
+    /** Rivales de la partida (jitter buffer por id), para interpolar en el render. */
+    public RivalTable getRivals() {
+        return rivals;
+    }
+
+    /** Activa la cola de mensajes crudos (debug). */
+    public void setRawInboxEnabled(boolean enabled) {
+        rawInboxEnabled = enabled;
+        if (!enabled) inbox.clear();
+    }
 
     public String pollRaw() { return inbox.poll(); }
 
@@ -176,152 +581,531 @@ public final class NetThread extends Thread {
     // =========================
     @Override
     public void run() {
-        while (running) {
-            try {
-                byte[] buf = new byte[1600];
-                DatagramPacket pkt = new DatagramPacket(buf, buf.length);
-                socket.receive(pkt);
+        // lo que falla con un datagrama o un timer se loguea y el loop sigue;
+        // solo una falla del selector o del canal lo corta
+        try {
+            while (running) {
+                long waitMs;
+                try {
+                    waitMs = runTimers(System.nanoTime());
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                    waitMs = TIMER_ERROR_SELECT_MS;
+                }
+                flush();
+                selector.select(waitMs);
+                if (!running) break;
+
+                selector.selectedKeys().clear();
+                drainReceive();
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            running = false;
+            closeQuietly();
+        }
+    }
+
+    /** Corre los timers vencidos y devuelve cuántos ms puede dormir el select. */
+    private long runTimers(long now) {
+        if (discovering) {
+            if (serverIp != null) {
+                finishDiscovery(true);
+            } else if (now - discoverDeadline >= 0) {
+                finishDiscovery(false);
+            } else if (now - nextDiscoverAt >= 0) {
+                // Mandamos DISCOVER varias veces (por si el WiFi se come el primer paquete)
+                sendDiscover(discoverPort);
+                nextDiscoverAt = now + DISCOVER_INTERVAL_NS;
+            }
+        }
 
-                String msg = new String(pkt.getData(), 0, pkt.getLength(), StandardCharsets.UTF_8).trim();
-                inbox.add(msg);
+        if (now - nextPingAt >= 0 && nextPingAt != Long.MAX_VALUE) {
+            if (serverIp != null) enviarPing(now);
+            nextPingAt = now + (clockSync.isSynced() ? PING_INTERVAL_NS : PING_FAST_INTERVAL_NS);
+        }
+
+        if (!connected && now - nextConnectAt >= 0 && nextConnectAt != Long.MAX_VALUE) {
+            if (connectAttempts >= MAX_CONNECT_ATTEMPTS || serverIp == null) {
+                nextConnectAt = Long.MAX_VALUE;
+                log("NET", "CONNECT sin respuesta después de " + connectAttempts + " intentos.");
+            } else {
+                enviarConnect();
+                connectAttempts++;
+                nextConnectAt = now + Math.min(MAX_CONNECT_RETRY_NS, CONNECT_RETRY_NS << (connectAttempts - 1));
+            }
+        }
 
-                // Si estamos en discovery, aceptamos HERE aunque no esté “registrado”
-                if (msg.startsWith("HERE")) {
-                    InetAddress ip = pkt.getAddress();
-                    serverIp = ip;
+        long nextReliable = Long.MAX_VALUE;
+        if (connected && binaryProtocol) {
+            synchronized (sendLock) {
+                flushReliable(now);
+                nextReliable = reliable.nextDeadlineNs(now);
+                if (reliable.isFailed()) {
                     connected = false;
-                    log("NET", "HERE recibido desde " + ip.getHostAddress() + ":" + pkt.getPort() + " msg=" + msg);
-                    continue;
+                    serverLost = true;
+                    reliable.reset();
+                    log("NET", "Mensaje confiable sin ack después de " + ReliableChannel.MAX_RETRIES + " reintentos, desconectado.");
                 }
+            }
+        }
 
-                procesar(msg);
+        if (connected && now - lastReceiveNs > SERVER_TIMEOUT_NS) {
+            connected = false;
+            serverLost = true;
+            log("NET", "Server sin respuesta hace " + (SERVER_TIMEOUT_NS / 1_000_000_000L) + " s, desconectado.");
+        }
 
-            } catch (SocketTimeoutException ignored) {
-            } catch (Exception e) {
-                if (!running) break;
+        long next = Math.min(nextPingAt, discovering ? Math.min(nextDiscoverAt, discoverDeadline) : Long.MAX_VALUE);
+        next = Math.min(next, Math.min(nextReliable, connected ? Long.MAX_VALUE : nextConnectAt));
+        if (next == Long.MAX_VALUE) return IDLE_SELECT_MS;
+        long ms = (next - System.nanoTime()) / 1_000_000L;
+        return Math.max(1, Math.min(ms, IDLE_SELECT_MS));
+    }
+
+    private void finishDiscovery(boolean found) {
+        discovering = false;
+        nextDiscoverAt = Long.MAX_VALUE;
+
+        if (found) {
+            conectar(discoverName);
+        } else {
+            log("NET", "DISCOVER: no se encontró servidor en la LAN (timeout).");
+        }
+        synchronized (discoveryLock) { discoveryLock.notifyAll(); }
+
+        DiscoveryListener listener = discoveryListener;
+        discoveryListener = null;
+        if (listener != null) {
+            try {
+                listener.onDiscovery(found ? serverAddr : null);
+            } catch (RuntimeException e) {
+                log("NET", "DiscoveryListener falló: " + e);
+            }
+        }
+    }
+
+    private void drainReceive() throws IOException {
+        while (running) {
+            recvBuf.clear();
+            SocketAddress from = channel.receive(recvBuf);
+            if (from == null) break;
+            recvBuf.flip();
+            lastReceiveNs = System.nanoTime();
+
+            try {
+                onDatagram((InetSocketAddress) from);
+            } catch (RuntimeException e) {
+                // uno roto (o que rompe algo) se descarta, los que siguen se procesan igual
                 e.printStackTrace();
             }
         }
+
+        // acks de lo confiable que llegó (o lo que haya que mandar) en un solo paso
+        if (binaryProtocol) {
+            synchronized (sendLock) { flushReliable(System.nanoTime()); }
+            flush();
+        }
+    }
+
+    private void onDatagram(InetSocketAddress from) {
+        int len = recvBuf.remaining();
+        if (rawInboxEnabled) inbox.add(rawString(recvBuf));
+
+        long parseStart = System.nanoTime();
+        int type;
+
+        if (Protocol.isBinary(recvBuf)) {
+            type = recvBuf.get(recvBuf.position() + 2);
+            procesarBinario(recvBuf, from);
+        } else {
+            recvBuf.get(textBuf, 0, len);
+            type = Protocol.textType(textBuf, len);
+
+            // Si estamos en discovery, aceptamos HERE aunque no esté “registrado”
+            if (type == Protocol.HERE) onHere(from, "HERE");
+            else procesar(textBuf, len);
+        }
+
+        metrics.onReceive(type, len, System.nanoTime() - parseStart);
+    }
+
+    private void onHere(InetSocketAddress from, String tag) {
+        // el mismo server contesta por cada camino (directo, broadcast, multicast): vale el primero
+        if (!discovering || serverIp != null) return;
+        setServerAddress(from.getAddress(), discoverPort);
+        connected = false;
+        log("NET", tag + " recibido desde " + from.getAddress().getHostAddress() + ":" + from.getPort());
+    }
+
+    private static String rawString(ByteBuffer buf) {
+        byte[] b = new byte[buf.remaining()];
+        buf.duplicate().get(b);
+        return new String(b, StandardCharsets.UTF_8).trim();
     }
 
     // =========================
     // Internals
     // =========================
+    /** Una ronda de DISCOVER: último server conocido, broadcast de cada interfaz (cacheado) y multicast. */
     private void sendDiscover(int port) {
+        InetSocketAddress last = lastKnownServer;
+        if (last != null) sendRawTo("DISCOVER", last);
+
         List<InetAddress> broadcasts = NetworkUtils.getBroadcastAddresses();
-        for (InetAddress b : broadcasts) {
-            sendRawTo("DISCOVER", b, port);
-            log("NET", "DISCOVER -> " + b.getHostAddress() + ":" + port);
+        for (int i = 0; i < broadcasts.size(); i++) {
+            sendRawTo("DISCOVER", new InetSocketAddress(broadcasts.get(i), port));
         }
+
+        InetAddress group = multicastDiscovery ? NetworkUtils.getDiscoveryGroup() : null;
+        if (group != null) sendRawTo("DISCOVER", new InetSocketAddress(group, port));
+
+        log("NET", "DISCOVER -> " + (last != null ? last + ", " : "") + broadcasts.size() + " broadcast"
+                + (group != null ? ", " + NetworkUtils.DISCOVERY_GROUP : "") + " :" + port);
     }
 
-    private void procesar(String msg) {
+    private void procesarBinario(ByteBuffer buf, InetSocketAddress from) {
+        int len = buf.remaining();
+        try {
+            int type = Protocol.readHeader(buf);
+            switch (type) {
+                case Protocol.HERE:
+                    onHere(from, "HERE (bin)");
+                    return;
+
+                case Protocol.WELCOME: {
+                    int id = Protocol.decodeWelcome(buf);
+                    // sesión nueva del lado del server: su canal confiable arranca de cero
+                    if (id != myId) {
+                        synchronized (sendLock) { reliable.reset(); }
+                    }
+                    myId = id;
+                    nextConnectAt = Long.MAX_VALUE;
+                    connected = true;
+                    serverLost = false;
+                    binaryProtocol = true;
+                    log("NET", "WELCOME (bin) myId=" + myId + " server=" + (serverIp != null ? serverIp.getHostAddress() : "?"));
+                    return;
+                }
+
+                case Protocol.RELIABLE:
+                    synchronized (sendLock) { reliable.onReliable(buf, System.nanoTime()); }
+                    deliverReliable(from);
+                    return;
+
+                case Protocol.ACK:
+                    synchronized (sendLock) { reliable.onAck(buf, System.nanoTime()); }
+                    return;
+
+                case Protocol.BUNDLE: {
+                    // cada mensaje por el mismo camino que si hubiera llegado suelto
+                    int end = buf.limit();
+                    while (buf.position() < end) {
+                        int next = PacketBundler.nextMessage(buf);
+                        if (buf.get(buf.position() + 2) != Protocol.BUNDLE) procesarBinario(buf, from);
+                        buf.limit(end).position(next);
+                    }
+                    return;
+                }
+
+                case Protocol.LOBBY:
+                    Protocol.decodeLobby(buf, lobbyScratch);
+                    publishLobby();
+                    return;
+
+                case Protocol.START:
+                    Protocol.decodeStart(buf, startScratch);
+                    publishStart();
+                    return;
 
-        if (msg.startsWith("WELCOME")) {
-            myId = parseInt(keyOf(msg, "id"), 0);
+                case Protocol.RESULT:
+                    Protocol.decodeResult(buf, resultScratch);
+                    publishResult();
+                    return;
+
+                case Protocol.RIVAL_STATE:
+                    Protocol.decodeRivalState(buf, rivalScratch);
+                    publishRival();
+                    return;
+
+                case Protocol.STATE_ACK:
+                    Protocol.decodeStateAck(buf, ackScratch);
+                    linkStats.onAckSequence(ackScratch.stateSeq);
+                    if (ackedStateSeq == 0 || Protocol.seqNewer(ackScratch.stateSeq, ackedStateSeq)) {
+                        ackedStateSeq = ackScratch.stateSeq;
+                    }
+                    synchronized (stateLock) {
+                        // UDP puede desordenar: nos quedamos con el ack más nuevo
+                        if (!ackPending || Protocol.seqNewer(ackScratch.inputSeq, ackShared.inputSeq)) {
+                            ackShared.set(ackScratch);
+                            ackPending = true;
+                        }
+                    }
+                    return;
+
+                case Protocol.PONG:
+                    Protocol.decodePong(buf, pingScratch);
+                    onPong(pingScratch.seq, pingScratch.timeNs, pingScratch.serverTimeMs);
+                    return;
+
+                default:
+                    // versión o tipo desconocido: se descarta
+            }
+        } catch (BufferUnderflowException e) {
+            log("NET", "Datagrama binario truncado (" + len + " bytes), descartado.");
+        }
+    }
+
+    /** Mensajes confiables que ya se pueden entregar, en orden, por el mismo camino que los sueltos. */
+    private void deliverReliable(InetSocketAddress from) {
+        while (true) {
+            ByteBuffer msg;
+            synchronized (sendLock) { msg = reliable.poll(); }
+            if (msg == null) return;
+
+            int type = msg.remaining() >= Protocol.HEADER_SIZE ? msg.get(msg.position() + 2) : -1;
+            if (type == Protocol.RELIABLE || type == Protocol.ACK) continue;
+            procesarBinario(msg, from);
+        }
+    }
+
+    private void procesar(byte[] msg, int len) {
+
+        if (TextCodec.startsWith(msg, len, "WELCOME")) {
+            myId = TextCodec.intValue(msg, len, "id", 0);
+            nextConnectAt = Long.MAX_VALUE;
             connected = true;
+            serverLost = false;
             log("NET", "WELCOME myId=" + myId + " server=" + (serverIp != null ? serverIp.getHostAddress() : "?"));
             return;
         }
 
-        if (msg.startsWith("LOBBY")) {
-            LobbyState st = new LobbyState();
-            st.players = parseInt(keyOf(msg, "players"), 0);
+        if (TextCodec.startsWith(msg, len, "LOBBY")) {
+            LobbyState st = lobbyScratch;
+            st.room = TextCodec.intValue(msg, len, "room", 0);
 
-            String p1 = keyOf(msg, "p1");
-            if (p1 != null) {
-                String[] a = p1.split(",");
-                if (a.length == 2) { st.p1Name = a[0]; st.p1Ready = "1".equals(a[1]); }
-            }
+            // pN=Nombre,ready,id
+            int n = 0;
+            for (int k = 0; k < LOBBY_KEYS.length; k++) {
+                int i = TextCodec.valueIndex(msg, len, LOBBY_KEYS[k]);
+                if (i < 0) continue;
+                int end = TextCodec.valueEnd(msg, len, i);
+                if (end >= len || msg[end] != ',') continue;
 
-            String p2 = keyOf(msg, "p2");
-            if (p2 != null) {
-                String[] a = p2.split(",");
-                if (a.length == 2) { st.p2Name = a[0]; st.p2Ready = "1".equals(a[1]); }
+                st.names[n] = TextCodec.stringValue(msg, i, end, lobbyShared.names[n]);
+                st.ready[n] = end + 1 < len && msg[end + 1] == '1';
+                st.ids[n] = end + 3 < len && msg[end + 2] == ',' ? TextCodec.intAt(msg, len, end + 3, 0) : 0;
+                n++;
             }
+            for (int k = n; k < Protocol.MAX_ROOM_PLAYERS; k++) { st.ids[k] = 0; st.names[k] = null; st.ready[k] = false; }
+            st.players = n;
 
-            lobbyState = st;
+            publishLobby();
             return;
         }
 
-        if (msg.startsWith("START")) {
-            StartInfo s = new StartInfo();
-            s.seed = parseInt(keyOf(msg, "seed"), 0);
-            s.t0 = parseLong(keyOf(msg, "t0"), 0L);
-            s.speed = parseFloat(keyOf(msg, "speed"), 220f);
-            pendingStart = s;
-            log("NET", "START seed=" + s.seed + " t0=" + s.t0 + " speed=" + s.speed);
+        if (TextCodec.startsWith(msg, len, "START")) {
+            StartInfo s = startScratch;
+            s.room = TextCodec.intValue(msg, len, "room", 0);
+            s.seed = TextCodec.intValue(msg, len, "seed", 0);
+            s.t0 = TextCodec.longValue(msg, len, "t0", 0L);
+            s.speed = TextCodec.floatValue(msg, len, "speed", 220f);
+            publishStart();
             return;
         }
 
-        if (msg.startsWith("RESULT")) {
-            ResultInfo r = new ResultInfo();
-            r.winner = parseInt(keyOf(msg, "winner"), 0);
-            r.reason = keyOf(msg, "reason");
-            pendingResult = r;
-            log("NET", "RESULT winner=" + r.winner + " reason=" + r.reason);
+        if (TextCodec.startsWith(msg, len, "RESULT")) {
+            ResultInfo r = resultScratch;
+            r.winner = TextCodec.intValue(msg, len, "winner", 0);
+            int i = TextCodec.valueIndex(msg, len, "reason");
+            r.reason = i < 0 ? null : TextCodec.stringValue(msg, i, TextCodec.valueEnd(msg, len, i), resultShared.reason);
+            publishResult();
             return;
         }
 
-        if (msg.startsWith("RIVAL_STATE")) {
-            RivalState rs = new RivalState();
-            rs.id = parseInt(keyOf(msg, "id"), 0);
-            rs.y = parseFloat(keyOf(msg, "y"), 0f);
-            rs.onGround = "1".equals(keyOf(msg, "g"));
-            rs.sliding = "1".equals(keyOf(msg, "s"));
-            rs.hp = parseInt(keyOf(msg, "hp"), 10);
-            rs.score = parseInt(keyOf(msg, "score"), 0);
-            lastRivalState = rs;
+        if (TextCodec.startsWith(msg, len, "RIVAL_STATE")) {
+            RivalState rs = rivalScratch;
+            rs.id = TextCodec.intValue(msg, len, "id", 0);
+            rs.seq = TextCodec.intValue(msg, len, "seq", 0) & 0xFFFF;
+            rs.timeMs = TextCodec.intValue(msg, len, "t", -1);
+            rs.y = TextCodec.floatValue(msg, len, "y", 0f);
+            rs.onGround = TextCodec.flagValue(msg, len, "g");
+            rs.sliding = TextCodec.flagValue(msg, len, "s");
+            rs.hp = TextCodec.intValue(msg, len, "hp", 10);
+            rs.score = TextCodec.intValue(msg, len, "score", 0);
+            publishRival();
             return;
         }
 
-        if (msg.startsWith("PONG")) return;
+        if (TextCodec.startsWith(msg, len, "PONG")) {
+            // un server viejo contesta "PONG" pelado: sin t no hay muestra de RTT
+            long t = TextCodec.longValue(msg, len, "t", 0L);
+            if (t != 0L) onPong(TextCodec.intValue(msg, len, "seq", 0), t, TextCodec.longValue(msg, len, "st", 0L));
+        }
+    }
+
+    private void publishLobby() {
+        synchronized (stateLock) { lobbyShared.set(lobbyScratch); }
+    }
+
+    private void publishStart() {
+        synchronized (stateLock) {
+            startShared.set(startScratch);
+            startPending = true;
+        }
+        // partida nueva: las secuencias del rival arrancan de cero
+        rivals.clear();
+        linkStats.resetAckSequence();
+        metrics.reset();
+        synchronized (sendLock) {
+            deltaOut.reset();
+            ackedStateSeq = 0;
+        }
+        log("NET", "START room=" + startScratch.room + " seed=" + startScratch.seed + " t0=" + startScratch.t0 + " speed=" + startScratch.speed);
+    }
+
+    private void publishResult() {
+        synchronized (stateLock) {
+            resultShared.set(resultScratch);
+            resultPending = true;
+        }
+        log("NET", "RESULT winner=" + resultScratch.winner + " reason=" + resultScratch.reason);
+    }
+
+    private void publishRival() {
+        int slot = rivals.slotFor(rivalScratch.id);
+        if (slot < 0) return;   // más rivales que los que entran en una sala
+        // sin el momento del que lo mandó, el de llegada (en el reloj del server)
+        if (rivalScratch.timeMs < 0) rivalScratch.timeMs = (int) (clockSync.serverNowMs() - startScratch.t0);
+        rivals.bufferAt(slot).push(rivalScratch);
+    }
+
+    /** serverMs = 0: el server no mandó su reloj (no hay muestra de offset). */
+    private void onPong(int seq, long sentNs, long serverMs) {
+        long now = System.nanoTime();
+        long rttNs = now - sentNs;
+        if (rttNs < 0 || rttNs > SERVER_TIMEOUT_NS) return;
+        linkStats.onRttSample(rttNs / 1_000_000.0);
+        linkStats.onPongSequence(seq);
+        metrics.onRtt(rttNs / 1_000_000.0);
+        if (serverMs != 0L) clockSync.onSample(sentNs, now, serverMs);
+    }
+
+    /** PING con secuencia y timestamp; el server los devuelve en el PONG. */
+    private void enviarPing(long now) {
+        if (binaryProtocol) {
+            synchronized (sendLock) {
+                pingSeq = Protocol.nextSeq(pingSeq);
+                Protocol.encodePing(beginSend(), pingSeq, now);
+                endSend();
+            }
+        } else {
+            pingSeq = Protocol.nextSeq(pingSeq);
+            enviar("PING seq=" + pingSeq + ";t=" + now);
+        }
     }
 
     private void enviar(String msg) {
         if (!running) return;
-        if (serverIp == null) return;
-        sendRawTo(msg, serverIp, serverPort);
+        InetSocketAddress to = serverAddr;
+        if (to == null) return;
+        sendRawTo(msg, to);
     }
 
-    private void sendRawTo(String msg, InetAddress ip, int port) {
-        try {
-            byte[] data = msg.getBytes(StandardCharsets.UTF_8);
-            DatagramPacket pkt = new DatagramPacket(data, data.length, ip, port);
-            socket.send(pkt);
-        } catch (Exception ignored) {}
+    /** Mensajes sin payload (DISCONNECT) en el protocolo activo. */
+    private void enviarVacio(byte type, String text) {
+        if (binaryProtocol) {
+            synchronized (sendLock) {
+                ByteBuffer buf = beginSend();
+                Protocol.encodeEmpty(buf, type);
+                endSend();
+            }
+        } else {
+            enviar(text);
+        }
     }
 
-    private void iniciarPing() {
-        if (pingThread != null) return;
+    /** Limpia sendBuf para codificar un mensaje. Llamar con sendLock tomado. */
+    private ByteBuffer beginSend() {
+        sendBuf.clear();
+        return sendBuf;
+    }
 
-        pingThread = new Thread(() -> {
-            while (running) {
-                sleepQuiet(1200);
-                if (!running) return;
-                if (serverIp != null) enviar("PING");
-            }
-        }, "NetThread-Ping");
-        pingThread.setDaemon(true);
-        pingThread.start();
+    /** Limpia el buffer de un mensaje confiable. Llamar con sendLock tomado. */
+    private ByteBuffer beginReliable() {
+        reliableBuf.clear();
+        return reliableBuf;
     }
 
-    private static String keyOf(String msg, String key) {
-        String payload = msg;
-        int sp = msg.indexOf(' ');
-        if (sp >= 0) payload = msg.substring(sp + 1);
-        payload = payload.replace(" ", "");
-        String[] parts = payload.split(";");
-        for (String part : parts) {
-            String[] kv = part.split("=");
-            if (kv.length == 2 && kv[0].equals(key)) return kv[1];
+    /** Encola el mensaje en el canal confiable y lo manda ya. Llamar con sendLock tomado. */
+    private void endReliable() {
+        reliableBuf.flip();
+        int type = reliableBuf.get(2);
+        if (!reliable.queue(reliableBuf)) {
+            log("NET", "Canal confiable lleno, se descarta " + Protocol.typeName(type) + ".");
+            return;
         }
-        return null;
+        flushReliable(System.nanoTime());
+    }
+
+    /** Manda lo nuevo, las retransmisiones vencidas y el ack pendiente. Llamar con sendLock tomado. */
+    private void flushReliable(long now) {
+        while (reliable.writeNext(beginSend(), now)) endSend();
     }
 
-    private static int parseInt(String s, int def) { try { return Integer.parseInt(s); } catch (Exception e) { return def; } }
-    private static long parseLong(String s, long def) { try { return Long.parseLong(s); } catch (Exception e) { return def; } }
-    private static float parseFloat(String s, float def) { try { return Float.parseFloat(s); } catch (Exception e) { return def; } }
+    /**
+     * Conectados en binario: encola sendBuf para el próximo flush(). Antes
+     * del WELCOME (CONNECT, PING) sale ya, porque el server enruta por el
+     * primer mensaje de cada datagrama. Llamar con sendLock tomado.
+     */
+    private void endSend() {
+        sendBuf.flip();
+        if (!connected || !binaryProtocol) {
+            sendDatagram(sendBuf);
+            return;
+        }
+        if (!out.add(sendBuf)) {
+            sendDatagram(out.take());
+            out.add(sendBuf);
+        }
+    }
+
+    /** Manda un datagrama binario al server. Llamar con sendLock tomado. */
+    private void sendDatagram(ByteBuffer packet) {
+        if (!running) return;
+        InetSocketAddress to = serverAddr;
+        if (to == null) return;
+        int type = packet.get(packet.position() + 2);
+        int len = packet.remaining();
+        try {
+            channel.send(packet, to);
+            metrics.onSend(type, len);
+        } catch (IOException e) {
+            metrics.onSendError();
+        }
+    }
+
+    private void sendRawTo(String msg, InetSocketAddress to) {
+        byte[] data = msg.getBytes(StandardCharsets.UTF_8);
+        try {
+            channel.send(ByteBuffer.wrap(data), to);
+            metrics.onSend(Protocol.textType(data, data.length), data.length);
+        } catch (IOException e) {
+            metrics.onSendError();
+        }
+    }
+
+    private void iniciarPing() {
+        if (nextPingAt != Long.MAX_VALUE) return;
+        nextPingAt = System.nanoTime() + PING_FAST_INTERVAL_NS;
+        selector.wakeup();
+    }
+
+    private void closeQuietly() {
+        try { selector.close(); } catch (IOException ignored) {}
+        try { channel.close(); } catch (IOException ignored) {}
+    }
 
     private static String sanitizeName(String name) {
         if (name == null) return "Player";
@@ -334,8 +1118,4 @@ public final class NetThread extends Thread {
     private static void log(String tag, String s) {
         try { Gdx.app.log(tag, s); } catch (Exception ignored) { System.out.println("[" + tag + "] " + s); }
     }
-
-    private static void sleepQuiet(long ms) {
-        try { Thread.sleep(ms); } catch (InterruptedException ignored) {}
-    }
 }
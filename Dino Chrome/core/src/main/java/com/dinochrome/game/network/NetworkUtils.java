@@ -2,37 +2,85 @@ package com.dinochrome.game.network;
 
 import java.net.*;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
 import java.util.List;
 
+/**
+ * Direcciones para el discovery en la LAN. Enumerar las NetworkInterface es
+ * caro (en algunos sistemas decenas de ms), así que las listas se arman una
+ * vez y se reusan hasta CACHE_TTL_NS o hasta invalidate().
+ */
 public final class NetworkUtils {
 
     private NetworkUtils() {}
 
-    public static List<InetAddress> getBroadcastAddresses() {
-        List<InetAddress> result = new ArrayList<>();
+    /** Grupo multicast del discovery (alcance local de la organización, 239/8). */
+    public static final String DISCOVERY_GROUP = "239.255.77.77";
+
+    // las interfaces casi nunca cambian mientras corre el juego
+    private static final long CACHE_TTL_NS = 30_000_000_000L;
+
+    private static List<InetAddress> broadcasts;
+    private static List<NetworkInterface> multicastInterfaces;
+    private static long cachedAtNs;
+
+    /** Broadcast IPv4 de cada interfaz levantada (255.255.255.255 si no hay ninguna). */
+    public static synchronized List<InetAddress> getBroadcastAddresses() {
+        refreshIfStale();
+        return broadcasts;
+    }
+
+    /** Interfaces levantadas que soportan multicast (para unirse al grupo del discovery). */
+    public static synchronized List<NetworkInterface> getMulticastInterfaces() {
+        refreshIfStale();
+        return multicastInterfaces;
+    }
+
+    /** Fuerza a enumerar de nuevo en el próximo pedido (ej. cambió la red). */
+    public static synchronized void invalidate() {
+        broadcasts = null;
+        multicastInterfaces = null;
+    }
+
+    /** El grupo del discovery, o null si no se puede armar. */
+    public static InetAddress getDiscoveryGroup() {
+        try {
+            return InetAddress.getByName(DISCOVERY_GROUP);   // literal: no hay DNS
+        } catch (UnknownHostException e) {
+            return null;
+        }
+    }
+
+    private static void refreshIfStale() {
+        long now = System.nanoTime();
+        if (broadcasts != null && now - cachedAtNs < CACHE_TTL_NS) return;
+
+        List<InetAddress> bcast = new ArrayList<>();
+        List<NetworkInterface> mcast = new ArrayList<>();
 
         try {
             Enumeration<NetworkInterface> interfaces = NetworkInterface.getNetworkInterfaces();
-            while (interfaces.hasMoreElements()) {
+            while (interfaces != null && interfaces.hasMoreElements()) {
                 NetworkInterface ni = interfaces.nextElement();
 
                 if (!ni.isUp() || ni.isLoopback() || ni.isVirtual()) continue;
+                if (ni.supportsMulticast()) mcast.add(ni);
 
                 for (InterfaceAddress ia : ni.getInterfaceAddresses()) {
-                    InetAddress bcast = ia.getBroadcast();
-                    if (bcast != null && bcast instanceof Inet4Address) {
-                        result.add(bcast);
-                    }
+                    InetAddress b = ia.getBroadcast();
+                    if (b instanceof Inet4Address) bcast.add(b);
                 }
             }
         } catch (Exception ignored) {}
 
         // Fallback (último recurso)
-        if (result.isEmpty()) {
-            try { result.add(InetAddress.getByName("255.255.255.255")); } catch (Exception ignored) {}
+        if (bcast.isEmpty()) {
+            try { bcast.add(InetAddress.getByName("255.255.255.255")); } catch (Exception ignored) {}
         }
 
-        return result;
+        broadcasts = Collections.unmodifiableList(bcast);
+        multicastInterfaces = Collections.unmodifiableList(mcast);
+        cachedAtNs = now;
     }
 }
@@ -0,0 +1,104 @@
+package com.dinochrome.game.network;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Cola de salida hacia un destino: junta los mensajes binarios de un tick
+ * (STATE, PING, acks, control...) en un solo datagrama BUNDLE de hasta
+ * MAX_PACKET bytes, así pagan un solo header UDP/IP y un solo syscall:
+ *
+ *   header BUNDLE | largo varint | mensaje (con su header) | largo | mensaje ...
+ *
+ * Si en el tick hubo un solo mensaje sale tal cual, sin BUNDLE.
+ *
+ * No hace I/O, como ReliableChannel: el dueño agrega con add(), y una vez
+ * por tick saca el datagrama con take() y lo manda. No es thread-safe.
+ */
+public final class PacketBundler {
+
+    private static final int FIRST_AT = Protocol.HEADER_SIZE;
+
+    // un mensaje solo puede ocupar MAX_PACKET entero: sobra lugar para header y largo
+    private final ByteBuffer packet = ByteBuffer.allocateDirect(Protocol.MAX_PACKET + FIRST_AT + 2);
+    private int count;
+    private int firstStart;
+    private int firstEnd;
+
+    private long messages;
+    private long packets;
+
+    /**
+     * Agrega msg (de position a limit, con su header). false si no entra
+     * en lo que ya hay: mandar take() y volver a agregarlo.
+     */
+    public boolean add(ByteBuffer msg) {
+        int len = msg.remaining();
+        if (count == 0) {
+            packet.clear();
+            Protocol.writeHeader(packet, Protocol.BUNDLE);
+        } else if (packet.position() + varIntSize(len) + len > Protocol.MAX_PACKET) {
+            return false;
+        }
+
+        Protocol.putVarInt(packet, len);
+        if (count == 0) firstStart = packet.position();
+        packet.put(msg);
+        if (count == 0) firstEnd = packet.position();
+        count++;
+        messages++;
+        return true;
+    }
+
+    /**
+     * Datagrama con lo acumulado (position a limit, listo para send), o
+     * null si no hay nada. El buffer es del bundler: mandarlo antes del
+     * próximo add().
+     */
+    public ByteBuffer take() {
+        if (count == 0) return null;
+        if (count == 1) {
+            packet.limit(firstEnd).position(firstStart);
+        } else {
+            packet.flip();
+        }
+        count = 0;
+        packets++;
+        return packet;
+    }
+
+    public boolean isEmpty() { return count == 0; }
+
+    /** Mensajes agregados y datagramas sacados desde que se creó (mensajes por paquete = messages / packets). */
+    public long getMessages() { return messages; }
+    public long getPackets() { return packets; }
+
+    // =========================
+    // Lectura
+    // =========================
+
+    /**
+     * Dentro de un BUNDLE (header ya leído): lee el largo del próximo
+     * mensaje, deja el limit de buf al final de ese mensaje y devuelve dónde
+     * empieza el siguiente. El que llama procesa el mensaje y después
+     * restaura limit y position:
+     *
+     *   int end = buf.limit();
+     *   while (buf.position() < end) {
+     *       int next = PacketBundler.nextMessage(buf);
+     *       ... procesar buf ...
+     *       buf.limit(end).position(next);
+     *   }
+     */
+    public static int nextMessage(ByteBuffer buf) {
+        int len = Protocol.getVarInt(buf);
+        int next = buf.position() + len;
+        if (len < Protocol.HEADER_SIZE || next > buf.limit()) throw new BufferUnderflowException();
+        buf.limit(next);
+        return next;
+    }
+
+    private static int varIntSize(int v) {
+        return v < 0x80 ? 1 : v < 0x4000 ? 2 : 3;
+    }
+}
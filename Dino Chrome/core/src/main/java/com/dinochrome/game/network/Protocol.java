@@ -0,0 +1,507 @@
+package com.dinochrome.game.network;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Protocolo binario versionado. Cada datagrama arranca con MAGIC, VERSION y
+ * el tipo de mensaje; después van los campos con layout fijo.
+ * El formato de texto ("KEY k=v;k=v") sigue existiendo como fallback: un
+ * datagrama de texto nunca empieza con MAGIC.
+ */
+public final class Protocol {
+
+    private Protocol() {}
+
+    // =========================
+    // Header
+    // =========================
+    public static final byte MAGIC = (byte) 0xD1;
+    // 2: LOBBY manda la cantidad de jugadores una sola vez
+    // 3: RIVAL_STATE lleva el momento de partida del estado (ms desde t0)
+    public static final byte VERSION = 3;
+    public static final int HEADER_SIZE = 3;
+
+    /** Tamaño máximo de datagrama que mandamos / esperamos. */
+    public static final int MAX_PACKET = 1400;
+
+    private static final int MAX_STRING_BYTES = 64;
+
+    /** Jugadores por sala (entradas de LOBBY, rivales en la partida). */
+    public static final int MAX_ROOM_PLAYERS = 16;
+
+    // =========================
+    // Tipos de mensaje
+    // =========================
+    public static final byte DISCOVER = 1;
+    public static final byte HERE = 2;
+    public static final byte CONNECT = 3;
+    public static final byte WELCOME = 4;
+    public static final byte LOBBY = 5;
+    public static final byte READY = 6;
+    public static final byte START = 7;
+    public static final byte STATE = 8;
+    public static final byte RIVAL_STATE = 9;
+    public static final byte DEAD = 10;
+    public static final byte RESULT = 11;
+    public static final byte PING = 12;
+    public static final byte PONG = 13;
+    public static final byte DISCONNECT = 14;
+    public static final byte STATE_ACK = 15;
+    public static final byte STATE_DELTA = 16;
+    /** Mensaje de control confiable: seq u16, ack u16, ackBits i32 y el mensaje (con header). Ver ReliableChannel. */
+    public static final byte RELIABLE = 17;
+    /** Ack suelto del canal confiable: ack u16, ackBits i32. */
+    public static final byte ACK = 18;
+    /** Varios mensajes en un datagrama: [largo varint][mensaje con header]... Ver PacketBundler. */
+    public static final byte BUNDLE = 19;
+
+    /** Cantidad de códigos de tipo (para tablas indexadas por tipo). */
+    public static final int TYPE_COUNT = 32;
+
+    private static final String[] TYPE_NAMES = new String[TYPE_COUNT];
+    static {
+        TYPE_NAMES[DISCOVER] = "DISCOVER";
+        TYPE_NAMES[HERE] = "HERE";
+        TYPE_NAMES[CONNECT] = "CONNECT";
+        TYPE_NAMES[WELCOME] = "WELCOME";
+        TYPE_NAMES[LOBBY] = "LOBBY";
+        TYPE_NAMES[READY] = "READY";
+        TYPE_NAMES[START] = "START";
+        TYPE_NAMES[STATE] = "STATE";
+        TYPE_NAMES[RIVAL_STATE] = "RIVAL_STATE";
+        TYPE_NAMES[DEAD] = "DEAD";
+        TYPE_NAMES[RESULT] = "RESULT";
+        TYPE_NAMES[PING] = "PING";
+        TYPE_NAMES[PONG] = "PONG";
+        TYPE_NAMES[DISCONNECT] = "DISCONNECT";
+        TYPE_NAMES[STATE_ACK] = "STATE_ACK";
+        TYPE_NAMES[STATE_DELTA] = "STATE_DELTA";
+        TYPE_NAMES[RELIABLE] = "RELIABLE";
+        TYPE_NAMES[ACK] = "ACK";
+        TYPE_NAMES[BUNDLE] = "BUNDLE";
+    }
+
+    // flags de STATE / RIVAL_STATE
+    public static final int FLAG_ON_GROUND = 1;
+    public static final int FLAG_SLIDING = 1 << 1;
+
+    // Comandos de input dentro de STATE
+    public static final int MAX_INPUTS_PER_STATE = 32;
+    /** Resolución del dt de cada comando (100 µs). */
+    public static final float DT_UNIT = 0.0001f;
+    // cabecera de corrida: bits de input abajo, largo - 1 arriba
+    public static final int INPUT_RUN_SHIFT = 2;
+    public static final int MAX_INPUT_RUN = 64;
+
+    /** Siguiente número de secuencia de 16 bits (el 0 se reserva para "sin secuencia"). */
+    public static int nextSeq(int seq) {
+        int n = (seq + 1) & 0xFFFF;
+        return n == 0 ? 1 : n;
+    }
+
+    public static int prevSeq(int seq) {
+        int p = (seq - 1) & 0xFFFF;
+        return p == 0 ? 0xFFFF : p;
+    }
+
+    /** True si a es más nuevo que b, con wrap-around de 16 bits. */
+    public static boolean seqNewer(int a, int b) {
+        int d = (a - b) & 0xFFFF;
+        return d != 0 && d < 0x8000;
+    }
+
+    /** Nombre del tipo (también es el comando en el protocolo de texto). "UNKNOWN" si no existe. */
+    public static String typeName(int type) {
+        String n = type >= 0 && type < TYPE_COUNT ? TYPE_NAMES[type] : null;
+        return n != null ? n : "UNKNOWN";
+    }
+
+    /** Tipo de un mensaje de texto según su primera palabra; 0 si no se reconoce. */
+    public static int textType(byte[] data, int len) {
+        for (int t = 1; t < TYPE_COUNT; t++) {
+            String n = TYPE_NAMES[t];
+            if (n == null || !TextCodec.startsWith(data, len, n)) continue;
+            if (len == n.length() || data[n.length()] == ' ') return t;
+        }
+        return 0;
+    }
+
+    /** True si el datagrama (desde position) es binario. */
+    public static boolean isBinary(ByteBuffer buf) {
+        return buf.remaining() >= HEADER_SIZE && buf.get(buf.position()) == MAGIC;
+    }
+
+    public static boolean isBinary(byte[] data, int length) {
+        return length >= HEADER_SIZE && data[0] == MAGIC;
+    }
+
+    public static int quantizeDt(float dt) {
+        int units = Math.round(dt / DT_UNIT);
+        return Math.max(0, Math.min(0xFFFF, units));
+    }
+
+    public static float dequantizeDt(int units) {
+        return units * DT_UNIT;
+    }
+
+    /** Consume el header y devuelve el tipo, o -1 si no es un datagrama válido de esta versión. */
+    public static int readHeader(ByteBuffer buf) {
+        if (buf.remaining() < HEADER_SIZE) return -1;
+        if (buf.get() != MAGIC) return -1;
+        if (buf.get() != VERSION) return -1;
+        return buf.get();
+    }
+
+    public static void writeHeader(ByteBuffer buf, byte type) {
+        buf.put(MAGIC).put(VERSION).put(type);
+    }
+
+    // =========================
+    // Encoders
+    // =========================
+    public static void encodeEmpty(ByteBuffer buf, byte type) {
+        writeHeader(buf, type);
+    }
+
+    /** room = 0: cualquier sala (matchmaking). */
+    public static void encodeConnect(ByteBuffer buf, String name, int room) {
+        writeHeader(buf, CONNECT);
+        putString(buf, name);
+        buf.putShort((short) room);
+    }
+
+    public static void encodeWelcome(ByteBuffer buf, int id) {
+        writeHeader(buf, WELCOME);
+        buf.putShort((short) id);
+    }
+
+    public static void encodeLobby(ByteBuffer buf, NetThread.LobbyState st) {
+        writeHeader(buf, LOBBY);
+        buf.putShort((short) st.room);
+        // cantidad de entradas; cada una: id u16, nombre, ready u8
+        buf.put((byte) st.players);
+        for (int i = 0; i < st.players; i++) {
+            buf.putShort((short) st.ids[i]);
+            putString(buf, st.names[i]);
+            buf.put((byte) (st.ready[i] ? 1 : 0));
+        }
+    }
+
+    public static void encodeReady(ByteBuffer buf, boolean ready) {
+        writeHeader(buf, READY);
+        buf.put((byte) (ready ? 1 : 0));
+    }
+
+    public static void encodeStart(ByteBuffer buf, int room, int seed, long t0, float speed) {
+        writeHeader(buf, START);
+        buf.putShort((short) room);
+        buf.putInt(seed);
+        buf.putLong(t0);
+        buf.putFloat(speed);
+    }
+
+    /**
+     * STATE: seq, campos del jugador y los comandos de input sin ack
+     * (ver ClientPrediction.writeUnacked). inputs null = sin comandos.
+     */
+    public static void encodeState(ByteBuffer buf, int seq, float y, boolean onGround, boolean sliding, int hp, int score,
+                                   ClientPrediction inputs) {
+        writeHeader(buf, STATE);
+        buf.putShort((short) seq);
+        putPlayerFields(buf, y, onGround, sliding, hp, score);
+        if (inputs != null) {
+            inputs.writeUnacked(buf);
+        } else {
+            buf.putShort((short) 0);
+            buf.put((byte) 0);
+        }
+    }
+
+    /**
+     * STATE_ACK: último STATE recibido (base para STATE_DELTA), último input
+     * procesado por el server y el estado autoritativo que dejó.
+     */
+    public static void encodeStateAck(ByteBuffer buf, int stateSeq, int inputSeq, float y, float velocityY,
+                                      boolean onGround, boolean sliding, int hp) {
+        writeHeader(buf, STATE_ACK);
+        buf.putShort((short) stateSeq);
+        buf.putShort((short) inputSeq);
+        buf.putFloat(y);
+        buf.putFloat(velocityY);
+        buf.put((byte) ((onGround ? FLAG_ON_GROUND : 0) | (sliding ? FLAG_SLIDING : 0)));
+        buf.put((byte) hp);
+    }
+
+    /** timeMs: momento de la partida (ms desde t0) al que corresponde el estado, del lado del que lo mandó. */
+    public static void encodeRivalState(ByteBuffer buf, int id, int seq, int timeMs, float y, boolean onGround, boolean sliding, int hp, int score) {
+        writeHeader(buf, RIVAL_STATE);
+        buf.putShort((short) id);
+        buf.putShort((short) seq);
+        buf.putInt(timeMs);
+        putPlayerFields(buf, y, onGround, sliding, hp, score);
+    }
+
+    /** PING: seq + nanoTime del cliente. */
+    public static void encodePing(ByteBuffer buf, int seq, long timeNs) {
+        writeHeader(buf, PING);
+        buf.putShort((short) seq);
+        buf.putLong(timeNs);
+    }
+
+    /** PONG: devuelve seq y timestamp del PING tal cual, más el reloj del server (ms). */
+    public static void encodePong(ByteBuffer buf, int seq, long clientTimeNs, long serverTimeMs) {
+        writeHeader(buf, PONG);
+        buf.putShort((short) seq);
+        buf.putLong(clientTimeNs);
+        buf.putLong(serverTimeMs);
+    }
+
+    public static void encodeDead(ByteBuffer buf, int score, int timeSeconds) {
+        writeHeader(buf, DEAD);
+        buf.putInt(score);
+        buf.putInt(timeSeconds);
+    }
+
+    public static void encodeResult(ByteBuffer buf, int winner, String reason) {
+        writeHeader(buf, RESULT);
+        buf.putShort((short) winner);
+        putString(buf, reason);
+    }
+
+    // =========================
+    // Decoders (buf posicionado después del header)
+    // =========================
+    public static void decodeConnect(ByteBuffer buf, NetThread.ConnectInfo out) {
+        out.name = getString(buf, out.name);
+        out.room = buf.getShort() & 0xFFFF;
+    }
+
+    /** Sala pedida en un CONNECT binario sin decodificarlo (data desde el header). 0 si no se puede leer. */
+    public static int peekConnectRoom(byte[] data, int length) {
+        if (length < HEADER_SIZE + 1) return 0;
+        int at = HEADER_SIZE + 1 + (data[HEADER_SIZE] & 0xFF);
+        if (at + 2 > length) return 0;
+        return (data[at] & 0xFF) << 8 | (data[at + 1] & 0xFF);
+    }
+
+    public static int decodeWelcome(ByteBuffer buf) {
+        return buf.getShort() & 0xFFFF;
+    }
+
+    public static void decodeLobby(ByteBuffer buf, NetThread.LobbyState out) {
+        out.room = buf.getShort() & 0xFFFF;
+        int entries = buf.get() & 0xFF;
+        int n = 0;
+        for (int i = 0; i < entries; i++) {
+            if (n == MAX_ROOM_PLAYERS) { buf.getShort(); skipString(buf); buf.get(); continue; }
+            out.ids[n] = buf.getShort() & 0xFFFF;
+            out.names[n] = getString(buf, out.names[n]);
+            out.ready[n] = buf.get() != 0;
+            n++;
+        }
+        for (int i = n; i < MAX_ROOM_PLAYERS; i++) { out.ids[i] = 0; out.names[i] = null; out.ready[i] = false; }
+        out.players = n;
+    }
+
+    public static boolean decodeReady(ByteBuffer buf) {
+        return buf.get() != 0;
+    }
+
+    public static void decodeStart(ByteBuffer buf, NetThread.StartInfo out) {
+        out.room = buf.getShort() & 0xFFFF;
+        out.seed = buf.getInt();
+        out.t0 = buf.getLong();
+        out.speed = buf.getFloat();
+    }
+
+    /**
+     * STATE y RIVAL_STATE comparten layout; en STATE el id queda en 0. Con
+     * inputs null los comandos se saltean sin guardarlos (ver skipInputs).
+     */
+    public static void decodeState(ByteBuffer buf, NetThread.RivalState out, InputBatch inputs) {
+        out.id = 0;
+        out.seq = buf.getShort() & 0xFFFF;
+        out.timeMs = -1;
+        getPlayerFields(buf, out);
+        if (inputs != null) readInputs(buf, inputs);
+        else skipInputs(buf);
+    }
+
+    /**
+     * Comandos de input: seq del último (u16), cantidad (u8) y corridas.
+     * Cada corrida es un byte (bits | (largo - 1) << INPUT_RUN_SHIFT) seguido
+     * de un dt por comando, como varint zigzag de la diferencia con el dt
+     * anterior (el primero contra 0).
+     */
+    public static void readInputs(ByteBuffer buf, InputBatch out) {
+        out.lastSeq = buf.getShort() & 0xFFFF;
+        int n = buf.get() & 0xFF;
+        if (n > MAX_INPUTS_PER_STATE) throw new BufferUnderflowException();
+
+        int prevDt = 0;
+        int k = 0;
+        while (k < n) {
+            int head = buf.get() & 0xFF;
+            int runBits = head & ((1 << INPUT_RUN_SHIFT) - 1);
+            int run = (head >>> INPUT_RUN_SHIFT) + 1;
+            if (k + run > n) throw new BufferUnderflowException();
+            for (int r = 0; r < run; r++, k++) {
+                prevDt += unzigzag(getVarInt(buf));
+                out.bits[k] = runBits;
+                out.dtUnits[k] = prevDt;
+            }
+        }
+        out.count = n;
+    }
+
+    /** Avanza buf sobre unos comandos de input (mismo formato y chequeos que readInputs). */
+    public static void skipInputs(ByteBuffer buf) {
+        buf.getShort();
+        int n = buf.get() & 0xFF;
+        if (n > MAX_INPUTS_PER_STATE) throw new BufferUnderflowException();
+
+        int k = 0;
+        while (k < n) {
+            int run = ((buf.get() & 0xFF) >>> INPUT_RUN_SHIFT) + 1;
+            if (k + run > n) throw new BufferUnderflowException();
+            for (int r = 0; r < run; r++, k++) getVarInt(buf);
+        }
+    }
+
+    public static void decodePing(ByteBuffer buf, NetThread.PingInfo out) {
+        out.seq = buf.getShort() & 0xFFFF;
+        out.timeNs = buf.getLong();
+        out.serverTimeMs = 0L;
+    }
+
+    public static void decodePong(ByteBuffer buf, NetThread.PingInfo out) {
+        out.seq = buf.getShort() & 0xFFFF;
+        out.timeNs = buf.getLong();
+        out.serverTimeMs = buf.getLong();
+    }
+
+    public static void decodeStateAck(ByteBuffer buf, NetThread.StateAck out) {
+        out.stateSeq = buf.getShort() & 0xFFFF;
+        out.inputSeq = buf.getShort() & 0xFFFF;
+        out.y = buf.getFloat();
+        out.velocityY = buf.getFloat();
+        int flags = buf.get();
+        out.onGround = (flags & FLAG_ON_GROUND) != 0;
+        out.sliding = (flags & FLAG_SLIDING) != 0;
+        out.hp = buf.get();
+    }
+
+    public static void decodeRivalState(ByteBuffer buf, NetThread.RivalState out) {
+        out.id = buf.getShort() & 0xFFFF;
+        out.seq = buf.getShort() & 0xFFFF;
+        out.timeMs = buf.getInt();
+        getPlayerFields(buf, out);
+    }
+
+    /** Devuelve {score, time}. */
+    public static void decodeDead(ByteBuffer buf, int[] out) {
+        out[0] = buf.getInt();
+        out[1] = buf.getInt();
+    }
+
+    public static void decodeResult(ByteBuffer buf, NetThread.ResultInfo out) {
+        out.winner = buf.getShort() & 0xFFFF;
+        out.reason = getString(buf, out.reason);
+    }
+
+    // =========================
+    // Helpers
+    // =========================
+    private static void putPlayerFields(ByteBuffer buf, float y, boolean onGround, boolean sliding, int hp, int score) {
+        int flags = (onGround ? FLAG_ON_GROUND : 0) | (sliding ? FLAG_SLIDING : 0);
+        buf.putFloat(y);
+        buf.put((byte) flags);
+        buf.put((byte) hp);
+        buf.putInt(score);
+    }
+
+    private static void getPlayerFields(ByteBuffer buf, NetThread.RivalState out) {
+        out.y = buf.getFloat();
+        int flags = buf.get();
+        out.onGround = (flags & FLAG_ON_GROUND) != 0;
+        out.sliding = (flags & FLAG_SLIDING) != 0;
+        out.hp = buf.get();
+        out.score = buf.getInt();
+    }
+
+    /** Entero sin signo en bloques de 7 bits (1 byte hasta 127). */
+    public static void putVarInt(ByteBuffer buf, int v) {
+        while ((v & ~0x7F) != 0) {
+            buf.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buf.put((byte) v);
+    }
+
+    public static int getVarInt(ByteBuffer buf) {
+        int v = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = buf.get();
+            v |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new BufferUnderflowException();
+    }
+
+    /** Mapea enteros con signo a sin signo chicos: 0,-1,1,-2,... -> 0,1,2,3,... */
+    public static int zigzag(int v) {
+        return (v << 1) ^ (v >> 31);
+    }
+
+    public static int unzigzag(int v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    /** String corto: u8 largo + UTF-8. null se manda como largo 0. */
+    private static void putString(ByteBuffer buf, String s) {
+        if (s == null || s.isEmpty()) { buf.put((byte) 0); return; }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        int len = Math.min(b.length, MAX_STRING_BYTES);
+        buf.put((byte) len);
+        buf.put(b, 0, len);
+    }
+
+    /** Si los bytes coinciden con current lo devuelve tal cual (sin alocar). */
+    private static String getString(ByteBuffer buf, String current) {
+        int len = buf.get() & 0xFF;
+        if (len == 0) return null;
+        if (len > buf.remaining()) throw new BufferUnderflowException();
+
+        if (buf.hasArray()) {
+            int from = buf.arrayOffset() + buf.position();
+            buf.position(buf.position() + len);
+            return TextCodec.stringValue(buf.array(), from, from + len, current);
+        }
+
+        // buffer directo: comparamos in-place antes de alocar
+        if (current != null && current.length() == len && regionEquals(buf, buf.position(), current)) {
+            buf.position(buf.position() + len);
+            return current;
+        }
+
+        byte[] b = new byte[len];
+        buf.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private static boolean regionEquals(ByteBuffer buf, int from, String s) {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c > 0x7F || buf.get(from + i) != (byte) c) return false;
+        }
+        return true;
+    }
+
+    private static void skipString(ByteBuffer buf) {
+        int len = buf.get() & 0xFF;
+        if (len > buf.remaining()) throw new BufferUnderflowException();
+        buf.position(buf.position() + len);
+    }
+}
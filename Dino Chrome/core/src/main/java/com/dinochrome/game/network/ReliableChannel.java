@@ -0,0 +1,307 @@
+package com.dinochrome.game.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Canal confiable y ordenado para los mensajes de control (READY, DEAD,
+ * START, RESULT) sobre el mismo socket UDP, sin frenar a los STATE, que
+ * siguen yendo sueltos.
+ *
+ * Cada mensaje confiable viaja en un RELIABLE con su secuencia y, de paso,
+ * el ack de lo que recibimos del otro lado: la secuencia más alta y un
+ * bitfield con las 32 anteriores (un ack perdido lo cubre el siguiente).
+ * Si no hay nada confiable para mandar, el ack sale solo en un ACK. Lo que
+ * no tiene ack en RTO (estimado como TCP, RFC 6298, con backoff) se
+ * retransmite; del lado que recibe se entrega en orden y sin duplicados.
+ *
+ * No hace I/O: el dueño le pasa lo que llega (onReliable / onAck), le pide
+ * lo que hay que mandar (writeNext) y lo manda por su canal. Así lo usan
+ * igual NetThread, el server y los bots. No es thread-safe.
+ */
+public final class ReliableChannel {
+
+    /** Mensajes sin ack en vuelo (y tamaño del bitfield de acks). */
+    public static final int WINDOW = 32;
+    /** Tamaño máximo de un mensaje de control (header incluido). */
+    public static final int MAX_MESSAGE = 256;
+    /** Retransmisiones de un mismo mensaje antes de dar el canal por perdido. */
+    public static final int MAX_RETRIES = 10;
+
+    private static final int MASK = WINDOW - 1;
+    private static final long INITIAL_RTO_NS = 250_000_000L;
+    private static final long MIN_RTO_NS = 100_000_000L;
+    private static final long MAX_RTO_NS = 2_000_000_000L;
+
+    // =========================
+    // Salida: ventana circular indexada por seq & MASK
+    // =========================
+    private final byte[][] outData = new byte[WINDOW][MAX_MESSAGE];
+    private final int[] outLen = new int[WINDOW];
+    private final long[] outFirstSentNs = new long[WINDOW];
+    private final long[] outNextSendNs = new long[WINDOW];
+    private final int[] outRetries = new int[WINDOW];
+    private final boolean[] outSent = new boolean[WINDOW];
+    private final boolean[] outAcked = new boolean[WINDOW];
+    private int outBase;    // seq sin ack más vieja
+    private int nextSeq;    // próxima seq a asignar
+
+    // =========================
+    // Entrada
+    // =========================
+    private final byte[][] inData = new byte[WINDOW][MAX_MESSAGE];
+    private final ByteBuffer[] inView = new ByteBuffer[WINDOW];
+    private final int[] inLen = new int[WINDOW];
+    private final int[] inSeq = new int[WINDOW];
+    private final boolean[] inHas = new boolean[WINDOW];
+    private int lastDelivered;
+    // ack a mandar: seq más alta recibida + bit i = llegó (highest - 1 - i)
+    private boolean hasReceived;
+    private int highestReceived;
+    private int receivedBits;
+    private boolean ackPending;
+
+    // RTO
+    private boolean hasRtt;
+    private double srttNs;
+    private double rttVarNs;
+    private long rtoNs;
+
+    private int retransmits;
+    private int duplicates;
+    private boolean failed;
+
+    public ReliableChannel() {
+        for (int i = 0; i < WINDOW; i++) inView[i] = ByteBuffer.wrap(inData[i]);
+        reset();
+    }
+
+    /** Sesión nueva: secuencias desde cero en los dos sentidos. */
+    public void reset() {
+        for (int i = 0; i < WINDOW; i++) {
+            outSent[i] = false;
+            outAcked[i] = false;
+            inHas[i] = false;
+        }
+        outBase = 0;
+        nextSeq = 0;
+        lastDelivered = 0xFFFF;
+        // sin nada recibido el ack apunta a 0xFFFF, que no se usa hasta dar la vuelta
+        hasReceived = false;
+        highestReceived = 0xFFFF;
+        receivedBits = 0;
+        ackPending = false;
+        hasRtt = false;
+        rtoNs = INITIAL_RTO_NS;
+        retransmits = 0;
+        duplicates = 0;
+        failed = false;
+    }
+
+    // =========================
+    // Envío
+    // =========================
+
+    /**
+     * Encola msg (de position a limit, con su header) para mandarlo
+     * confiable. false si la ventana está llena o el mensaje no entra.
+     */
+    public boolean queue(ByteBuffer msg) {
+        int len = msg.remaining();
+        if (pendingCount() >= WINDOW || len > MAX_MESSAGE) return false;
+
+        int slot = nextSeq & MASK;
+        msg.get(outData[slot], 0, len);
+        outLen[slot] = len;
+        outRetries[slot] = 0;
+        outSent[slot] = false;
+        outAcked[slot] = false;
+        nextSeq = (nextSeq + 1) & 0xFFFF;
+        return true;
+    }
+
+    /**
+     * Escribe en out (desde position) el próximo datagrama a mandar: un
+     * mensaje nuevo, una retransmisión vencida o un ACK suelto. false si
+     * no hay nada; el dueño llama hasta que devuelva false.
+     */
+    public boolean writeNext(ByteBuffer out, long now) {
+        for (int seq = outBase; seq != nextSeq; seq = (seq + 1) & 0xFFFF) {
+            int slot = seq & MASK;
+            if (outAcked[slot]) continue;
+            if (outSent[slot] && now - outNextSendNs[slot] < 0) continue;
+
+            if (outSent[slot]) {
+                outRetries[slot]++;
+                retransmits++;
+                if (outRetries[slot] > MAX_RETRIES) failed = true;
+            } else {
+                outSent[slot] = true;
+                outFirstSentNs[slot] = now;
+            }
+            long rto = Math.min(MAX_RTO_NS, rtoNs << Math.min(outRetries[slot], 5));
+            outNextSendNs[slot] = now + rto;
+
+            Protocol.writeHeader(out, Protocol.RELIABLE);
+            out.putShort((short) seq);
+            writeAck(out);
+            out.put(outData[slot], 0, outLen[slot]);
+            return true;
+        }
+
+        if (ackPending) {
+            Protocol.writeHeader(out, Protocol.ACK);
+            writeAck(out);
+            return true;
+        }
+        return false;
+    }
+
+    /** nanoTime de la próxima retransmisión (o ahora si hay un ack pendiente); Long.MAX_VALUE si nada. */
+    public long nextDeadlineNs(long now) {
+        if (ackPending) return now;
+        long next = Long.MAX_VALUE;
+        for (int seq = outBase; seq != nextSeq; seq = (seq + 1) & 0xFFFF) {
+            int slot = seq & MASK;
+            if (outAcked[slot]) continue;
+            if (!outSent[slot]) return now;
+            next = Math.min(next, outNextSendNs[slot]);
+        }
+        return next;
+    }
+
+    // =========================
+    // Recepción
+    // =========================
+
+    /**
+     * RELIABLE con el header ya leído: procesa el ack que trae y guarda el
+     * mensaje; después sacar los que se puedan entregar con poll().
+     */
+    public void onReliable(ByteBuffer in, long now) {
+        int seq = in.getShort() & 0xFFFF;
+        readAck(in, now);
+
+        ackPending = true;
+        int ahead = (seq - (lastDelivered + 1)) & 0xFFFF;
+        if (ahead >= WINDOW) {
+            // ya entregado (o fuera de ventana): solo hay que volver a mandar el ack
+            duplicates++;
+            markReceived(seq);
+            return;
+        }
+
+        int slot = seq & MASK;
+        if (inHas[slot]) {
+            duplicates++;
+            return;
+        }
+        int len = in.remaining();
+        if (len > MAX_MESSAGE) return;
+        in.get(inData[slot], 0, len);
+        inLen[slot] = len;
+        inSeq[slot] = seq;
+        inHas[slot] = true;
+        markReceived(seq);
+    }
+
+    /** ACK suelto con el header ya leído. */
+    public void onAck(ByteBuffer in, long now) {
+        readAck(in, now);
+    }
+
+    /**
+     * Próximo mensaje en orden (con su header, listo para decodificar), o
+     * null si falta alguno. El buffer es del canal: usarlo antes de volver
+     * a llamar a onReliable.
+     */
+    public ByteBuffer poll() {
+        int seq = (lastDelivered + 1) & 0xFFFF;
+        int slot = seq & MASK;
+        if (!inHas[slot] || inSeq[slot] != seq) return null;
+
+        inHas[slot] = false;
+        lastDelivered = seq;
+        ByteBuffer view = inView[slot];
+        view.clear();
+        view.limit(inLen[slot]);
+        return view;
+    }
+
+    // =========================
+    // Estado
+    // =========================
+    public int pendingCount() { return (nextSeq - outBase) & 0xFFFF; }
+    public int getRetransmits() { return retransmits; }
+    public int getDuplicates() { return duplicates; }
+    public float getRtoMs() { return rtoNs / 1_000_000f; }
+
+    /** True si algún mensaje superó MAX_RETRIES: el otro lado no está. */
+    public boolean isFailed() { return failed; }
+
+    // =========================
+    // Helpers
+    // =========================
+    private void writeAck(ByteBuffer out) {
+        out.putShort((short) highestReceived);
+        out.putInt(receivedBits);
+        ackPending = false;
+    }
+
+    private void readAck(ByteBuffer in, long now) {
+        int ack = in.getShort() & 0xFFFF;
+        int bits = in.getInt();
+
+        for (int seq = outBase; seq != nextSeq; seq = (seq + 1) & 0xFFFF) {
+            int slot = seq & MASK;
+            if (outAcked[slot] || !outSent[slot]) continue;
+
+            int back = (ack - seq) & 0xFFFF;
+            boolean acked = back == 0 || (back <= WINDOW && (bits & (1 << (back - 1))) != 0);
+            if (!acked) continue;
+
+            outAcked[slot] = true;
+            // Karn: solo medimos RTT con lo que no se retransmitió
+            if (outRetries[slot] == 0) onRttSample(now - outFirstSentNs[slot]);
+        }
+
+        while (outBase != nextSeq && outAcked[outBase & MASK]) {
+            outAcked[outBase & MASK] = false;
+            outSent[outBase & MASK] = false;
+            outBase = (outBase + 1) & 0xFFFF;
+        }
+    }
+
+    private void markReceived(int seq) {
+        if (!hasReceived) {
+            hasReceived = true;
+            highestReceived = seq;
+            receivedBits = 0;
+            return;
+        }
+        int ahead = (seq - highestReceived) & 0xFFFF;
+        if (ahead == 0) return;
+        if (ahead < 0x8000) {
+            // más nueva: corremos el bitfield y la anterior más alta pasa a ser el bit ahead - 1
+            if (ahead > WINDOW) receivedBits = 0;
+            else if (ahead == WINDOW) receivedBits = 1 << (WINDOW - 1);
+            else receivedBits = receivedBits << ahead | 1 << (ahead - 1);
+            highestReceived = seq;
+        } else {
+            int back = (highestReceived - seq) & 0xFFFF;
+            if (back <= WINDOW) receivedBits |= 1 << (back - 1);
+        }
+    }
+
+    private void onRttSample(long rttNs) {
+        if (rttNs < 0) return;
+        if (!hasRtt) {
+            srttNs = rttNs;
+            rttVarNs = rttNs / 2.0;
+            hasRtt = true;
+        } else {
+            rttVarNs = 0.75 * rttVarNs + 0.25 * Math.abs(srttNs - rttNs);
+            srttNs = 0.875 * srttNs + 0.125 * rttNs;
+        }
+        rtoNs = Math.max(MIN_RTO_NS, Math.min(MAX_RTO_NS, (long) (srttNs + 4 * rttVarNs)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.dinochrome.game.network;
+
+/**
+ * Rivales de la partida indexados por id, cada uno con su jitter buffer.
+ * Los slots se asignan en orden de llegada del primer RIVAL_STATE de cada
+ * id y solo se liberan con clear() (partida nueva), así el render puede
+ * recorrer 0..size() sin copiar nada.
+ *
+ * El hilo de red asigna slots; el render lee. Los SnapshotBuffer nunca se
+ * reemplazan, solo se vacían.
+ */
+public final class RivalTable {
+
+    public static final int CAPACITY = Protocol.MAX_ROOM_PLAYERS;
+
+    private final int[] ids = new int[CAPACITY];
+    private final SnapshotBuffer[] buffers = new SnapshotBuffer[CAPACITY];
+    private volatile int count;
+
+    public RivalTable() {
+        for (int i = 0; i < CAPACITY; i++) buffers[i] = new SnapshotBuffer();
+    }
+
+    /** Slot del id (lo asigna si es nuevo); -1 si la tabla está llena. */
+    public synchronized int slotFor(int id) {
+        int n = count;
+        for (int i = 0; i < n; i++) {
+            if (ids[i] == id) return i;
+        }
+        if (n == CAPACITY) return -1;
+        ids[n] = id;
+        count = n + 1;
+        return n;
+    }
+
+    /** Slot del id o -1 si todavía no llegó nada suyo. */
+    public synchronized int indexOf(int id) {
+        for (int i = 0; i < count; i++) {
+            if (ids[i] == id) return i;
+        }
+        return -1;
+    }
+
+    public int size() { return count; }
+
+    public synchronized int idAt(int slot) { return ids[slot]; }
+
+    public SnapshotBuffer bufferAt(int slot) { return buffers[slot]; }
+
+    public synchronized void clear() {
+        for (int i = 0; i < count; i++) {
+            buffers[i].clear();
+            ids[i] = 0;
+        }
+        count = 0;
+    }
+
+    /** Snapshots guardados entre todos los rivales. */
+    public int totalDepth() {
+        int n = 0;
+        for (int i = 0; i < count; i++) n += buffers[i].size();
+        return n;
+    }
+
+    /** Snapshots descartados (desordenados / duplicados) entre todos los rivales. */
+    public int totalRejected() {
+        int n = 0;
+        for (int i = 0; i < count; i++) n += buffers[i].getRejected();
+        return n;
+    }
+}
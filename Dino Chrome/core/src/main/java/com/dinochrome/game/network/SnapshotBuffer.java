@@ -0,0 +1,128 @@
+package com.dinochrome.game.network;
+
+/**
+ * Jitter buffer para el estado de un rival: anillo chico de snapshots con el
+ * momento de la partida al que corresponde cada uno (timeMs, ms desde t0,
+ * puesto por el que lo mandó). El render pide el estado "un poco en el
+ * pasado" de esa misma línea de tiempo y se interpola entre los dos
+ * snapshots que lo rodean: como no depende de cuándo llegó cada paquete, el
+ * jitter de la red no se ve en el movimiento.
+ * Los paquetes viejos o repetidos (por número de secuencia) se descartan.
+ *
+ * push() lo llama el hilo de red y sample() el render; ambos son cortos y
+ * sincronizados, sin alocar.
+ */
+public final class SnapshotBuffer {
+
+    private static final int CAPACITY = 32;
+
+    private final int[] seq = new int[CAPACITY];
+    private final int[] timeMs = new int[CAPACITY];
+    private final float[] y = new float[CAPACITY];
+    private final boolean[] onGround = new boolean[CAPACITY];
+    private final boolean[] sliding = new boolean[CAPACITY];
+    private final int[] hp = new int[CAPACITY];
+    private final int[] score = new int[CAPACITY];
+
+    private int id;
+    private int head;   // próximo slot a escribir
+    private int count;
+    private int lastSeq;
+
+    private int rejected;
+
+    /**
+     * Agrega un snapshot (s.timeMs tiene que venir puesto). Devuelve false si
+     * llegó desordenado o duplicado (seq no es más nuevo que el último aceptado).
+     * seq == 0 significa "sin secuencia" (protocolo de texto viejo) y se acepta siempre.
+     */
+    public synchronized boolean push(NetThread.RivalState s) {
+        if (count > 0 && s.seq != 0 && lastSeq != 0 && !Protocol.seqNewer(s.seq, lastSeq)) {
+            rejected++;
+            return false;
+        }
+
+        int i = head;
+        seq[i] = s.seq;
+        timeMs[i] = s.timeMs;
+        y[i] = s.y;
+        onGround[i] = s.onGround;
+        sliding[i] = s.sliding;
+        hp[i] = s.hp;
+        score[i] = s.score;
+
+        id = s.id;
+        lastSeq = s.seq;
+        head = (head + 1) % CAPACITY;
+        if (count < CAPACITY) count++;
+        return true;
+    }
+
+    /**
+     * Estado interpolado para renderTimeMs (ms desde t0). Antes del snapshot
+     * más viejo devuelve el más viejo; después del más nuevo se queda en el
+     * más nuevo (no extrapola). false si el buffer está vacío.
+     */
+    public synchronized boolean sample(double renderTimeMs, NetThread.RivalState out) {
+        if (count == 0) return false;
+
+        int newest = (head - 1 + CAPACITY) % CAPACITY;
+        int oldest = (head - count + CAPACITY) % CAPACITY;
+
+        if (renderTimeMs >= timeMs[newest]) { copy(newest, out); return true; }
+        if (renderTimeMs <= timeMs[oldest]) { copy(oldest, out); return true; }
+
+        // buscamos desde el más nuevo hacia atrás el primero con t <= renderTime
+        int to = newest;
+        for (int n = 1; n < count; n++) {
+            int from = (newest - n + CAPACITY) % CAPACITY;
+            if (renderTimeMs >= timeMs[from]) {
+                int span = timeMs[to] - timeMs[from];
+                float alpha = span <= 0 ? 1f : (float) ((renderTimeMs - timeMs[from]) / span);
+
+                // lo discreto (en el piso, agachado, hp, score) viene del snapshot anterior
+                copy(from, out);
+                out.y = y[from] + (y[to] - y[from]) * alpha;
+                return true;
+            }
+            to = from;
+        }
+
+        copy(oldest, out);
+        return true;
+    }
+
+    /** Último snapshot aceptado, sin interpolar. */
+    public synchronized boolean latest(NetThread.RivalState out) {
+        if (count == 0) return false;
+        copy((head - 1 + CAPACITY) % CAPACITY, out);
+        return true;
+    }
+
+    public synchronized void clear() {
+        head = 0;
+        count = 0;
+        lastSeq = 0;
+    }
+
+    /** Snapshots guardados (profundidad del buffer). */
+    public synchronized int size() {
+        return count;
+    }
+
+    /** Snapshots descartados por llegar desordenados o duplicados. */
+    public synchronized int getRejected() {
+        return rejected;
+    }
+
+    private void copy(int i, NetThread.RivalState out) {
+        out.id = id;
+        out.seq = seq[i];
+        out.timeMs = timeMs[i];
+        out.y = y[i];
+        out.onGround = onGround[i];
+        out.sliding = sliding[i];
+        out.hp = hp[i];
+        out.score = score[i];
+    }
+}
@@ -0,0 +1,144 @@
+package com.dinochrome.game.network;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Compresión delta del estado del jugador (STATE_DELTA).
+ *
+ * Cada snapshot se codifica contra otro que el peer ya confirmó (baseSeq) y
+ * solo viajan los campos que cambiaron, marcados en una máscara de bits.
+ * La y va cuantizada a 1/8 px en un short y el score como diferencia
+ * (varint zigzag). Si no cambió nada, el mensaje queda en header + seq +
+ * baseSeq + máscara: 8 bytes.
+ *
+ * La misma clase sirve de los dos lados: el que manda guarda lo que mandó
+ * y el que recibe guarda lo que decodificó, indexado por seq, para poder
+ * reconstruir contra cualquier base reciente. baseSeq = 0 es "sin base"
+ * (se codifica contra el estado cero).
+ */
+public final class StateDeltaCodec {
+
+    public static final int F_Y = 1;
+    public static final int F_FLAGS = 1 << 1;
+    public static final int F_HP = 1 << 2;
+    public static final int F_SCORE = 1 << 3;
+    public static final int F_INPUTS = 1 << 4;
+
+    public static final float Y_SCALE = 8f;
+
+    private static final int HISTORY = 64;
+
+    private final int[] seq = new int[HISTORY];
+    private final short[] qy = new short[HISTORY];
+    private final byte[] flags = new byte[HISTORY];
+    private final byte[] hp = new byte[HISTORY];
+    private final int[] score = new int[HISTORY];
+    private final boolean[] valid = new boolean[HISTORY];
+
+    public void reset() {
+        for (int i = 0; i < HISTORY; i++) valid[i] = false;
+    }
+
+    /**
+     * Escribe un STATE_DELTA completo. Si baseSeq ya no está en el historial
+     * (muy viejo o nunca confirmado) se manda contra el estado cero.
+     */
+    public void encode(ByteBuffer buf, int stateSeq, int baseSeq,
+                       float y, boolean onGround, boolean sliding, int hpValue, int scoreValue,
+                       ClientPrediction inputs) {
+
+        int base = indexOf(baseSeq);
+        if (base < 0) baseSeq = 0;
+
+        short nqy = quantizeY(y);
+        byte nflags = (byte) ((onGround ? Protocol.FLAG_ON_GROUND : 0) | (sliding ? Protocol.FLAG_SLIDING : 0));
+        byte nhp = (byte) hpValue;
+
+        short bqy = base < 0 ? 0 : qy[base];
+        byte bflags = base < 0 ? 0 : flags[base];
+        byte bhp = base < 0 ? 0 : hp[base];
+        int bscore = base < 0 ? 0 : score[base];
+
+        int mask = 0;
+        if (nqy != bqy) mask |= F_Y;
+        if (nflags != bflags) mask |= F_FLAGS;
+        if (nhp != bhp) mask |= F_HP;
+        if (scoreValue != bscore) mask |= F_SCORE;
+        if (inputs != null && inputs.getPendingCount() > 0) mask |= F_INPUTS;
+
+        Protocol.writeHeader(buf, Protocol.STATE_DELTA);
+        buf.putShort((short) stateSeq);
+        buf.putShort((short) baseSeq);
+        buf.put((byte) mask);
+        if ((mask & F_Y) != 0) buf.putShort(nqy);
+        if ((mask & F_FLAGS) != 0) buf.put(nflags);
+        if ((mask & F_HP) != 0) buf.put(nhp);
+        if ((mask & F_SCORE) != 0) Protocol.putVarInt(buf, Protocol.zigzag(scoreValue - bscore));
+        if ((mask & F_INPUTS) != 0) inputs.writeUnacked(buf);
+
+        store(stateSeq, nqy, nflags, nhp, scoreValue);
+    }
+
+    /**
+     * Lee un STATE_DELTA (buf después del header) y deja el estado completo en
+     * out. Devuelve false si la base ya no está en el historial (el paquete
+     * no se puede reconstruir y hay que descartarlo). Con inputs null los
+     * comandos se saltean.
+     */
+    public boolean decode(ByteBuffer buf, NetThread.RivalState out, InputBatch inputs) {
+        int stateSeq = buf.getShort() & 0xFFFF;
+        int baseSeq = buf.getShort() & 0xFFFF;
+        int mask = buf.get() & 0xFF;
+
+        int base = indexOf(baseSeq);
+        if (baseSeq != 0 && base < 0) return false;
+
+        short nqy = base < 0 ? 0 : qy[base];
+        byte nflags = base < 0 ? 0 : flags[base];
+        byte nhp = base < 0 ? 0 : hp[base];
+        int nscore = base < 0 ? 0 : score[base];
+
+        if ((mask & F_Y) != 0) nqy = buf.getShort();
+        if ((mask & F_FLAGS) != 0) nflags = buf.get();
+        if ((mask & F_HP) != 0) nhp = buf.get();
+        if ((mask & F_SCORE) != 0) nscore += Protocol.unzigzag(Protocol.getVarInt(buf));
+
+        if (inputs != null) inputs.count = 0;
+        if ((mask & F_INPUTS) != 0) {
+            if (inputs != null) Protocol.readInputs(buf, inputs);
+            else Protocol.skipInputs(buf);
+        }
+
+        store(stateSeq, nqy, nflags, nhp, nscore);
+
+        out.id = 0;
+        out.seq = stateSeq;
+        out.y = nqy / Y_SCALE;
+        out.onGround = (nflags & Protocol.FLAG_ON_GROUND) != 0;
+        out.sliding = (nflags & Protocol.FLAG_SLIDING) != 0;
+        out.hp = nhp;
+        out.score = nscore;
+        return true;
+    }
+
+    public static short quantizeY(float y) {
+        int q = Math.round(y * Y_SCALE);
+        return (short) Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, q));
+    }
+
+    private int indexOf(int s) {
+        if (s == 0) return -1;
+        int i = s % HISTORY;
+        return valid[i] && seq[i] == s ? i : -1;
+    }
+
+    private void store(int s, short nqy, byte nflags, byte nhp, int nscore) {
+        int i = s % HISTORY;
+        seq[i] = s;
+        qy[i] = nqy;
+        flags[i] = nflags;
+        hp[i] = nhp;
+        score[i] = nscore;
+        valid[i] = true;
+    }
+}
@@ -0,0 +1,161 @@
+package com.dinochrome.game.network;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lectura del protocolo de texto ("KEY k=v;k=v") directo sobre los bytes
+ * recibidos, sin armar Strings intermedios. Los números se parsean a mano.
+ */
+public final class TextCodec {
+
+    private TextCodec() {}
+
+    /** True si el mensaje empieza con el comando dado (ASCII). */
+    public static boolean startsWith(byte[] data, int len, String cmd) {
+        int n = cmd.length();
+        if (len < n) return false;
+        for (int i = 0; i < n; i++) {
+            if (data[i] != (byte) cmd.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Devuelve el índice donde empieza el valor de "key=" dentro del payload,
+     * o -1 si no está. El payload arranca después del primer espacio.
+     */
+    public static int valueIndex(byte[] data, int len, String key) {
+        int i = 0;
+        while (i < len && data[i] != ' ') i++;
+        i++;
+
+        int klen = key.length();
+        while (i < len) {
+            i = skipSpaces(data, len, i);
+            int end = fieldEnd(data, len, i);
+
+            if (end - i > klen && data[i + klen] == '=' && regionEquals(data, i, key)) {
+                return skipSpaces(data, len, i + klen + 1);
+            }
+            i = end + 1;
+        }
+        return -1;
+    }
+
+    /** Fin (exclusivo) del valor que empieza en from: hasta ';', ',' o fin. */
+    public static int valueEnd(byte[] data, int len, int from) {
+        int i = from;
+        while (i < len && data[i] != ';' && data[i] != ',' && data[i] != ' ') i++;
+        return i;
+    }
+
+    public static int intValue(byte[] data, int len, String key, int def) {
+        int i = valueIndex(data, len, key);
+        if (i < 0) return def;
+        long v = parseLong(data, i, valueEnd(data, len, i), Long.MIN_VALUE);
+        return v == Long.MIN_VALUE ? def : (int) v;
+    }
+
+    public static long longValue(byte[] data, int len, String key, long def) {
+        int i = valueIndex(data, len, key);
+        if (i < 0) return def;
+        long v = parseLong(data, i, valueEnd(data, len, i), Long.MIN_VALUE);
+        return v == Long.MIN_VALUE ? def : v;
+    }
+
+    public static float floatValue(byte[] data, int len, String key, float def) {
+        int i = valueIndex(data, len, key);
+        if (i < 0) return def;
+        return parseFloat(data, i, valueEnd(data, len, i), def);
+    }
+
+    /** "1" = true, cualquier otra cosa (o ausente) = false. */
+    public static boolean flagValue(byte[] data, int len, String key) {
+        int i = valueIndex(data, len, key);
+        return i >= 0 && valueEnd(data, len, i) == i + 1 && data[i] == '1';
+    }
+
+    /**
+     * Devuelve current si los bytes [from, to) son iguales a él; si no, un String nuevo.
+     * Así los nombres del lobby no se re-alocan en cada broadcast.
+     */
+    public static String stringValue(byte[] data, int from, int to, String current) {
+        if (to <= from) return null;
+        if (current != null && current.length() == to - from && regionEquals(data, from, current)) return current;
+        return new String(data, from, to - from, StandardCharsets.UTF_8);
+    }
+
+    // =========================
+    // Internals
+    // =========================
+    /** Entero que arranca en from y termina en el próximo ; , o espacio. */
+    public static int intAt(byte[] data, int len, int from, int def) {
+        return (int) parseLong(data, from, valueEnd(data, len, from), def);
+    }
+
+    private static int skipSpaces(byte[] data, int len, int i) {
+        while (i < len && data[i] == ' ') i++;
+        return i;
+    }
+
+    private static int fieldEnd(byte[] data, int len, int from) {
+        int i = from;
+        while (i < len && data[i] != ';') i++;
+        return i;
+    }
+
+    private static boolean regionEquals(byte[] data, int from, String s) {
+        int n = s.length();
+        if (from + n > data.length) return false;
+        for (int i = 0; i < n; i++) {
+            char c = s.charAt(i);
+            if (c > 0x7F || data[from + i] != (byte) c) return false;
+        }
+        return true;
+    }
+
+    private static long parseLong(byte[] data, int from, int to, long def) {
+        if (from >= to) return def;
+        boolean neg = false;
+        int i = from;
+        if (data[i] == '-' || data[i] == '+') { neg = data[i] == '-'; i++; }
+        if (i >= to) return def;
+
+        long v = 0;
+        for (; i < to; i++) {
+            int d = data[i] - '0';
+            if (d < 0 || d > 9) return def;
+            v = v * 10 + d;
+        }
+        return neg ? -v : v;
+    }
+
+    /** Acepta el formato de Float.toString: signo, dígitos, '.', dígitos, exponente opcional. */
+    private static float parseFloat(byte[] data, int from, int to, float def) {
+        if (from >= to) return def;
+        boolean neg = false;
+        int i = from;
+        if (data[i] == '-' || data[i] == '+') { neg = data[i] == '-'; i++; }
+
+        double v = 0;
+        boolean digits = false;
+        for (; i < to && data[i] >= '0' && data[i] <= '9'; i++) { v = v * 10 + (data[i] - '0'); digits = true; }
+
+        if (i < to && data[i] == '.') {
+            i++;
+            double scale = 0.1;
+            for (; i < to && data[i] >= '0' && data[i] <= '9'; i++) { v += (data[i] - '0') * scale; scale *= 0.1; digits = true; }
+        }
+        if (!digits) return def;
+
+        if (i < to && (data[i] == 'E' || data[i] == 'e')) {
+            long exp = parseLong(data, i + 1, to, Long.MIN_VALUE);
+            if (exp == Long.MIN_VALUE) return def;
+            v *= Math.pow(10, exp);
+            i = to;
+        }
+        if (i != to) return def;
+
+        return (float) (neg ? -v : v);
+    }
+}
@@ -11,52 +11,57 @@ import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 
 import com.dinochrome.game.DinoChromeGame;
-import com.dinochrome.game.network.NetThread;
 import com.dinochrome.game.world.Background;
 
 public class GameOverScreen implements Screen {
 
-    private static final float WORLD_WIDTH = 800;
-    private static final float WORLD_HEIGHT = 480;
+    private static final float WORLD_WIDTH = ScreenManager.WORLD_WIDTH;
+    private static final float WORLD_HEIGHT = ScreenManager.WORLD_HEIGHT;
 
     private final DinoChromeGame game;
-    private final int finalScore;
-    private final boolean iWon;
+    private final ScreenManager screens;
 
-    private OrthographicCamera camera;
-    private Viewport viewport;
-    private SpriteBatch batch;
+    private final OrthographicCamera camera;
+    private final Viewport viewport;
 
-    private Background background;
-    private BitmapFont font;
+    // compartidos (ScreenManager)
+    private final SpriteBatch batch;
+    private final Background background;
+    private final BitmapFont font;
 
-    public GameOverScreen(DinoChromeGame game, int finalScore, boolean iWon) {
-        this.game = game;
-        this.finalScore = finalScore;
-        this.iWon = iWon;
-    }
+    // se arma una vez por resultado, no por frame
+    private String text = "";
 
-    @Override
-    public void show() {
+    public GameOverScreen(DinoChromeGame game, ScreenManager screens) {
+        this.game = game;
+        this.screens = screens;
 
         camera = new OrthographicCamera();
         viewport = new FitViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
         camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
         camera.update();
 
-        batch = new SpriteBatch();
-        background = new Background(WORLD_WIDTH, WORLD_HEIGHT);
+        batch = screens.getBatch();
+        background = screens.getBackground();
+        font = screens.getFont();
+    }
 
-        font = new BitmapFont();
-        font.getData().setScale(2.4f);
+    /** Resultado a mostrar; lo llama ScreenManager antes de cada show(). */
+    void setResult(int finalScore, boolean iWon) {
+        String title = iWon ? "GANASTE EL JUEGO" : "PERDISTE EL JUEGO";
+        text = title + "\n\n" +
+                "SCORE: " + finalScore + "\n\n" +
+                "APRETA ESPACIO\nPARA VOLVER AL LOBBY";
     }
 
+    @Override
+    public void show() {}
+
     @Override
     public void render(float delta) {
 
         if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) {
-            NetThread net = game.getNet();
-            game.setScreen(new LobbyScreen(game, net));
+            screens.showLobby();
             return;
         }
 
@@ -69,16 +74,8 @@ public class GameOverScreen implements Screen {
 
         background.render(batch);
 
-        String title = iWon ? "GANASTE EL JUEGO" : "PERDISTE EL JUEGO";
-
-        font.draw(
-                batch,
-                title + "\n\n" +
-                        "SCORE: " + finalScore + "\n\n" +
-                        "APRETA ESPACIO\nPARA VOLVER AL LOBBY",
-                160,
-                360
-        );
+        font.getData().setScale(2.4f);
+        font.draw(batch, text, 160, 360);
 
         batch.end();
     }
@@ -94,8 +91,6 @@ public class GameOverScreen implements Screen {
 
     @Override
     public void dispose() {
-        batch.dispose();
-        font.dispose();
-        background.dispose();
+        // batch, fuente y fondo son del ScreenManager
     }
 }
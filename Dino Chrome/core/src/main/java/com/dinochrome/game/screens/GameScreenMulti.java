@@ -3,110 +3,178 @@ package com.dinochrome.game.screens;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input;
 import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.OrthographicCamera;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.utils.viewport.FitViewport;
 import com.badlogic.gdx.utils.viewport.Viewport;
 
 import com.dinochrome.game.DinoChromeGame;
 import com.dinochrome.game.entities.Dino;
-import com.dinochrome.game.entities.obstacles.Bird;
-import com.dinochrome.game.entities.obstacles.Cactus;
-import com.dinochrome.game.entities.obstacles.Obstacle;
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.network.ClientPrediction;
 import com.dinochrome.game.network.NetThread;
-import com.dinochrome.game.utils.ScoreManager;
+import com.dinochrome.game.network.RivalTable;
+import com.dinochrome.game.sim.Obstacle;
+import com.dinochrome.game.sim.ObstacleStore;
+import com.dinochrome.game.sim.Replay;
+import com.dinochrome.game.sim.ReplayRecorder;
+import com.dinochrome.game.sim.ReplayWriter;
+import com.dinochrome.game.sim.World;
+import com.dinochrome.game.utils.Assets;
+import com.dinochrome.game.utils.FixedTimestep;
+import com.dinochrome.game.utils.HudText;
+import com.dinochrome.game.utils.NetDebugOverlay;
 import com.dinochrome.game.world.Background;
 import com.dinochrome.game.world.Ground;
 
-import java.util.Random;
+import java.io.IOException;
+import java.io.Writer;
 
 public final class GameScreenMulti implements Screen {
 
-    public static final float WORLD_WIDTH = 800;
-    public static final float WORLD_HEIGHT = 480;
+    public static final float WORLD_WIDTH = ScreenManager.WORLD_WIDTH;
+    public static final float WORLD_HEIGHT = ScreenManager.WORLD_HEIGHT;
 
-    private final DinoChromeGame game;
+    private final ScreenManager screens;
     private final NetThread net;
 
-    private final int seed;
-    private final long t0Ms;
-    private final Random rng;
+    // de la partida actual (setMatch); la screen se reusa entre revanchas
+    private int seed;
+    private long t0Ms; // en el reloj del server
+
+    private final OrthographicCamera camera;
+    private final Viewport viewport;
+
+    // compartidos (ScreenManager)
+    private final SpriteBatch batch;
+    private final Background background;
+    private final BitmapFont font;
+    private final NetDebugOverlay netOverlay;
+
+    private final Ground ground;
+
+    // las reglas de la partida (sin GL); acá solo input, red y dibujo
+    private final World world = new World();
+    private final Dino dinoLocal;
+    private final TextureRegion[] obstacleRegions = new TextureRegion[Obstacle.TYPES];
+
+    // cada partida se graba (seed + inputs + correcciones + rivales) en ReplayScreen.DIR
+    private final ReplayWriter replayWriter = new ReplayWriter();
+    private final ReplayRecorder replay = new ReplayRecorder(replayWriter);
+    private long nextRivalRecordStep;
+
+    // rivales: un Dino por slot de RivalTable, creados una vez y con los sprites del atlas
+    private static final float RIVAL_X = 160f;
+    private static final float RIVAL_SPACING = 26f;
+    private static final float RIVAL_ALPHA = 0.55f;
+    private final Dino[] rivals = new Dino[RivalTable.CAPACITY];
+    private final int[] rivalHp = new int[RivalTable.CAPACITY];
+    private final int[] rivalScore = new int[RivalTable.CAPACITY];
+    private int rivalCount;
+
+    // HUD: se arma cada frame sobre el mismo StringBuilder, sin alocar por jugador; layout solo si cambió
+    private static final int HUD_RIVAL_ROWS = 4;
+    private final HudText hud = new HudText(256);
+    private final HudText countdown = new HudText(32);
+    private final int[] hudOrder = new int[RivalTable.CAPACITY];
+    private final NetThread.LobbyState lobby = new NetThread.LobbyState();
 
-    private OrthographicCamera camera;
-    private Viewport viewport;
-    private SpriteBatch batch;
+    private boolean started;
 
-    private Background background;
-    private Ground ground;
+    // simulación a paso fijo; el render interpola con timestep.alpha()
+    private final FixedTimestep timestep = new FixedTimestep();
+    // el salto apretado en un frame sin paso (display > 60 Hz) espera al próximo paso
+    private boolean pendingJump;
 
-    private Dino dinoLocal;
-    private Dino dinoRival;
+    private float gameSpeed;
 
-    private Array<Obstacle> obstacles;
+    // envío de estado (10..60 Hz según la calidad del enlace, ver LinkStats)
+    private float stateSendTimer = 0f;
 
-    private ScoreManager scoreLocal;
-    private int scoreRival = 0;
+    // el rival se dibuja este tanto en el pasado de la partida, interpolado entre
+    // snapshots: tiene que cubrir su intervalo de STATE (hasta 100 ms) y las dos idas
+    private static final double RIVAL_INTERP_DELAY_MS = 150;
 
-    private int hpRival = 10;
+    // buffers de lectura de red (se reusan cada frame)
+    private final NetThread.ResultInfo result = new NetThread.ResultInfo();
+    private final NetThread.RivalState rs = new NetThread.RivalState();
+    private final NetThread.StateAck ack = new NetThread.StateAck();
 
-    private BitmapFont font;
+    // predicción del dino local + reconciliación con el server
+    private final ClientPrediction prediction = new ClientPrediction();
 
-    private float runtime;
-    private boolean started;
+    public GameScreenMulti(DinoChromeGame game, ScreenManager screens) {
+        this.screens = screens;
+        this.net = game.getNet();
 
-    private float gameSpeed;
+        camera = new OrthographicCamera();
+        viewport = new FitViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
+        camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
+        camera.update();
 
-    private float nextSpawnAt;
+        batch = screens.getBatch();
+        background = screens.getBackground();
+        font = screens.getFont();
+        netOverlay = screens.getNetOverlay();
 
-    // envío de estado
-    private float stateSendTimer = 0f;
-    private static final float STATE_SEND_INTERVAL = 0.05f; // 20 Hz
+        Assets assets = game.getAssets();
+        ground = new Ground(WORLD_WIDTH, assets.ground);
 
-    public GameScreenMulti(DinoChromeGame game, NetThread net, int seed, long t0Ms, float startSpeed) {
-        this.game = game;
-        this.net = net;
+        dinoLocal = new Dino(World.DINO_X, world.getDino(), assets.dino);
+        obstacleRegions[Obstacle.CACTUS] = assets.cactus;
+        obstacleRegions[Obstacle.BIRD] = assets.bird;
+
+        // Rivales un poco más adelante para verlos, escalonados
+        for (int i = 0; i < rivals.length; i++) {
+            rivals[i] = new Dino(RIVAL_X + i * RIVAL_SPACING, Ground.GROUND_HEIGHT, assets.dino);
+        }
+    }
+
+    /** Datos del START de la próxima partida; lo llama ScreenManager antes de show(). */
+    void setMatch(int seed, long t0Ms, float startSpeed) {
         this.seed = seed;
         this.t0Ms = t0Ms;
         this.gameSpeed = startSpeed;
-        this.rng = new Random(seed);
     }
 
     @Override
     public void show() {
 
-        camera = new OrthographicCamera();
-        viewport = new FitViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
-        camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
-        camera.update();
-
-        batch = new SpriteBatch();
+        // todo vuelve al arranque: lo de la partida anterior se reusa, no se recrea
+        world.reset(seed);
+        dinoLocal.reset();
 
-        background = new Background(WORLD_WIDTH, WORLD_HEIGHT);
-        ground = new Ground(WORLD_WIDTH);
-
-        dinoLocal = new Dino(100, Ground.GROUND_HEIGHT);
-
-        // Rival un poco más adelante para verlo
-        dinoRival = new Dino(160, Ground.GROUND_HEIGHT);
+        for (int i = 0; i < rivals.length; i++) {
+            rivals[i].reset();
+            rivalHp[i] = DinoBody.MAX_HP;
+            rivalScore[i] = 0;
+        }
+        rivalCount = 0;
 
-        obstacles = new Array<>();
-        scoreLocal = new ScoreManager();
+        // nombres de la sala para el HUD
+        net.copyLobbyState(lobby);
 
-        font = new BitmapFont();
-        font.getData().setScale(1.6f);
-
-        runtime = 0f;
         started = false;
+        stateSendTimer = 0f;
+        timestep.reset();
+        pendingJump = false;
+
+        prediction.reset();
 
-        scheduleNextSpawn(0f);
+        String path = ReplayScreen.DIR + "/match-" + System.currentTimeMillis() + Replay.EXTENSION;
+        replay.begin(Gdx.files.local(path).file(), seed, gameSpeed, world.getSpawnMin(), world.getSpawnMax());
+        nextRivalRecordStep = 0;
     }
 
     @Override
     public void render(float delta) {
         update(delta);
+        // lo que mandó el frame (STATE, PING...) sale en un solo datagrama
+        net.flush();
 
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 
@@ -116,33 +184,45 @@ public final class GameScreenMulti implements Screen {
         background.render(batch);
         ground.render(batch);
 
-        for (Obstacle obstacle : obstacles) obstacle.render(batch);
+        float alpha = timestep.alpha();
+        ObstacleStore obstacles = world.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) {
+            batch.draw(obstacleRegions[obstacles.getType(i)], obstacles.renderX(i, alpha), obstacles.getY(i));
+        }
 
-        // Render dinos
-        dinoLocal.render(batch);
-        dinoRival.render(batch);
+        // Render dinos: rivales semitransparentes detrás del local, todos de la misma textura
+        batch.setColor(1f, 1f, 1f, RIVAL_ALPHA);
+        for (int i = 0; i < rivalCount; i++) rivals[i].render(batch);
+        batch.setColor(Color.WHITE);
+        dinoLocal.render(batch, alpha);
 
         // UI separado
-        font.draw(batch, "YOU HP: " + dinoLocal.getHp() + "  SCORE: " + scoreLocal.getScore(), 20, WORLD_HEIGHT - 20);
-        font.draw(batch, "RIVAL HP: " + hpRival + "  SCORE: " + scoreRival, 20, WORLD_HEIGHT - 50);
-        font.draw(batch, "T: " + (int) runtime, 20, WORLD_HEIGHT - 80);
+        font.getData().setScale(1.6f);
+        buildHud();
+        hud.draw(batch, font, 20, WORLD_HEIGHT - 20);
 
         if (!started) {
-            long now = System.currentTimeMillis();
-            long remain = Math.max(0, t0Ms - now);
-            font.draw(batch, "Starting in: " + (remain / 1000f), 280, 260);
+            long now = net.getClockSync().serverNowMs();
+            HudText.appendSeconds(countdown.begin().append("Starting in: "), t0Ms - now);
+            countdown.draw(batch, font, 280, 260);
         }
 
+        netOverlay.render(batch, WORLD_WIDTH - 330, WORLD_HEIGHT - 10);
+
         batch.end();
     }
 
     private void update(float delta) {
 
         // RESULT
-        NetThread.ResultInfo result = net.consumeResult();
-        if (result != null) {
-
-            int myScore = scoreLocal.getScore();           // <-- ACÁ está el myScore
+        if (net.consumeResult(result)) {
+            dumpNetStats();
+            finishReplay();
+            Gdx.app.log("GAME", "Simulación: " + world.getSteps() + " pasos de " + FixedTimestep.DT
+                    + "s, " + timestep.getLagSteps() + " atrasados respecto del reloj del server, "
+                    + world.getObstacles().capacity() + " lugares de obstáculos");
+
+            int myScore = world.getScore();           // <-- ACÁ está el myScore
             boolean iWon = (result.winner == net.getMyId());
 
             // Opcional: manejar empate
@@ -151,82 +231,72 @@ public final class GameScreenMulti implements Screen {
                 iWon = false;
             }
 
-            game.setScreen(new GameOverScreen(game, myScore, iWon));
+            screens.showGameOver(myScore, iWon);
             return;
         }
 
-        long now = System.currentTimeMillis();
-        if (!started) {
-            if (now >= t0Ms) started = true;
-            else return;
+        // server caído: no va a llegar RESULT nunca
+        if (net.isServerLost()) {
+            System.out.println("[GAME] Server sin respuesta, volviendo al menú.");
+            dumpNetStats();
+            finishReplay();
+            screens.showMenu();
+            return;
         }
 
-        runtime = (now - t0Ms) / 1000f;
+        netOverlay.update(delta);
 
-        // INPUT local
-        if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) dinoLocal.jump();
-
-        if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) dinoLocal.startSlide();
-        else dinoLocal.stopSlide();
+        // reloj del server (no el de pared local): t0 viene en su base
+        if (!started) {
+            if (net.getClockSync().serverNowMs() >= t0Ms) started = true;
+            else return;
+        }
 
-        // Score local
-        scoreLocal.update(delta);
+        if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) pendingJump = true;
 
-        // dificultad determinista
-        gameSpeed = 220f + runtime * 2.5f;
+        // simulación: los pasos de dt fijo que van del reloj del server desde t0
+        // (igual en todos los clientes); un frame lento se recupera en los siguientes
+        double elapsed = (net.getClockSync().serverNowMs() - t0Ms) / 1000.0;
+        int steps = timestep.advanceTo(elapsed, FixedTimestep.MAX_STEPS_PER_FRAME);
+        for (int s = 0; s < steps; s++) step();
+        gameSpeed = world.getSpeed();
 
-        // mundo
+        // mundo (solo se ve: va con el delta del frame)
         background.update(delta, gameSpeed * 0.3f);
         ground.update(delta, gameSpeed);
 
-        // actualizar local con física
-        dinoLocal.update(delta);
-
-        // rival: solo animación (posición viene por red)
-        dinoRival.tickAnimation(delta);
-
-        // aplicar estado rival recibido
-        NetThread.RivalState rs = net.getLastRivalState();
-        if (rs != null) {
-            dinoRival.setY(rs.y);
-            dinoRival.setOnGround(rs.onGround);
-            dinoRival.setSliding(rs.sliding);
-            hpRival = rs.hp;
-            scoreRival = rs.score;
+        // si el server no coincide con lo predicho: rebobinar y re-simular
+        if (net.consumeStateAck(ack)) {
+            DinoBody body = world.getDino();
+            int hpBefore = body.getHp();
+            boolean corrected = prediction.reconcile(ack, body);
+            if (corrected) dinoLocal.syncBounds();
+            // lo que cambió el server no sale de los inputs: va a la repetición
+            if (corrected || body.getHp() != hpBefore) replay.recordBody(body);
         }
 
-        // spawn determinista
-        while (runtime >= nextSpawnAt) {
-            spawnObstacleDeterministic();
-            scheduleNextSpawn(nextSpawnAt);
-        }
-
-        // obstaculos + colisiones SOLO contra local
-        for (int i = obstacles.size - 1; i >= 0; i--) {
-            Obstacle obstacle = obstacles.get(i);
-            obstacle.update(delta);
-
-            if (obstacle.getBounds().overlaps(dinoLocal.getBounds())) {
-                dinoLocal.damage(1);
-
-                obstacle.dispose();
-                obstacles.removeIndex(i);
-
-                if (dinoLocal.isDead()) {
-                    net.avisarMuerte(scoreLocal.getScore(), (int) runtime);
-                }
-                continue;
-            }
-
-            if (obstacle.isOffScreen()) {
-                obstacle.dispose();
-                obstacles.removeIndex(i);
+        // rivales: solo animación acá, la posición viene por red (interpolada)
+        RivalTable table = net.getRivals();
+        rivalCount = table.size();
+        // en la línea de tiempo de la partida (la de los snapshots), no en la de llegada
+        double renderTimeMs = net.getClockSync().serverNowMs() - t0Ms - RIVAL_INTERP_DELAY_MS;
+        for (int i = 0; i < rivalCount; i++) {
+            Dino rival = rivals[i];
+            rival.tickAnimation(delta);
+
+            if (table.bufferAt(i).sample(renderTimeMs, rs)) {
+                rival.setY(rs.y);
+                rival.setOnGround(rs.onGround);
+                rival.setSliding(rs.sliding);
+                rivalHp[i] = rs.hp;
+                rivalScore[i] = rs.score;
             }
         }
+        recordRivals(table);
 
-        // enviar estado al server a 20Hz
+        // enviar estado al server (tasa adaptativa)
         stateSendTimer += delta;
-        if (stateSendTimer >= STATE_SEND_INTERVAL) {
+        if (stateSendTimer >= net.getLinkStats().recommendedSendInterval()) {
             stateSendTimer = 0f;
 
             net.enviarEstadoJugador(
@@ -234,21 +304,91 @@ public final class GameScreenMulti implements Screen {
                     dinoLocal.isOnGround(),
                     dinoLocal.isSliding(),
                     dinoLocal.getHp(),
-                    scoreLocal.getScore()
+                    world.getScore(),
+                    prediction
             );
         }
     }
 
-    private void spawnObstacleDeterministic() {
-        if (rng.nextFloat() < 0.7f) obstacles.add(new Cactus(WORLD_WIDTH + 60));
-        else obstacles.add(new Bird(WORLD_WIDTH + 60));
+    /**
+     * Un paso de World con el input local. La muerte no se avisa: la decide el
+     * World del server al simular estos inputs (un DEAD llegaría antes que el
+     * STATE con los últimos y se perderían esos pasos); llega con el RESULT.
+     */
+    private void step() {
+        // INPUT local (como bits, para poder re-simularlo en la reconciliación)
+        int inputBits = 0;
+        if (pendingJump) inputBits |= DinoBody.INPUT_JUMP;
+        if (Gdx.input.isKeyPressed(Input.Keys.DOWN)) inputBits |= DinoBody.INPUT_SLIDE;
+        pendingJump = false;
+
+        world.step(inputBits);
+        replay.recordStep(inputBits);
+        // un comando de predicción por paso
+        prediction.record(inputBits, FixedTimestep.DT, world.getDino());
     }
 
-    private void scheduleNextSpawn(float fromTime) {
-        float min = 0.9f;
-        float max = 1.6f;
-        float interval = min + rng.nextFloat() * (max - min);
-        nextSpawnAt = fromTime + interval;
+    /** Local, tiempo y los HUD_RIVAL_ROWS rivales con más score; el resto va resumido en una línea. */
+    private void buildHud() {
+        StringBuilder sb = hud.begin();
+        sb.append("YOU HP: ").append(dinoLocal.getHp()).append("  SCORE: ").append(world.getScore()).append('\n');
+        sb.append("T: ").append((int) world.getRuntime()).append('\n');
+
+        // orden por score (inserción: son pocos)
+        int alive = 0;
+        for (int i = 0; i < rivalCount; i++) {
+            if (rivalHp[i] > 0) alive++;
+            int j = i;
+            while (j > 0 && rivalScore[hudOrder[j - 1]] < rivalScore[i]) {
+                hudOrder[j] = hudOrder[j - 1];
+                j--;
+            }
+            hudOrder[j] = i;
+        }
+
+        RivalTable table = net.getRivals();
+        int rows = Math.min(rivalCount, HUD_RIVAL_ROWS);
+        for (int r = 0; r < rows; r++) {
+            int i = hudOrder[r];
+            String name = lobby.nameOf(table.idAt(i));
+            sb.append(name != null ? name : "RIVAL")
+                    .append(" HP: ").append(rivalHp[i])
+                    .append("  SCORE: ").append(rivalScore[i]).append('\n');
+        }
+        if (rivalCount > rows) sb.append('+').append(rivalCount - rows).append(" more  ");
+        if (rivalCount > 1) sb.append("alive ").append(alive).append('/').append(rivalCount);
+    }
+
+    /** Rivales a la repetición, a Replay.RIVAL_HZ (alcanza para dibujarlos). */
+    private void recordRivals(RivalTable table) {
+        if (world.getSteps() < nextRivalRecordStep) return;
+        nextRivalRecordStep = world.getSteps() + FixedTimestep.HZ / Replay.RIVAL_HZ;
+        for (int i = 0; i < rivalCount; i++) {
+            Dino rival = rivals[i];
+            replay.recordRival(table.idAt(i), rival.getY(), rival.isOnGround(), rival.isSliding(), rivalHp[i], rivalScore[i]);
+        }
+    }
+
+    private void finishReplay() {
+        long bytes = replay.getBytes();
+        replay.finish(world);
+        Gdx.app.log("GAME", "Repetición: " + world.getSteps() + " pasos en " + bytes + " bytes");
+    }
+
+    /**
+     * Métricas de red de la partida a netstats/match-<timestamp>.csv (en el
+     * directorio local), solo con el overlay de red (F3) prendido: es para
+     * depurar, no se guarda en cada partida.
+     */
+    private void dumpNetStats() {
+        if (!netOverlay.isVisible()) return;
+        String path = "netstats/match-" + System.currentTimeMillis() + ".csv";
+        try (Writer out = Gdx.files.local(path).writer(false, "UTF-8")) {
+            net.writeMetricsCsv(out);
+            Gdx.app.log("GAME", "Métricas de red guardadas en " + path);
+        } catch (IOException | RuntimeException e) {
+            Gdx.app.error("GAME", "No se pudieron guardar las métricas de red", e);
+        }
     }
 
     @Override public void resize(int width, int height) { viewport.update(width, height); }
@@ -258,15 +398,7 @@ public final class GameScreenMulti implements Screen {
 
     @Override
     public void dispose() {
-        batch.dispose();
-        font.dispose();
-
-        background.dispose();
-        ground.dispose();
-
-        dinoLocal.dispose();
-        dinoRival.dispose();
-
-        for (Obstacle o : obstacles) o.dispose();
+        // batch, fuente, fondo y overlay son del ScreenManager; las texturas, del atlas de Assets
+        replayWriter.close();
     }
 }
@@ -6,40 +6,67 @@ import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Matrix4;
 
 import com.dinochrome.game.DinoChromeGame;
 import com.dinochrome.game.network.NetThread;
+import com.dinochrome.game.utils.HudText;
+import com.dinochrome.game.utils.NetDebugOverlay;
 
 public final class LobbyScreen implements Screen {
 
     private final DinoChromeGame game;
+    private final ScreenManager screens;
     private final NetThread net;
 
-    private SpriteBatch batch;
-    private BitmapFont font;
+    // compartidos (ScreenManager); el lobby dibuja en píxeles de pantalla
+    private final SpriteBatch batch;
+    private final BitmapFont font;
+    private final NetDebugOverlay netOverlay;
+    private final Matrix4 projection = new Matrix4();
 
     private boolean localReady = false;
 
-    public LobbyScreen(DinoChromeGame game, NetThread net) {
+    private final NetThread.StartInfo start = new NetThread.StartInfo();
+    private final NetThread.LobbyState st = new NetThread.LobbyState();
+
+    // textos del lobby: se arman sin alocar y solo se re-layoutean si cambian
+    private final HudText title = new HudText().set("LOBBY (R = Ready)");
+    private final HudText idLine = new HudText();
+    private final HudText readyLine = new HudText();
+    private final HudText[] playerLines = new HudText[st.names.length];
+
+    public LobbyScreen(DinoChromeGame game, ScreenManager screens) {
         this.game = game;
-        this.net = net;
+        this.screens = screens;
+        this.net = game.getNet();
+
+        batch = screens.getBatch();
+        font = screens.getFont();
+        netOverlay = screens.getNetOverlay();
+
+        for (int i = 0; i < playerLines.length; i++) playerLines[i] = new HudText();
     }
 
     @Override
     public void show() {
-        batch = new SpriteBatch();
-        font = new BitmapFont();
-        font.getData().setScale(1.6f);
+        // cada vuelta al lobby arranca sin READY
+        localReady = false;
     }
 
     @Override
     public void render(float delta) {
 
         // 1) Si llegó START: CAMBIAR DE SCREEN (esto es lo que faltaba)
-        NetThread.StartInfo start = net.consumeStart();
-        if (start != null) {
+        if (net.consumeStart(start)) {
             System.out.println("[LOBBY] START recibido, cambiando a GameScreenMulti...");
-            game.setScreen(new GameScreenMulti(game, net, start.seed, start.t0, start.speed));
+            screens.showMatch(start.seed, start.t0, start.speed);
+            return;
+        }
+
+        if (net.isServerLost()) {
+            System.out.println("[LOBBY] Server sin respuesta, volviendo al menú.");
+            screens.showMenu();
             return;
         }
 
@@ -47,36 +74,52 @@ public final class LobbyScreen implements Screen {
         if (Gdx.input.isKeyJustPressed(Input.Keys.R)) {
             localReady = !localReady;
             net.setReady(localReady);
+            net.flush();
         }
+        netOverlay.update(delta);
 
         // 3) Dibujo
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+        batch.setProjectionMatrix(projection);
         batch.begin();
 
-        NetThread.LobbyState st = net.getLobbyStateSnapshot();
+        net.copyLobbyState(st);
+        font.getData().setScale(1.6f);
+
+        title.draw(batch, font, 40, 440);
 
-        font.draw(batch, "LOBBY (R = Ready)", 40, 440);
-        font.draw(batch, "MyID: " + net.getMyId(), 40, 400);
+        idLine.begin().append("MyID: ").append(net.getMyId()).append("  Room: ").append(st.room);
+        idLine.draw(batch, font, 40, 400);
 
-        String p1 = (st.p1Name == null ? "-" : st.p1Name) + " ready=" + (st.p1Ready ? "1" : "0");
-        String p2 = (st.p2Name == null ? "-" : st.p2Name) + " ready=" + (st.p2Ready ? "1" : "0");
+        readyLine.begin().append("Local Ready: ").append(localReady ? "YES" : "NO").append("  Players: ").append(st.players);
+        readyLine.draw(batch, font, 40, 360);
 
-        font.draw(batch, "P1: " + p1, 40, 340);
-        font.draw(batch, "P2: " + p2, 40, 300);
+        // hasta 16 jugadores: dos columnas de 8
+        int players = Math.min(st.players, playerLines.length);
+        for (int i = 0; i < players; i++) {
+            HudText line = playerLines[i];
+            line.begin().append('P').append(i + 1).append(": ")
+                    .append(st.names[i] == null ? "-" : st.names[i])
+                    .append(" ready=").append(st.ready[i] ? '1' : '0');
+            line.draw(batch, font, 40 + (i / 8) * 300, 310 - (i % 8) * 28);
+        }
 
-        font.draw(batch, "Local Ready: " + (localReady ? "YES" : "NO"), 40, 240);
+        netOverlay.render(batch, 420, Gdx.graphics.getHeight() - 10);
 
         batch.end();
     }
 
-    @Override public void resize(int width, int height) {}
+    @Override
+    public void resize(int width, int height) {
+        projection.setToOrtho2D(0, 0, width, height);
+    }
+
     @Override public void pause() {}
     @Override public void resume() {}
     @Override public void hide() {}
 
     @Override
     public void dispose() {
-        batch.dispose();
-        font.dispose();
+        // batch, fuente y overlay son del ScreenManager
     }
 }
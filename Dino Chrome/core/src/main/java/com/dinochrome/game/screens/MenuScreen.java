@@ -14,41 +14,41 @@ import com.dinochrome.game.DinoChromeGame;
 import com.dinochrome.game.network.NetThread;
 import com.dinochrome.game.world.Background;
 
+import java.io.File;
+
 public class MenuScreen implements Screen {
 
-    private static final float WORLD_WIDTH = 800;
-    private static final float WORLD_HEIGHT = 480;
+    private static final float WORLD_WIDTH = ScreenManager.WORLD_WIDTH;
+    private static final float WORLD_HEIGHT = ScreenManager.WORLD_HEIGHT;
 
     private final DinoChromeGame game;
+    private final ScreenManager screens;
 
-    private OrthographicCamera camera;
-    private Viewport viewport;
-    private SpriteBatch batch;
+    private final OrthographicCamera camera;
+    private final Viewport viewport;
 
-    private Background background;
-    private BitmapFont font;
-    private NetThread netThread;
+    // compartidos (ScreenManager)
+    private final SpriteBatch batch;
+    private final Background background;
+    private final BitmapFont font;
 
-    public MenuScreen(DinoChromeGame game, NetThread netThread) {
+    public MenuScreen(DinoChromeGame game, ScreenManager screens) {
         this.game = game;
-        this.netThread = netThread;
-    }
-
-    @Override
-    public void show() {
+        this.screens = screens;
 
         camera = new OrthographicCamera();
         viewport = new FitViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
         camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
         camera.update();
 
-        batch = new SpriteBatch();
-        background = new Background(WORLD_WIDTH, WORLD_HEIGHT);
-
-        font = new BitmapFont();
-        font.getData().setScale(3.2f, 3.2f);
+        batch = screens.getBatch();
+        background = screens.getBackground();
+        font = screens.getFont();
     }
 
+    @Override
+    public void show() {}
+
     @Override
     public void render(float delta) {
 
@@ -61,10 +61,20 @@ public class MenuScreen implements Screen {
                 return;
             }
 
-            game.setScreen(new LobbyScreen(game, net));
+            // si el server se cayó, volvemos a intentar antes de ir al lobby
+            if (net.isServerLost()) net.reconectar();
+
+            screens.showLobby();
             return;
         }
 
+        // R -> ver la última partida grabada
+        if (Gdx.input.isKeyJustPressed(Input.Keys.R)) {
+            File last = ReplayScreen.latestReplay();
+            if (last == null) System.out.println("[MENU] Todavía no hay repeticiones en " + ReplayScreen.DIR);
+            else if (screens.showReplay(last)) return;
+        }
+
         background.update(delta, 50);
 
         Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
@@ -74,13 +84,20 @@ public class MenuScreen implements Screen {
 
         background.render(batch);
 
+        font.getData().setScale(3.2f);
         font.draw(
                 batch,
-                "DINO CHROME\n\nPRESIONA ESPACIO PARA JUGAR",
+                "DINO CHROME\n\nPRESIONA ESPACIO PARA JUGAR\nR: VER REPETICION",
                 120,
                 320
         );
 
+        // el discovery corre en segundo plano: el menú no espera
+        NetThread net = game.getNet();
+        if (net != null && net.isDiscovering()) {
+            font.draw(batch, "BUSCANDO SERVER...", 120, 120);
+        }
+
         batch.end();
     }
 
@@ -95,8 +112,6 @@ public class MenuScreen implements Screen {
 
     @Override
     public void dispose() {
-        batch.dispose();
-        font.dispose();
-        background.dispose();
+        // batch, fuente y fondo son del ScreenManager
     }
 }
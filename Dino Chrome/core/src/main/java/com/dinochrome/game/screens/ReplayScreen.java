@@ -0,0 +1,201 @@
+package com.dinochrome.game.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.viewport.FitViewport;
+import com.badlogic.gdx.utils.viewport.Viewport;
+
+import com.dinochrome.game.DinoChromeGame;
+import com.dinochrome.game.entities.Dino;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.sim.Obstacle;
+import com.dinochrome.game.sim.ObstacleStore;
+import com.dinochrome.game.sim.Replay;
+import com.dinochrome.game.sim.ReplayPlayer;
+import com.dinochrome.game.sim.World;
+import com.dinochrome.game.utils.Assets;
+import com.dinochrome.game.utils.FixedTimestep;
+import com.dinochrome.game.utils.HudText;
+import com.dinochrome.game.world.Background;
+import com.dinochrome.game.world.Ground;
+
+import java.io.File;
+
+/**
+ * Muestra una repetición grabada por GameScreenMulti a la velocidad que se
+ * elija (IZQ / DER), con pausa (ESPACIO); ESC vuelve al menú. La partida
+ * la re-simula ReplayPlayer: acá solo se dibuja.
+ */
+public final class ReplayScreen implements Screen {
+
+    /** Carpeta (local) donde GameScreenMulti guarda las repeticiones. */
+    public static final String DIR = "replays";
+
+    private static final float WORLD_WIDTH = ScreenManager.WORLD_WIDTH;
+    private static final float WORLD_HEIGHT = ScreenManager.WORLD_HEIGHT;
+
+    private static final float[] SPEEDS = { 0.25f, 0.5f, 1f, 2f, 4f, 8f, 16f };
+    private static final String[] SPEED_LABELS = { "x1/4", "x1/2", "x1", "x2", "x4", "x8", "x16" };
+    private static final int NORMAL_SPEED = 2;
+
+    private static final float RIVAL_X = 160f;
+    private static final float RIVAL_SPACING = 26f;
+    private static final float RIVAL_ALPHA = 0.55f;
+
+    private final ScreenManager screens;
+    private final Assets assets;
+
+    private final OrthographicCamera camera;
+    private final Viewport viewport;
+
+    // compartidos (ScreenManager)
+    private final SpriteBatch batch;
+    private final Background background;
+    private final BitmapFont font;
+
+    private final Ground ground;
+    private final TextureRegion[] obstacleRegions = new TextureRegion[Obstacle.TYPES];
+    private final Dino[] rivals = new Dino[Protocol.MAX_ROOM_PLAYERS];
+
+    private ReplayPlayer player;
+    private Dino dinoLocal;
+
+    private final FixedTimestep timestep = new FixedTimestep();
+    private int speed = NORMAL_SPEED;
+    private boolean paused;
+
+    private final HudText hud = new HudText(128);
+
+    public ReplayScreen(DinoChromeGame game, ScreenManager screens) {
+        this.screens = screens;
+        this.assets = game.getAssets();
+
+        camera = new OrthographicCamera();
+        viewport = new FitViewport(WORLD_WIDTH, WORLD_HEIGHT, camera);
+        camera.position.set(WORLD_WIDTH / 2f, WORLD_HEIGHT / 2f, 0);
+        camera.update();
+
+        batch = screens.getBatch();
+        background = screens.getBackground();
+        font = screens.getFont();
+
+        ground = new Ground(WORLD_WIDTH, assets.ground);
+        obstacleRegions[Obstacle.CACTUS] = assets.cactus;
+        obstacleRegions[Obstacle.BIRD] = assets.bird;
+        for (int i = 0; i < rivals.length; i++) {
+            rivals[i] = new Dino(RIVAL_X + i * RIVAL_SPACING, Ground.GROUND_HEIGHT, assets.dino);
+        }
+    }
+
+    /** La repetición a mostrar; lo llama ScreenManager antes de show(). */
+    void setReplay(ReplayPlayer player) {
+        this.player = player;
+        // el dino local dibuja el body del World de la repetición
+        dinoLocal = new Dino(World.DINO_X, player.getWorld().getDino(), assets.dino);
+    }
+
+    /** La repetición más nueva de DIR, o null si no hay. */
+    public static File latestReplay() {
+        FileHandle newest = null;
+        for (FileHandle f : Gdx.files.local(DIR).list(Replay.EXTENSION)) {
+            if (newest == null || f.lastModified() > newest.lastModified()) newest = f;
+        }
+        return newest == null ? null : newest.file();
+    }
+
+    @Override
+    public void show() {
+        timestep.reset();
+        speed = NORMAL_SPEED;
+        paused = false;
+    }
+
+    @Override
+    public void render(float delta) {
+
+        if (Gdx.input.isKeyJustPressed(Input.Keys.ESCAPE)) {
+            screens.showMenu();
+            return;
+        }
+        if (Gdx.input.isKeyJustPressed(Input.Keys.RIGHT)) speed = Math.min(speed + 1, SPEEDS.length - 1);
+        if (Gdx.input.isKeyJustPressed(Input.Keys.LEFT)) speed = Math.max(speed - 1, 0);
+        if (Gdx.input.isKeyJustPressed(Input.Keys.SPACE)) paused = !paused;
+
+        World world = player.getWorld();
+        float scaled = paused || player.isFinished() ? 0f : delta * SPEEDS[speed];
+
+        // a x16 son ~16 pasos por frame: el tope es por velocidad, no el del juego
+        int steps = timestep.advance(scaled, FixedTimestep.MAX_STEPS_PER_FRAME * (int) Math.ceil(SPEEDS[speed]));
+        for (int s = 0; s < steps; s++) {
+            if (!player.step()) break;
+        }
+
+        background.update(scaled, world.getSpeed() * 0.3f);
+        ground.update(scaled, world.getSpeed());
+        dinoLocal.tickAnimation(scaled);
+
+        int rivalCount = player.getRivalCount();
+        for (int i = 0; i < rivalCount; i++) {
+            Dino rival = rivals[i];
+            rival.tickAnimation(scaled);
+            rival.setY(player.getRivalY(i));
+            rival.setOnGround(player.isRivalOnGround(i));
+            rival.setSliding(player.isRivalSliding(i));
+        }
+
+        Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
+
+        batch.setProjectionMatrix(camera.combined);
+        batch.begin();
+
+        background.render(batch);
+        ground.render(batch);
+
+        float alpha = player.isFinished() ? 1f : timestep.alpha();
+        ObstacleStore obstacles = world.getObstacles();
+        for (int i = 0; i < obstacles.size(); i++) {
+            batch.draw(obstacleRegions[obstacles.getType(i)], obstacles.renderX(i, alpha), obstacles.getY(i));
+        }
+
+        batch.setColor(1f, 1f, 1f, RIVAL_ALPHA);
+        for (int i = 0; i < rivalCount; i++) rivals[i].render(batch);
+        batch.setColor(Color.WHITE);
+        dinoLocal.render(batch, alpha);
+
+        font.getData().setScale(1.6f);
+        StringBuilder sb = hud.begin();
+        sb.append("REPLAY ").append(SPEED_LABELS[speed]).append(paused ? "  PAUSA" : "")
+                .append("  (IZQ/DER velocidad, ESPACIO pausa, ESC menu)\n");
+        sb.append("T: ").append((int) world.getRuntime()).append("  HP: ").append(world.getDino().getHp())
+                .append("  SCORE: ").append(world.getScore()).append('\n');
+        if (player.isFinished()) {
+            if (!player.hasEnd()) sb.append("FIN (grabacion cortada)");
+            else sb.append(player.matchesRecording() ? "FIN: igual a la partida" : "FIN: DESYNC con la partida");
+        }
+        hud.draw(batch, font, 20, WORLD_HEIGHT - 20);
+
+        batch.end();
+    }
+
+    @Override
+    public void resize(int width, int height) {
+        viewport.update(width, height);
+    }
+
+    @Override public void pause() {}
+    @Override public void resume() {}
+    @Override public void hide() {}
+
+    @Override
+    public void dispose() {
+        // batch, fuente y fondo son del ScreenManager; las texturas, del atlas de Assets
+    }
+}
@@ -0,0 +1,139 @@
+package com.dinochrome.game.screens;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+
+import com.dinochrome.game.DinoChromeGame;
+import com.dinochrome.game.sim.ReplayPlayer;
+import com.dinochrome.game.utils.NetDebugOverlay;
+import com.dinochrome.game.world.Background;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Dueño de las screens y de lo que comparten: un SpriteBatch, las fuentes,
+ * el fondo y el overlay de red. Cada screen se crea la primera vez que se
+ * muestra y después se reusa en cada vuelta menú -> lobby -> partida ->
+ * game over, así las revanchas no crean recursos de GL nuevos.
+ *
+ * Todo lo que hay que liberar se registra con track(): liveResources() es
+ * lo que sigue vivo, y se loguea en cada cambio de screen junto con las
+ * texturas de libGDX para ver que no crece. Lo crea DinoChromeGame después
+ * de Assets y lo libera antes.
+ */
+public final class ScreenManager implements Disposable {
+
+    public static final float WORLD_WIDTH = 800;
+    public static final float WORLD_HEIGHT = 480;
+
+    private final DinoChromeGame game;
+    private final Array<Disposable> resources = new Array<>();
+
+    private final SpriteBatch batch;
+    // una escala por screen: cada una la pone antes de dibujar
+    private final BitmapFont font;
+    private final Background background;
+    private final NetDebugOverlay netOverlay;
+
+    private MenuScreen menu;
+    private LobbyScreen lobby;
+    private GameScreenMulti match;
+    private GameOverScreen gameOver;
+    private ReplayScreen replay;
+
+    private int transitions;
+
+    public ScreenManager(DinoChromeGame game) {
+        this.game = game;
+
+        batch = track(new SpriteBatch());
+        font = track(new BitmapFont());
+        // escala 1 para el overlay: con la del HUD no entra
+        BitmapFont smallFont = track(new BitmapFont());
+
+        background = new Background(WORLD_WIDTH, WORLD_HEIGHT, game.getAssets().background);
+        netOverlay = new NetDebugOverlay(game.getNet(), smallFont);
+    }
+
+    /** Registra algo a liberar en dispose(); devuelve el mismo objeto. */
+    public <T extends Disposable> T track(T resource) {
+        resources.add(resource);
+        return resource;
+    }
+
+    /** Recursos registrados que siguen vivos. */
+    public int liveResources() {
+        return resources.size;
+    }
+
+    public SpriteBatch getBatch() { return batch; }
+    public BitmapFont getFont() { return font; }
+    public Background getBackground() { return background; }
+    public NetDebugOverlay getNetOverlay() { return netOverlay; }
+
+    // =========================
+    // Transiciones
+    // =========================
+    public void showMenu() {
+        if (menu == null) menu = new MenuScreen(game, this);
+        show(menu);
+    }
+
+    public void showLobby() {
+        if (lobby == null) lobby = new LobbyScreen(game, this);
+        show(lobby);
+    }
+
+    public void showMatch(int seed, long t0Ms, float startSpeed) {
+        if (match == null) match = new GameScreenMulti(game, this);
+        match.setMatch(seed, t0Ms, startSpeed);
+        show(match);
+    }
+
+    public void showGameOver(int finalScore, boolean iWon) {
+        if (gameOver == null) gameOver = new GameOverScreen(game, this);
+        gameOver.setResult(finalScore, iWon);
+        show(gameOver);
+    }
+
+    /** Abre una repetición (ver ReplayScreen); false si no se pudo leer. */
+    public boolean showReplay(File file) {
+        ReplayPlayer player;
+        try {
+            player = ReplayPlayer.load(file);
+        } catch (IOException e) {
+            Gdx.app.error("SCREENS", "No se pudo abrir la repetición " + file, e);
+            return false;
+        }
+        if (replay == null) replay = new ReplayScreen(game, this);
+        replay.setReplay(player);
+        show(replay);
+        return true;
+    }
+
+    private void show(Screen screen) {
+        game.setScreen(screen);
+        transitions++;
+        Gdx.app.log("SCREENS", screen.getClass().getSimpleName() + " (#" + transitions + "): "
+                + resources.size + " recursos vivos, " + Texture.getNumManagedTextures() + " texturas");
+    }
+
+    @Override
+    public void dispose() {
+        if (menu != null) menu.dispose();
+        if (lobby != null) lobby.dispose();
+        if (match != null) match.dispose();
+        if (gameOver != null) gameOver.dispose();
+        if (replay != null) replay.dispose();
+
+        // al revés de como se crearon
+        for (int i = resources.size - 1; i >= 0; i--) resources.get(i).dispose();
+        resources.clear();
+    }
+}
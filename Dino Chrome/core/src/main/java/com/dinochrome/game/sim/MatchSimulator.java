@@ -0,0 +1,190 @@
+package com.dinochrome.game.sim;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.utils.FixedTimestep;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Corre muchas partidas de World sin GL, repartidas en un ForkJoinPool:
+ * seeds consecutivas, un Pilot que decide el input de cada paso y un
+ * resumen (score, supervivencia) que se junta por mitades. Sirve para
+ * balancear el intervalo de spawns sin jugar a mano.
+ *
+ * Cada hoja reusa un solo World (reset por seed), así que una corrida de
+ * miles de partidas casi no aloca.
+ */
+public final class MatchSimulator {
+
+    // partidas por hoja del fork-join (más chico: más overhead de tareas)
+    private static final int LEAF_MATCHES = 32;
+
+    /** Decide los bits de input de cada paso. Se comparte entre hilos: sin estado propio. */
+    public interface Pilot {
+        int input(World world, Random rng);
+    }
+
+    /**
+     * Reacciona al obstáculo más cercano: salta los cactus y se agacha
+     * bajo los pájaros. Reacciona en un paso con probabilidad REACTION, así
+     * que a veces llega tarde (como alguien jugando) y las partidas terminan.
+     */
+    public static final Pilot REFLEX = new Pilot() {
+        private static final float REACTION = 0.2f;
+        private static final float JUMP_DISTANCE = 70f;
+        private static final float SLIDE_DISTANCE = 90f;
+
+        @Override
+        public int input(World world, Random rng) {
+            DinoBody dino = world.getDino();
+            ObstacleStore obstacles = world.getObstacles();
+            int next = -1;
+            for (int i = 0; i < obstacles.size(); i++) {
+                if (obstacles.getX(i) + obstacles.getWidth(i) < World.DINO_X) continue;
+                if (next < 0 || obstacles.getX(i) < obstacles.getX(next)) next = i;
+            }
+            if (next < 0) return 0;
+
+            float distance = obstacles.getX(next) - (World.DINO_X + dino.getWidth());
+            if (obstacles.getType(next) == Obstacle.BIRD) {
+                // agachado se mantiene: si ya empezó, sigue hasta que pase
+                if (dino.isSliding() || (distance < SLIDE_DISTANCE && rng.nextFloat() < REACTION)) return DinoBody.INPUT_SLIDE;
+                return 0;
+            }
+            if (distance < JUMP_DISTANCE && dino.isOnGround() && rng.nextFloat() < REACTION) return DinoBody.INPUT_JUMP;
+            return 0;
+        }
+    };
+
+    private final float spawnMin;
+    private final float spawnMax;
+    private final long maxSteps;
+    private final Pilot pilot;
+
+    /** maxSeconds: tope de cada partida (si el pilot no muere antes). */
+    public MatchSimulator(float spawnMin, float spawnMax, float maxSeconds, Pilot pilot) {
+        this.spawnMin = spawnMin;
+        this.spawnMax = spawnMax;
+        this.maxSteps = Math.max(1, Math.round(maxSeconds / FixedTimestep.DT));
+        this.pilot = pilot;
+        new World(spawnMin, spawnMax);   // valida el intervalo acá y no en cada hilo
+    }
+
+    /** Corre las partidas con seeds firstSeed .. firstSeed + matches - 1. */
+    public Summary run(ForkJoinPool pool, int firstSeed, int matches) {
+        return pool.invoke(new Batch(firstSeed, matches));
+    }
+
+    private final class Batch extends RecursiveTask<Summary> {
+        private static final long serialVersionUID = 1L;
+
+        private final int firstSeed;
+        private final int count;
+
+        Batch(int firstSeed, int count) {
+            this.firstSeed = firstSeed;
+            this.count = count;
+        }
+
+        @Override
+        protected Summary compute() {
+            if (count > LEAF_MATCHES) {
+                int half = count / 2;
+                Batch left = new Batch(firstSeed, half);
+                left.fork();
+                Summary right = new Batch(firstSeed + half, count - half).compute();
+                right.merge(left.join());
+                return right;
+            }
+
+            Summary s = new Summary();
+            World world = new World(spawnMin, spawnMax);
+            Random rng = new Random();
+            for (int n = 0; n < count; n++) {
+                int seed = firstSeed + n;
+                world.reset(seed);
+                rng.setSeed(~seed);
+
+                long hits = 0;
+                while (world.getSteps() < maxSteps && !world.getDino().isDead()) {
+                    world.step(pilot.input(world, rng));
+                    hits += world.getHits();
+                }
+                s.add(world, hits);
+            }
+            return s;
+        }
+    }
+
+    // =========================
+    // Resultado
+    // =========================
+
+    /** Agregado de una corrida; las mitades del fork-join se juntan con merge(). */
+    public static final class Summary {
+
+        /** Ancho de cada bucket del histograma de supervivencia. */
+        public static final int SURVIVAL_BUCKET_SECONDS = 10;
+        public static final int SURVIVAL_BUCKETS = 12;
+
+        public int matches;
+        public int deaths;
+        public long steps;
+        public long hits;
+        public long scoreSum;
+        public int scoreMin = Integer.MAX_VALUE;
+        public int scoreMax;
+        // el último bucket junta todo lo que pasa de (BUCKETS - 1) * BUCKET_SECONDS
+        public final int[] survival = new int[SURVIVAL_BUCKETS];
+
+        void add(World world, long matchHits) {
+            matches++;
+            if (world.getDino().isDead()) deaths++;
+            steps += world.getSteps();
+            hits += matchHits;
+
+            int score = world.getScore();
+            scoreSum += score;
+            scoreMin = Math.min(scoreMin, score);
+            scoreMax = Math.max(scoreMax, score);
+
+            int bucket = (int) (world.getSteps() * FixedTimestep.DT) / SURVIVAL_BUCKET_SECONDS;
+            survival[Math.min(bucket, SURVIVAL_BUCKETS - 1)]++;
+        }
+
+        void merge(Summary o) {
+            matches += o.matches;
+            deaths += o.deaths;
+            steps += o.steps;
+            hits += o.hits;
+            scoreSum += o.scoreSum;
+            scoreMin = Math.min(scoreMin, o.scoreMin);
+            scoreMax = Math.max(scoreMax, o.scoreMax);
+            for (int i = 0; i < SURVIVAL_BUCKETS; i++) survival[i] += o.survival[i];
+        }
+
+        public double meanScore() {
+            return matches == 0 ? 0 : (double) scoreSum / matches;
+        }
+
+        public double meanSurvivalSeconds() {
+            return matches == 0 ? 0 : steps * (double) FixedTimestep.DT / matches;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(256);
+            sb.append(matches).append(" partidas, ").append(deaths).append(" muertes, supervivencia media ")
+                    .append(Math.round(meanSurvivalSeconds() * 10) / 10.0).append("s, score medio ")
+                    .append(Math.round(meanScore())).append(" (").append(matches == 0 ? 0 : scoreMin).append('-')
+                    .append(scoreMax).append("), golpes ").append(hits).append('\n');
+            for (int i = 0; i < SURVIVAL_BUCKETS; i++) {
+                sb.append(i * SURVIVAL_BUCKET_SECONDS).append(i == SURVIVAL_BUCKETS - 1 ? "+" : "")
+                        .append("s: ").append(survival[i]).append(i == SURVIVAL_BUCKETS - 1 ? "" : "  ");
+            }
+            return sb.toString();
+        }
+    }
+}
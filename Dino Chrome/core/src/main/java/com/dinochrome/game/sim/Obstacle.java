@@ -0,0 +1,22 @@
+package com.dinochrome.game.sim;
+
+import com.dinochrome.game.entities.DinoBody;
+
+/**
+ * Tipos de obstáculo y sus medidas (el tamaño es el de su PNG, fijo por
+ * tipo). Los obstáculos en sí no son objetos: los guarda ObstacleStore.
+ */
+public final class Obstacle {
+
+    private Obstacle() {}
+
+    public static final int CACTUS = 0;
+    public static final int BIRD = 1;
+    public static final int TYPES = 2;
+
+    // por tipo: tamaño del sprite, altura y velocidad
+    static final float[] WIDTH = { 30f, 40f };
+    static final float[] HEIGHT = { 60f, 25f };
+    static final float[] Y = { DinoBody.GROUND_Y, DinoBody.GROUND_Y + 40f };
+    static final float[] SPEED = { 220f, 260f };
+}
@@ -0,0 +1,134 @@
+package com.dinochrome.game.sim;
+
+/**
+ * Los obstáculos activos de World en arrays paralelos (x, y, w, h, speed,
+ * tipo), sin un objeto por obstáculo. Sin orden: remove() pone el último
+ * en el lugar del sacado, así que los loops que sacan van de atrás hacia
+ * adelante.
+ *
+ * step(), collide() y cull() son loops planos sobre arrays primitivos (el
+ * JIT los puede vectorizar); collide() sirve para cualquier hitbox, así
+ * que chequear varios dinos es un loop por dino.
+ */
+public final class ObstacleStore {
+
+    private float[] x;
+    // x al empezar el último paso, para interpolar el render
+    private float[] prevX;
+    private float[] y;
+    private float[] w;
+    private float[] h;
+    private float[] speed;
+    private byte[] type;
+    private int count;
+
+    public ObstacleStore(int capacity) {
+        allocate(Math.max(1, capacity));
+    }
+
+    void add(int t, float startX) {
+        if (count == x.length) grow();
+        int i = count++;
+        x[i] = startX;
+        prevX[i] = startX;
+        y[i] = Obstacle.Y[t];
+        w[i] = Obstacle.WIDTH[t];
+        h[i] = Obstacle.HEIGHT[t];
+        speed[i] = Obstacle.SPEED[t];
+        type[i] = (byte) t;
+    }
+
+    /** Saca el i cambiándolo por el último. */
+    void remove(int i) {
+        int last = --count;
+        x[i] = x[last];
+        prevX[i] = prevX[last];
+        y[i] = y[last];
+        w[i] = w[last];
+        h[i] = h[last];
+        speed[i] = speed[last];
+        type[i] = type[last];
+    }
+
+    void clear() {
+        count = 0;
+    }
+
+    // =========================
+    // Loops
+    // =========================
+    void step(float delta) {
+        for (int i = 0; i < count; i++) {
+            prevX[i] = x[i];
+            x[i] -= speed[i] * delta;
+        }
+    }
+
+    /** step() de uno solo (World.skipTo los pone al día de a uno). */
+    void stepOne(int i, float delta) {
+        prevX[i] = x[i];
+        x[i] -= speed[i] * delta;
+    }
+
+    /** Saca los que se superponen con la hitbox; devuelve cuántos eran. */
+    int collide(float ox, float oy, float ow, float oh) {
+        int hits = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            if (x[i] < ox + ow && x[i] + w[i] > ox && y[i] < oy + oh && y[i] + h[i] > oy) {
+                remove(i);
+                hits++;
+            }
+        }
+        return hits;
+    }
+
+    /** Saca los que ya salieron por la izquierda. */
+    void cull() {
+        for (int i = count - 1; i >= 0; i--) {
+            if (x[i] + w[i] < 0) remove(i);
+        }
+    }
+
+    // =========================
+    // Lectura (render, pilots)
+    // =========================
+    public int size() { return count; }
+    public int capacity() { return x.length; }
+
+    public int getType(int i) { return type[i]; }
+    public float getX(int i) { return x[i]; }
+    public float getY(int i) { return y[i]; }
+    public float getWidth(int i) { return w[i]; }
+    public float getHeight(int i) { return h[i]; }
+
+    /** x a dibujar: entre la del paso anterior y la actual (alpha de FixedTimestep). */
+    public float renderX(int i, float alpha) {
+        return prevX[i] + (x[i] - prevX[i]) * alpha;
+    }
+
+    // =========================
+    // Capacidad
+    // =========================
+    private void grow() {
+        float[] ox = x, opx = prevX, oy = y, ow = w, oh = h, os = speed;
+        byte[] ot = type;
+        allocate(x.length * 2);
+        System.arraycopy(ox, 0, x, 0, count);
+        System.arraycopy(opx, 0, prevX, 0, count);
+        System.arraycopy(oy, 0, y, 0, count);
+        System.arraycopy(ow, 0, w, 0, count);
+        System.arraycopy(oh, 0, h, 0, count);
+        System.arraycopy(os, 0, speed, 0, count);
+        System.arraycopy(ot, 0, type, 0, count);
+    }
+
+    private void allocate(int capacity) {
+        x = new float[capacity];
+        prevX = new float[capacity];
+        y = new float[capacity];
+        w = new float[capacity];
+        h = new float[capacity];
+        speed = new float[capacity];
+        type = new byte[capacity];
+    }
+}
@@ -0,0 +1,59 @@
+package com.dinochrome.game.sim;
+
+/**
+ * Formato de las repeticiones (.dcr). Una partida queda determinada por la
+ * seed, los bits de input de cada paso y lo que llegó de afuera (las
+ * correcciones del server al dino local): con eso World la vuelve a simular
+ * idéntica. Los rivales van aparte, solo para dibujarlos: a lo sumo
+ * RIVAL_HZ, y solo lo que cambió (el score, a lo sumo una vez por segundo
+ * si no cambió otra cosa).
+ *
+ *   header: magic "DCR1" | version u8 | seed i32 | startSpeed f32 | dtUnits u16 | spawnMin f32 | spawnMax f32
+ *
+ *   registros (tipo u8 + datos), en el orden en que pasaron:
+ *     INPUT  bits u8 | pasos varint               pasos seguidos con los mismos bits
+ *     BODY   y f32 | vy f32 | flags u8 | hp u8    corrección del server, antes del próximo paso
+ *     RIVAL  id u8 | cambios u8 | [y u16 (1/4 px)] [flags u8] [hp u8] [score: diferencia zigzag varint]
+ *     END    pasos varint | score varint | hp u8  cómo terminó, para detectar desync
+ *
+ * Big-endian (el default de ByteBuffer), varints como en Protocol. Un
+ * minuto de partida son unos cientos de bytes de input más unos pocos KB
+ * de rivales (sobre todo sus saltos).
+ */
+public final class Replay {
+
+    private Replay() {}
+
+    public static final int MAGIC = 0x44435231;   // "DCR1"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 4 + 1 + 4 + 4 + 2 + 4 + 4;
+
+    public static final String EXTENSION = ".dcr";
+
+    // Registros
+    public static final int INPUT = 1;
+    public static final int BODY = 2;
+    public static final int RIVAL = 3;
+    public static final int END = 4;
+
+    public static final int FLAG_ON_GROUND = 1;
+    public static final int FLAG_SLIDING = 1 << 1;
+
+    // qué trae un RIVAL (lo que no, sigue como estaba)
+    public static final int RIVAL_Y = 1;
+    public static final int RIVAL_FLAGS = 1 << 1;
+    public static final int RIVAL_HP = 1 << 2;
+    public static final int RIVAL_SCORE = 1 << 3;
+
+    public static final float RIVAL_Y_SCALE = 4f;
+
+    // para dibujar rivales alcanza; la simulación no los usa
+    public static final int RIVAL_HZ = 10;
+
+    // corridas de INPUT más largas se parten (el varint queda en 3 bytes)
+    public static final int MAX_RUN = (1 << 21) - 1;
+
+    public static int flags(boolean onGround, boolean sliding) {
+        return (onGround ? FLAG_ON_GROUND : 0) | (sliding ? FLAG_SLIDING : 0);
+    }
+}
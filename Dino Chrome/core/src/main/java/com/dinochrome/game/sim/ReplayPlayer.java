@@ -0,0 +1,177 @@
+package com.dinochrome.game.sim;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.utils.FixedTimestep;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+
+/**
+ * Reproduce una repetición (formato Replay) sobre un World propio: step()
+ * avanza un paso con los bits grabados y aplica en su lugar las
+ * correcciones del server y los rivales. Sin GL: runToEnd() la corre de
+ * una, mucho más rápido que en tiempo real, y matchesRecording() dice si
+ * terminó igual que cuando se grabó (si no, hay un desync).
+ */
+public final class ReplayPlayer {
+
+    private final ByteBuffer data;
+    private final int seed;
+    private final float startSpeed;
+    private final World world;
+
+    // corrida de INPUT en curso
+    private int runBits;
+    private int runLeft;
+    private boolean finished;
+
+    // lo que dice el END
+    private long endSteps = -1;
+    private int endScore;
+    private int endHp;
+
+    // último estado de cada rival (por orden de aparición)
+    private final int[] rivalId = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final float[] rivalY = new float[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalFlags = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalHp = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalScore = new int[Protocol.MAX_ROOM_PLAYERS];
+    private int rivalCount;
+
+    public static ReplayPlayer load(File file) throws IOException {
+        return new ReplayPlayer(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+    }
+
+    public ReplayPlayer(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.remaining() < Replay.HEADER_SIZE || data.getInt() != Replay.MAGIC) throw new IOException("No es una repetición");
+        int version = data.get();
+        if (version != Replay.VERSION) throw new IOException("Versión de repetición no soportada: " + version);
+
+        seed = data.getInt();
+        startSpeed = data.getFloat();
+        int dtUnits = data.getShort() & 0xFFFF;
+        float spawnMin = data.getFloat();
+        float spawnMax = data.getFloat();
+
+        // con otro dt la simulación no da lo mismo: mejor no reproducirla que mostrar otra partida
+        if (dtUnits != Protocol.quantizeDt(FixedTimestep.DT)) {
+            throw new IOException("Repetición grabada con otro paso fijo (" + dtUnits + " unidades)");
+        }
+        try {
+            world = new World(spawnMin, spawnMax);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(e.getMessage());
+        }
+        world.reset(seed);
+    }
+
+    /**
+     * Un paso de la partida. false si ya terminó (END, o el archivo se
+     * cortó: una grabación sin END se reproduce hasta donde llegó).
+     */
+    public boolean step() {
+        if (finished) return false;
+        try {
+            while (runLeft == 0) {
+                if (!data.hasRemaining()) { finished = true; return false; }
+                if (!readRecord()) { finished = true; return false; }
+            }
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            finished = true;
+            return false;
+        }
+
+        world.step(runBits);
+        runLeft--;
+        return true;
+    }
+
+    /** Corre todo lo que queda sin dibujar; devuelve los pasos simulados. */
+    public long runToEnd() {
+        long n = 0;
+        while (step()) n++;
+        return n;
+    }
+
+    /** Terminada: true si el END coincide con lo simulado (pasos, score y vida). */
+    public boolean matchesRecording() {
+        return finished && endSteps >= 0
+                && world.getSteps() == endSteps
+                && world.getScore() == endScore
+                && world.getDino().getHp() == endHp;
+    }
+
+    public boolean isFinished() { return finished; }
+    public boolean hasEnd() { return endSteps >= 0; }
+
+    public World getWorld() { return world; }
+    public int getSeed() { return seed; }
+    public float getStartSpeed() { return startSpeed; }
+
+    public long getEndSteps() { return endSteps; }
+    public int getEndScore() { return endScore; }
+    public int getEndHp() { return endHp; }
+
+    public int getRivalCount() { return rivalCount; }
+    public int getRivalId(int i) { return rivalId[i]; }
+    public float getRivalY(int i) { return rivalY[i]; }
+    public boolean isRivalOnGround(int i) { return (rivalFlags[i] & Replay.FLAG_ON_GROUND) != 0; }
+    public boolean isRivalSliding(int i) { return (rivalFlags[i] & Replay.FLAG_SLIDING) != 0; }
+    public int getRivalHp(int i) { return rivalHp[i]; }
+    public int getRivalScore(int i) { return rivalScore[i]; }
+
+    /** Lee un registro; false si fue END. */
+    private boolean readRecord() {
+        int type = data.get();
+        switch (type) {
+            case Replay.INPUT:
+                runBits = data.get() & 0xFF;
+                runLeft = Protocol.getVarInt(data);
+                return true;
+
+            case Replay.BODY: {
+                float y = data.getFloat();
+                float vy = data.getFloat();
+                int flags = data.get();
+                int hp = data.get() & 0xFF;
+                DinoBody dino = world.getDino();
+                dino.setPhysics(y, vy, (flags & Replay.FLAG_ON_GROUND) != 0, (flags & Replay.FLAG_SLIDING) != 0);
+                dino.setHp(hp);
+                return true;
+            }
+
+            case Replay.RIVAL: {
+                int id = data.get() & 0xFF;
+                int changes = data.get();
+                int i = rivalSlot(id);
+                if (i < 0) throw new IllegalArgumentException("Demasiados rivales");
+                if ((changes & Replay.RIVAL_Y) != 0) rivalY[i] = (data.getShort() & 0xFFFF) / Replay.RIVAL_Y_SCALE;
+                if ((changes & Replay.RIVAL_FLAGS) != 0) rivalFlags[i] = data.get();
+                if ((changes & Replay.RIVAL_HP) != 0) rivalHp[i] = data.get() & 0xFF;
+                if ((changes & Replay.RIVAL_SCORE) != 0) rivalScore[i] += Protocol.unzigzag(Protocol.getVarInt(data));
+                return true;
+            }
+
+            case Replay.END:
+                endSteps = Protocol.getVarInt(data);
+                endScore = Protocol.getVarInt(data);
+                endHp = data.get() & 0xFF;
+                return false;
+
+            default:
+                throw new IllegalArgumentException("Registro desconocido: " + type);
+        }
+    }
+
+    private int rivalSlot(int id) {
+        for (int i = 0; i < rivalCount; i++) if (rivalId[i] == id) return i;
+        if (rivalCount == rivalId.length) return -1;
+        rivalId[rivalCount] = id;
+        return rivalCount++;
+    }
+}
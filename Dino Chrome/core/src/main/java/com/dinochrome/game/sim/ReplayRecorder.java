@@ -0,0 +1,182 @@
+package com.dinochrome.game.sim;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.utils.FixedTimestep;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+
+/**
+ * Graba una partida en formato Replay mientras se juega: los registros se
+ * codifican en un buffer de CHUNK_SIZE y cada vez que se llena se le pasa
+ * al ReplayWriter (que escribe en otro hilo). Los pasos con los mismos
+ * bits se juntan en un solo INPUT.
+ *
+ * Lo usa solo el hilo de juego.
+ */
+public final class ReplayRecorder {
+
+    private static final int CHUNK_SIZE = 4096;
+    // ningún registro pasa de esto: si no entra, se manda el pedazo antes
+    private static final int RECORD_MAX = 32;
+
+    private final ReplayWriter writer;
+    private ByteBuffer chunk;
+    private boolean recording;
+
+    // corrida de INPUT sin escribir todavía
+    private int runBits;
+    private int runSteps;
+    private long steps;
+
+    // lo último grabado de cada rival (RIVAL solo lleva lo que cambió)
+    private final int[] rivalId = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalY = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalFlags = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalHp = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final int[] rivalScore = new int[Protocol.MAX_ROOM_PLAYERS];
+    private final long[] rivalScoreStep = new long[Protocol.MAX_ROOM_PLAYERS];
+    private int rivalCount;
+
+    private long bytes;
+
+    public ReplayRecorder(ReplayWriter writer) {
+        this.writer = writer;
+    }
+
+    /** Empieza a grabar en file (si había otra grabación sin terminar, queda cortada, sin END). */
+    public void begin(File file, int seed, float startSpeed, float spawnMin, float spawnMax) {
+        if (recording) {
+            if (runSteps > 0) flushRun();
+            sendChunk();
+            writer.closeFile();
+        }
+        writer.open(file);
+        recording = true;
+        runSteps = 0;
+        steps = 0;
+        rivalCount = 0;
+        bytes = 0;
+
+        chunk = writer.obtain(CHUNK_SIZE);
+        chunk.putInt(Replay.MAGIC);
+        chunk.put((byte) Replay.VERSION);
+        chunk.putInt(seed);
+        chunk.putFloat(startSpeed);
+        chunk.putShort((short) Protocol.quantizeDt(FixedTimestep.DT));
+        chunk.putFloat(spawnMin);
+        chunk.putFloat(spawnMax);
+    }
+
+    public boolean isRecording() { return recording; }
+
+    /** Bytes grabados hasta ahora (incluido lo que todavía no salió a disco). */
+    public long getBytes() { return bytes + (chunk != null ? chunk.position() : 0); }
+
+    /** Los bits con que se simuló un paso de World. */
+    public void recordStep(int inputBits) {
+        if (!recording) return;
+        if (runSteps > 0 && (inputBits != runBits || runSteps == Replay.MAX_RUN)) flushRun();
+        runBits = inputBits;
+        runSteps++;
+        steps++;
+    }
+
+    /** Estado del dino después de una corrección del server (reconciliación). */
+    public void recordBody(DinoBody body) {
+        if (!recording) return;
+        ByteBuffer b = record(Replay.BODY);
+        b.putFloat(body.getY());
+        b.putFloat(body.getVelocityY());
+        b.put((byte) Replay.flags(body.isOnGround(), body.isSliding()));
+        b.put((byte) body.getHp());
+    }
+
+    /** Estado de un rival; no escribe nada si no cambió (el score solo, una vez por segundo). */
+    public void recordRival(int id, float y, boolean onGround, boolean sliding, int hp, int score) {
+        if (!recording) return;
+
+        int qy = Math.max(0, Math.min(0xFFFF, Math.round(y * Replay.RIVAL_Y_SCALE)));
+        int flags = Replay.flags(onGround, sliding);
+        int i = rivalSlot(id);
+        if (i < 0) return;
+
+        int changes = 0;
+        if (qy != rivalY[i]) changes |= Replay.RIVAL_Y;
+        if (flags != rivalFlags[i]) changes |= Replay.RIVAL_FLAGS;
+        if (hp != rivalHp[i]) changes |= Replay.RIVAL_HP;
+        if (score != rivalScore[i] && (changes != 0 || steps - rivalScoreStep[i] >= FixedTimestep.HZ)) changes |= Replay.RIVAL_SCORE;
+        if (changes == 0) return;
+
+        ByteBuffer b = record(Replay.RIVAL);
+        b.put((byte) id);
+        b.put((byte) changes);
+        if ((changes & Replay.RIVAL_Y) != 0) b.putShort((short) qy);
+        if ((changes & Replay.RIVAL_FLAGS) != 0) b.put((byte) flags);
+        if ((changes & Replay.RIVAL_HP) != 0) b.put((byte) hp);
+        if ((changes & Replay.RIVAL_SCORE) != 0) {
+            Protocol.putVarInt(b, Protocol.zigzag(score - rivalScore[i]));
+            rivalScore[i] = score;
+            rivalScoreStep[i] = steps;
+        }
+        rivalY[i] = qy;
+        rivalFlags[i] = flags;
+        rivalHp[i] = hp;
+    }
+
+    /** Cierra la grabación con cómo terminó world (para verificarla al reproducir). */
+    public void finish(World world) {
+        if (!recording) return;
+        ByteBuffer b = record(Replay.END);
+        Protocol.putVarInt(b, (int) world.getSteps());
+        Protocol.putVarInt(b, world.getScore());
+        b.put((byte) world.getDino().getHp());
+
+        sendChunk();
+        writer.closeFile();
+        recording = false;
+    }
+
+    /** Slot del rival; uno nuevo arranca en 0 en todo, igual que en ReplayPlayer. */
+    private int rivalSlot(int id) {
+        for (int i = 0; i < rivalCount; i++) if (rivalId[i] == id) return i;
+        if (rivalCount == rivalId.length) return -1;
+        int i = rivalCount++;
+        rivalId[i] = id;
+        rivalY[i] = 0;
+        rivalFlags[i] = 0;
+        rivalHp[i] = 0;
+        rivalScore[i] = 0;
+        rivalScoreStep[i] = Long.MIN_VALUE / 2;
+        return i;
+    }
+
+    private ByteBuffer record(int type) {
+        if (runSteps > 0) flushRun();
+        ensureRoom();
+        chunk.put((byte) type);
+        return chunk;
+    }
+
+    private void flushRun() {
+        ensureRoom();
+        chunk.put((byte) Replay.INPUT);
+        chunk.put((byte) runBits);
+        Protocol.putVarInt(chunk, runSteps);
+        runSteps = 0;
+    }
+
+    private void ensureRoom() {
+        if (chunk.remaining() >= RECORD_MAX) return;
+        sendChunk();
+        chunk = writer.obtain(CHUNK_SIZE);
+    }
+
+    private void sendChunk() {
+        chunk.flip();
+        bytes += chunk.remaining();
+        writer.write(chunk);
+        chunk = null;
+    }
+}
@@ -0,0 +1,131 @@
+package com.dinochrome.game.sim;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Hilo que escribe las repeticiones a disco, para que el hilo de juego
+ * nunca espere al filesystem. ReplayRecorder le pasa pedazos llenos; los
+ * buffers vuelven a una lista libre y se reusan en la próxima partida.
+ *
+ * Un archivo abierto a la vez: open(), pedazos, closeFile(). Al abrir uno
+ * se borran las repeticiones más viejas de ese directorio: quedan las
+ * últimas KEEP_FILES (contando la nueva).
+ */
+public final class ReplayWriter implements Closeable {
+
+    public static final int KEEP_FILES = 20;
+
+    private static final Object CLOSE_FILE = new Object();
+    private static final Object SHUTDOWN = new Object();
+
+    // File, ByteBuffer (para escribir), CLOSE_FILE o SHUTDOWN
+    private final BlockingQueue<Object> ops = new LinkedBlockingQueue<>();
+    private final BlockingQueue<ByteBuffer> free = new LinkedBlockingQueue<>();
+    private final Thread thread;
+
+    private volatile long bytesWritten;
+    private volatile int errors;
+
+    public ReplayWriter() {
+        thread = new Thread(this::run, "ReplayWriter");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Buffer vacío de al menos size bytes (de la lista libre si hay). */
+    ByteBuffer obtain(int size) {
+        ByteBuffer b = free.poll();
+        if (b == null || b.capacity() < size) return ByteBuffer.allocate(size);
+        b.clear();
+        return b;
+    }
+
+    /** Cierra el archivo anterior (si quedó alguno) y empieza otro. */
+    void open(File file) { ops.add(file); }
+
+    /** Encola buf (position a limit); después de esto el buffer es del writer. */
+    void write(ByteBuffer buf) { ops.add(buf); }
+
+    void closeFile() { ops.add(CLOSE_FILE); }
+
+    public long getBytesWritten() { return bytesWritten; }
+    public int getErrors() { return errors; }
+
+    /** Termina lo encolado y para el hilo (espera hasta 1 s). */
+    @Override
+    public void close() {
+        ops.add(SHUTDOWN);
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        OutputStream out = null;
+        while (true) {
+            Object op;
+            try {
+                op = ops.take();
+            } catch (InterruptedException e) {
+                op = SHUTDOWN;
+            }
+
+            try {
+                if (op instanceof ByteBuffer) {
+                    ByteBuffer b = (ByteBuffer) op;
+                    if (out != null) {
+                        out.write(b.array(), b.arrayOffset() + b.position(), b.remaining());
+                        bytesWritten += b.remaining();
+                    }
+                    free.offer(b);
+                } else if (op instanceof File) {
+                    out = closeQuietly(out);
+                    File file = (File) op;
+                    File dir = file.getAbsoluteFile().getParentFile();
+                    if (dir != null) {
+                        dir.mkdirs();
+                        pruneOld(dir, file.getName());
+                    }
+                    out = new FileOutputStream(file);
+                } else {
+                    out = closeQuietly(out);
+                    if (op == SHUTDOWN) return;
+                }
+            } catch (IOException e) {
+                // sin repetición no pasa nada: se descarta el resto de este archivo
+                errors++;
+                System.err.println("[REPLAY] No se pudo escribir la repetición: " + e.getMessage());
+                out = closeQuietly(out);
+            }
+        }
+    }
+
+    /** Deja las KEEP_FILES - 1 repeticiones más nuevas de dir (sin contar keepName, que se está por abrir). */
+    private static void pruneOld(File dir, String keepName) {
+        File[] old = dir.listFiles((d, name) -> name.endsWith(Replay.EXTENSION) && !name.equals(keepName));
+        if (old == null || old.length < KEEP_FILES) return;
+
+        Arrays.sort(old, Comparator.comparingLong(File::lastModified).reversed());
+        for (int i = KEEP_FILES - 1; i < old.length; i++) {
+            if (!old[i].delete()) System.err.println("[REPLAY] No se pudo borrar " + old[i]);
+        }
+    }
+
+    private static OutputStream closeQuietly(OutputStream out) {
+        if (out != null) {
+            try { out.close(); } catch (IOException ignored) {}
+        }
+        return null;
+    }
+}
@@ -0,0 +1,101 @@
+package com.dinochrome.game.sim;
+
+import java.util.Random;
+
+/**
+ * Cuándo y qué spawnea en una partida, calculado de la seed por tandas en
+ * arrays (times[i] en segundos de partida, types[i] de Obstacle). El orden
+ * del rng es el de siempre (intervalo, tipo, intervalo, tipo...), así que
+ * da los mismos spawns que cuando se sorteaban de a uno y las repeticiones
+ * viejas siguen sirviendo.
+ *
+ * Como todo está en arrays, mirar qué viene (time(i) más adelante) o saber
+ * cuántos spawns pasaron hasta un momento (countUntil) no re-sortea nada.
+ * Tampoco cambia al leerla (salvo para calcular la tanda siguiente), así que
+ * varios World de la misma partida pueden compartir una desde el mismo hilo.
+ */
+public final class SpawnTimeline {
+
+    // spawns por tanda: a ~1.25 s cada uno son unos 5 minutos de partida
+    public static final int CHUNK = 256;
+
+    private final float spawnMin;
+    private final float spawnMax;
+    private final Random rng = new Random();
+    private int seed;
+
+    private float[] times = new float[CHUNK];
+    private byte[] types = new byte[CHUNK];
+    private int count;
+
+    public SpawnTimeline(float spawnMin, float spawnMax) {
+        if (spawnMin <= 0f || spawnMax < spawnMin) throw new IllegalArgumentException("Intervalo de spawn inválido: " + spawnMin + "-" + spawnMax);
+        this.spawnMin = spawnMin;
+        this.spawnMax = spawnMax;
+        reset(0);
+    }
+
+    /** Vuelve a empezar con esa seed; la primera tanda se calcula al pedirla. */
+    public void reset(int seed) {
+        this.seed = seed;
+        rng.setSeed(seed);
+        count = 0;
+    }
+
+    /** Segundo de partida del spawn i (desde 0). */
+    public float time(int i) {
+        if (i >= count) generate(i + 1);
+        return times[i];
+    }
+
+    /** Tipo (Obstacle.CACTUS / BIRD) del spawn i. */
+    public int type(int i) {
+        if (i >= count) generate(i + 1);
+        return types[i];
+    }
+
+    /** Spawns con time <= t, o sea el índice del primero que falta a ese momento. */
+    public int countUntil(float t) {
+        while (count == 0 || times[count - 1] <= t) generate(count + CHUNK);
+
+        int lo = 0, hi = count - 1;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (times[mid] <= t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public int getSeed() { return seed; }
+
+    /** Spawns ya calculados (los arrays crecen de a CHUNK). */
+    public int getGenerated() { return count; }
+
+    public float getSpawnMin() { return spawnMin; }
+    public float getSpawnMax() { return spawnMax; }
+
+    // =========================
+    // Generación
+    // =========================
+    private void generate(int atLeast) {
+        int target = ((atLeast + CHUNK - 1) / CHUNK) * CHUNK;
+        if (target > times.length) {
+            int len = Math.max(target, times.length * 2);
+            float[] t = new float[len];
+            byte[] k = new byte[len];
+            System.arraycopy(times, 0, t, 0, count);
+            System.arraycopy(types, 0, k, 0, count);
+            times = t;
+            types = k;
+        }
+
+        float at = count == 0 ? 0f : times[count - 1];
+        for (int i = count; i < target; i++) {
+            at += spawnMin + rng.nextFloat() * (spawnMax - spawnMin);
+            times[i] = at;
+            types[i] = (byte) (rng.nextFloat() < World.CACTUS_CHANCE ? Obstacle.CACTUS : Obstacle.BIRD);
+        }
+        count = target;
+    }
+}
@@ -0,0 +1,195 @@
+package com.dinochrome.game.sim;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.utils.FixedTimestep;
+import com.dinochrome.game.utils.ScoreManager;
+
+/**
+ * Las reglas de una partida (spawns, colisiones, vida, score y velocidad)
+ * sin render, sin input de libGDX y sin GL: step() avanza un paso fijo de
+ * FixedTimestep.DT con los bits de input de ese paso. Con la misma seed y
+ * los mismos inputs da siempre lo mismo, así que corre igual en el cliente,
+ * en el server o en miles de partidas en paralelo (ver MatchSimulator).
+ *
+ * Los spawns salen de un SpawnTimeline (calculado de la seed por tandas);
+ * World solo lleva el cursor al próximo.
+ *
+ * No es thread-safe: una instancia por hilo.
+ */
+public final class World {
+
+    public static final float WIDTH = 800f;
+    public static final float DINO_X = 100f;
+    public static final float SPAWN_X = WIDTH + 60f;
+
+    // intervalo entre spawns (al azar en el rango, con el rng de la seed)
+    public static final float DEFAULT_SPAWN_MIN = 0.9f;
+    public static final float DEFAULT_SPAWN_MAX = 1.6f;
+    public static final float CACTUS_CHANCE = 0.7f;
+
+    // velocidad del mundo (el piso y el fondo la siguen)
+    public static final float BASE_SPEED = 220f;
+    public static final float SPEED_RAMP = 2.5f;
+
+    // ningún obstáculo dura más en pantalla (860 px a 220 px/s son ~4 s)
+    private static final float MAX_OBSTACLE_LIFETIME = 5f;
+
+    private final SpawnTimeline timeline;
+    // false: la comparte con otros World y la resetea su dueño
+    private final boolean ownsTimeline;
+    // próximo spawn de timeline
+    private int nextSpawn;
+
+    private final DinoBody dino = new DinoBody(DinoBody.GROUND_Y);
+    private final ScoreManager score = new ScoreManager();
+
+    // activos, en arrays paralelos (crece solo si no entran)
+    private final ObstacleStore obstacles = new ObstacleStore(16);
+
+    private long steps;
+    private float runtime;
+    private float speed;
+
+    // lo que pasó en el último step()
+    private int hits;
+    private boolean died;
+
+    public World() {
+        this(DEFAULT_SPAWN_MIN, DEFAULT_SPAWN_MAX);
+    }
+
+    public World(float spawnMin, float spawnMax) {
+        timeline = new SpawnTimeline(spawnMin, spawnMax);
+        ownsTimeline = true;
+        reset(0);
+    }
+
+    /**
+     * Con los spawns de otro: varios World de la misma partida (el server,
+     * uno por jugador) leen la misma timeline en vez de calcularla cada uno.
+     * reset() no la toca: hay que resetearla antes con la misma seed.
+     */
+    public World(SpawnTimeline shared) {
+        timeline = shared;
+        ownsTimeline = false;
+        reset(shared.getSeed());
+    }
+
+    /** Arranque de una partida con esa seed (la del START). */
+    public void reset(int seed) {
+        if (ownsTimeline) timeline.reset(seed);
+        else if (timeline.getSeed() != seed) throw new IllegalStateException("La timeline compartida es de la seed " + timeline.getSeed() + ", no " + seed);
+        nextSpawn = 0;
+        obstacles.clear();
+        dino.reset();
+        score.reset();
+
+        steps = 0;
+        runtime = 0f;
+        speed = BASE_SPEED;
+        hits = 0;
+        died = false;
+    }
+
+    /** Un paso de FixedTimestep.DT con los inputs de ese paso (DinoBody.INPUT_*). */
+    public void step(int inputBits) {
+        float dt = FixedTimestep.DT;
+        runtime = steps++ * dt;
+        hits = 0;
+        died = false;
+
+        dino.applyInput(inputBits);
+        score.update(dt);
+
+        // dificultad determinista
+        speed = BASE_SPEED + runtime * SPEED_RAMP;
+
+        dino.step(dt);
+
+        // spawn determinista
+        while (runtime >= timeline.time(nextSpawn)) {
+            obstacles.add(timeline.type(nextSpawn++), SPAWN_X);
+        }
+
+        // obstáculos + colisiones contra el dino (el que choca se saca)
+        obstacles.step(dt);
+        hits = obstacles.collide(DINO_X, dino.getY(), dino.getWidth(), dino.getHeight());
+        for (int h = 0; h < hits; h++) {
+            boolean wasAlive = !dino.isDead();
+            dino.damage(1);
+            if (wasAlive && dino.isDead()) died = true;
+        }
+        obstacles.cull();
+    }
+
+    /**
+     * Deja el mundo como quedaría tras esos pasos desde reset() si el dino no
+     * hubiera tocado nada: tiempo, velocidad, score y los obstáculos que
+     * siguen en pantalla, sin re-sortear los spawns ni simular los pasos
+     * viejos. El dino queda como está. Sirve para mirar desde la mitad
+     * (entrar tarde, saltar en una repetición); no para re-simular exacto.
+     */
+    public void skipTo(long targetSteps) {
+        float dt = FixedTimestep.DT;
+        obstacles.clear();
+        score.reset();
+        for (long s = 0; s < targetSteps; s++) score.update(dt);
+
+        steps = targetSteps;
+        runtime = targetSteps > 0 ? (targetSteps - 1) * dt : 0f;
+        speed = BASE_SPEED + runtime * SPEED_RAMP;
+        hits = 0;
+        died = false;
+        nextSpawn = targetSteps > 0 ? timeline.countUntil(runtime) : 0;
+
+        // los que spawnearon hace poco, movidos paso a paso como en step()
+        for (int i = timeline.countUntil(runtime - MAX_OBSTACLE_LIFETIME); i < nextSpawn; i++) {
+            long spawnStep = firstStepAtOrAfter(timeline.time(i));
+            obstacles.add(timeline.type(i), SPAWN_X);
+            int o = obstacles.size() - 1;
+            for (long s = spawnStep; s < targetSteps; s++) obstacles.stepOne(o, dt);
+        }
+        obstacles.cull();
+    }
+
+    // =========================
+    // Estado
+    // =========================
+
+    /** El dino simulado; la predicción de red lo rebobina y re-simula. */
+    public DinoBody getDino() { return dino; }
+
+    /** Los obstáculos en pantalla (solo lectura afuera de sim). */
+    public ObstacleStore getObstacles() { return obstacles; }
+
+    public float getSpawnMin() { return timeline.getSpawnMin(); }
+    public float getSpawnMax() { return timeline.getSpawnMax(); }
+
+    /** Todos los spawns de la partida, para mirar los que vienen. */
+    public SpawnTimeline getTimeline() { return timeline; }
+    /** Índice en getTimeline() del próximo spawn. */
+    public int getNextSpawn() { return nextSpawn; }
+
+    public long getSteps() { return steps; }
+    /** Segundos de partida al empezar el último paso. */
+    public float getRuntime() { return runtime; }
+    public float getSpeed() { return speed; }
+    public int getScore() { return score.getScore(); }
+
+    /** Obstáculos que le pegaron al dino en el último step() (con o sin daño, por el cooldown). */
+    public int getHits() { return hits; }
+    /** true solo en el step() en que la vida llegó a 0. */
+    public boolean diedThisStep() { return died; }
+
+    // =========================
+    // Spawns
+    // =========================
+    /** Primer paso cuyo runtime llega a t (en el que step() lo spawnea). */
+    private static long firstStepAtOrAfter(float t) {
+        float dt = FixedTimestep.DT;
+        long k = Math.max(0L, (long) Math.ceil(t / dt) - 1);
+        while (k * dt < t) k++;
+        while (k > 0 && (k - 1) * dt >= t) k--;
+        return k;
+    }
+}
@@ -0,0 +1,86 @@
+package com.dinochrome.game.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.dinochrome.game.entities.DinoSprites;
+
+/**
+ * Todos los sprites del juego en un solo TextureAtlas, cargado una vez al
+ * arrancar (lo crea DinoChromeGame y lo libera en su dispose). Las entidades
+ * y el mundo guardan solo TextureRegion: spawnear un obstáculo no lee del
+ * disco ni sube nada a la GPU, y todo se dibuja sin cambiar de textura.
+ *
+ * Si en assets hay un ATLAS empaquetado (TexturePacker, regiones con el
+ * nombre del PNG sin extensión: "dino/run_1") se usa ese; si no, los PNG
+ * sueltos se empaquetan en memoria con PixmapPacker al cargar.
+ */
+public final class Assets implements Disposable {
+
+    public static final String ATLAS = "sprites.atlas";
+
+    private static final String[] SPRITES = {
+            "dino/run_1", "dino/run_2", "dino/jump", "dino/slide",
+            "cactus/cactus", "bird/bird",
+            "ground/ground", "background/bg"
+    };
+    // entra todo en una página (el fondo es 1024x1024); padding para que no sangren con filtro lineal
+    private static final int PAGE_SIZE = 2048;
+    private static final int PADDING = 2;
+
+    private final TextureAtlas atlas;
+
+    public final TextureRegion cactus;
+    public final TextureRegion bird;
+    public final TextureRegion ground;
+    public final TextureRegion background;
+    public final DinoSprites dino;
+
+    public Assets() {
+        FileHandle packed = Gdx.files.internal(ATLAS);
+        atlas = packed.exists() ? new TextureAtlas(packed) : packLooseFiles();
+
+        cactus = region("cactus/cactus");
+        bird = region("bird/bird");
+        ground = region("ground/ground");
+        background = region("background/bg");
+        dino = new DinoSprites(region("dino/run_1"), region("dino/run_2"), region("dino/jump"), region("dino/slide"));
+    }
+
+    /** Región por nombre (lookup lineal en el atlas: guardarla, no buscarla por frame). */
+    public TextureRegion region(String name) {
+        TextureRegion r = atlas.findRegion(name);
+        if (r == null) throw new GdxRuntimeException("Sprite no encontrado en el atlas: " + name);
+        return r;
+    }
+
+    public TextureAtlas getAtlas() {
+        return atlas;
+    }
+
+    private static TextureAtlas packLooseFiles() {
+        PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, PADDING, true);
+        try {
+            for (String name : SPRITES) {
+                Pixmap p = new Pixmap(Gdx.files.internal(name + ".png"));
+                packer.pack(name, p);
+                p.dispose();
+            }
+            return packer.generateTextureAtlas(Texture.TextureFilter.Nearest, Texture.TextureFilter.Nearest, false);
+        } finally {
+            // las páginas ya subidas las libera su textura (el atlas)
+            packer.dispose();
+        }
+    }
+
+    @Override
+    public void dispose() {
+        atlas.dispose();
+    }
+}
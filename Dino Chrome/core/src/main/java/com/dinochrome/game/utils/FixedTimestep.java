@@ -0,0 +1,97 @@
+package com.dinochrome.game.utils;
+
+import com.dinochrome.game.network.Protocol;
+
+/**
+ * Acumulador para simular a paso fijo: cada frame se suma su delta y
+ * advance() dice cuántos pasos de DT correr. Con el mismo dt en todos los
+ * clientes (y en el server, que corre un paso por comando de input) física,
+ * colisiones y score dan lo mismo a 60 o a 144 Hz.
+ *
+ * En una partida manda el reloj del server, no la suma de deltas:
+ * advanceTo() apunta a elapsed / DT pasos desde t0, así ningún cliente se
+ * adelanta ni se atrasa en los spawns por frames lentos o por el redondeo
+ * de DT.
+ *
+ * Lo que sobra en el acumulador (alpha) es cuánto del próximo paso ya pasó:
+ * el render interpola entre el estado anterior y el actual con eso.
+ */
+public final class FixedTimestep {
+
+    public static final int HZ = 60;
+
+    /** dt de cada paso, ya redondeado a la resolución del protocolo. */
+    public static final float DT = Protocol.dequantizeDt(Protocol.quantizeDt(1f / HZ));
+
+    // un tirón largo (GC, ventana arrastrada) no se recupera entero: se frena
+    public static final int MAX_STEPS_PER_FRAME = 5;
+
+    private float accumulator;
+    private long steps;
+    private long droppedSteps;
+    private long lagSteps;
+
+    public void reset() {
+        accumulator = 0f;
+        steps = 0;
+        droppedSteps = 0;
+        lagSteps = 0;
+    }
+
+    /** Suma el delta del frame y devuelve cuántos pasos simular (a lo sumo MAX_STEPS_PER_FRAME). */
+    public int advance(float frameDelta) {
+        return advance(frameDelta, MAX_STEPS_PER_FRAME);
+    }
+
+    /** Igual, con otro tope (ej. una repetición en cámara rápida corre varios pasos por frame a propósito). */
+    public int advance(float frameDelta, int maxSteps) {
+        accumulator += frameDelta;
+
+        int n = 0;
+        while (accumulator >= DT && n < maxSteps) {
+            accumulator -= DT;
+            n++;
+        }
+        if (accumulator >= DT) {
+            int extra = (int) (accumulator / DT);
+            droppedSteps += extra;
+            accumulator -= extra * DT;
+        }
+
+        steps += n;
+        return n;
+    }
+
+    /**
+     * Pasos para llegar a elapsedSeconds de un reloj externo (el del server,
+     * desde t0): el objetivo es elapsedSeconds / DT pasos desde reset(). Corre
+     * a lo sumo maxSteps por llamada y lo que falte no se descarta: queda para
+     * las siguientes. Si el reloj vuelve atrás (corrección de sync) espera.
+     */
+    public int advanceTo(double elapsedSeconds, int maxSteps) {
+        double exact = Math.max(0.0, elapsedSeconds / DT);
+        long target = (long) exact;
+
+        int n = (int) Math.max(0L, Math.min(target - steps, maxSteps));
+        steps += n;
+        lagSteps = Math.max(0L, target - steps);
+
+        // atrasados se dibuja el último paso entero; al día, lo que va del próximo
+        accumulator = lagSteps > 0 ? DT : (float) ((exact - target) * DT);
+        return n;
+    }
+
+    /** Fracción [0, 1) del próximo paso ya transcurrida, para interpolar el render. */
+    public float alpha() {
+        return Math.min(1f, accumulator / DT);
+    }
+
+    /** Pasos simulados desde reset(); el tiempo de simulación es steps * DT. */
+    public long getSteps() { return steps; }
+
+    /** Pasos descartados por el tope de recuperación (advance()). */
+    public long getDroppedSteps() { return droppedSteps; }
+
+    /** Pasos que le faltaban a advanceTo() para llegar al reloj (se recuperan después). */
+    public long getLagSteps() { return lagSteps; }
+}
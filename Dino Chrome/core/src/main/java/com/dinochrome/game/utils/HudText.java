@@ -0,0 +1,79 @@
+package com.dinochrome.game.utils;
+
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.GlyphLayout;
+
+/**
+ * Un texto del HUD que se arma cada frame sin alocar: begin() devuelve un
+ * StringBuilder reusado, se le agregan los valores (append de int no crea
+ * Strings) y draw() solo vuelve a hacer el layout de los glyphs si el texto
+ * o la fuente cambiaron desde el último frame. Si nada cambió, dibujar es
+ * copiar el GlyphLayout ya armado al batch.
+ */
+public final class HudText {
+
+    private StringBuilder text;
+    private StringBuilder shown;
+    private final GlyphLayout layout = new GlyphLayout();
+
+    // con qué se armó el layout
+    private BitmapFont layoutFont;
+    private float layoutScale;
+
+    public HudText() {
+        this(64);
+    }
+
+    public HudText(int capacity) {
+        text = new StringBuilder(capacity);
+        shown = new StringBuilder(capacity);
+    }
+
+    /** Builder vacío para el texto de este frame (se puede volver a llamar antes de draw). */
+    public StringBuilder begin() {
+        text.setLength(0);
+        return text;
+    }
+
+    /** Texto fijo: se arma una vez y después solo se dibuja. */
+    public HudText set(CharSequence s) {
+        begin().append(s);
+        return this;
+    }
+
+    /** Dibuja (dentro de batch.begin/end) con la esquina superior izquierda en x, y. */
+    public void draw(Batch batch, BitmapFont font, float x, float y) {
+        if (font != layoutFont || font.getScaleX() != layoutScale || !sameAsShown()) {
+            layout.setText(font, text);
+            layoutFont = font;
+            layoutScale = font.getScaleX();
+
+            // el que se acaba de armar pasa a ser el mostrado
+            StringBuilder t = shown;
+            shown = text;
+            text = t;
+            text.setLength(0);
+            text.append(shown);
+        }
+        font.draw(batch, layout, x, y);
+    }
+
+    public float getWidth() { return layout.width; }
+    public float getHeight() { return layout.height; }
+
+    /** Agrega ms como segundos con un decimal ("2.3"), sin pasar por float. */
+    public static StringBuilder appendSeconds(StringBuilder sb, long ms) {
+        long tenths = Math.max(0, ms) / 100;
+        return sb.append(tenths / 10).append('.').append(tenths % 10);
+    }
+
+    private boolean sameAsShown() {
+        int n = text.length();
+        if (n != shown.length()) return false;
+        for (int i = 0; i < n; i++) {
+            if (text.charAt(i) != shown.charAt(i)) return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,107 @@
+package com.dinochrome.game.utils;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+
+import com.dinochrome.game.network.LinkStats;
+import com.dinochrome.game.network.NetMetrics;
+import com.dinochrome.game.network.NetThread;
+import com.dinochrome.game.network.Protocol;
+
+/**
+ * Overlay de debug de red (F3 lo prende / apaga). El texto se rearma unas
+ * pocas veces por segundo sobre un HudText; el resto de los frames se
+ * dibuja el layout ya armado.
+ */
+public final class NetDebugOverlay {
+
+    private static final float REFRESH_INTERVAL = 0.25f;
+
+    // estado compartido entre screens: si lo prendés en el lobby sigue prendido en la partida
+    private static boolean visible = false;
+
+    private final NetThread net;
+    private final BitmapFont font;   // escala 1: el HUD usa 1.6 y no entra
+    private final HudText text = new HudText(512);
+    private float refreshTimer = REFRESH_INTERVAL;
+
+    /** La fuente es de quien la crea (ScreenManager); el overlay no la libera. */
+    public NetDebugOverlay(NetThread net, BitmapFont font) {
+        this.net = net;
+        this.font = font;
+    }
+
+    /** Leer el toggle y refrescar el texto. Llamar una vez por frame. */
+    public void update(float delta) {
+        if (Gdx.input.isKeyJustPressed(Input.Keys.F3)) {
+            visible = !visible;
+            refreshTimer = REFRESH_INTERVAL;
+        }
+        if (!visible) return;
+
+        refreshTimer += delta;
+        if (refreshTimer < REFRESH_INTERVAL) return;
+        refreshTimer = 0f;
+        rebuild();
+    }
+
+    /** Dibuja (dentro de batch.begin/end) con la esquina superior izquierda en x, y. */
+    public void render(SpriteBatch batch, float x, float y) {
+        if (!visible) return;
+        text.draw(batch, font, x, y);
+    }
+
+    public boolean isVisible() { return visible; }
+
+    private void rebuild() {
+        NetMetrics m = net.getMetrics();
+        LinkStats link = net.getLinkStats();
+        double secs = m.getElapsedSeconds();
+
+        StringBuilder sb = text.begin();
+        sb.append("NET ").append(net.isBinaryProtocol() ? "bin" : "text")
+                .append(net.isConnected() ? " connected" : " offline").append('\n');
+
+        sb.append("rtt ").append(Math.round(link.getRttMs()))
+                .append("ms var ").append(Math.round(link.getRttVarMs()))
+                .append(" jit ").append(Math.round(link.getJitterMs())).append('\n');
+
+        sb.append("loss ").append(Math.round(link.getLossRate() * 1000) / 10f)
+                .append("% lost ").append(link.getLostPackets())
+                .append(" ooo ").append(link.getOutOfOrder()).append('\n');
+
+        sb.append("in ").append(m.getTotalPacketsIn()).append("p ")
+                .append(Math.round(m.getTotalBytesIn() / secs)).append("B/s  out ")
+                .append(m.getTotalPacketsOut()).append("p ")
+                .append(Math.round(m.getTotalBytesOut() / secs)).append("B/s\n");
+
+        sb.append("parse avg ").append(Math.round(m.getParseAvgNs() / 1000))
+                .append("us max ").append(m.getParseMaxNs() / 1000)
+                .append("us  sendErr ").append(m.getSendErrors()).append('\n');
+
+        sb.append("reliable pend ").append(net.getReliablePending())
+                .append(" rtx ").append(net.getReliableRetransmits())
+                .append("  msg/pkt ").append(Math.round(net.getMessagesPerPacket() * 10) / 10f).append('\n');
+
+        sb.append("rivals ").append(net.getRivals().size())
+                .append(" buf ").append(net.getRivals().totalDepth())
+                .append(" rej ").append(net.getRivals().totalRejected())
+                .append("  inbox ").append(net.getInboxDepth()).append('\n');
+
+        sb.append("rtt<=");
+        for (int b = 0; b < NetMetrics.RTT_BUCKETS_MS.length; b++) {
+            sb.append(' ').append(NetMetrics.RTT_BUCKETS_MS[b]).append(':').append(m.getRttBucket(b));
+        }
+        sb.append(" +:").append(m.getRttBucket(NetMetrics.RTT_BUCKETS_MS.length)).append('\n');
+
+        for (int t = 1; t < Protocol.TYPE_COUNT; t++) {
+            long pin = m.getPacketsIn(t), pout = m.getPacketsOut(t);
+            if (pin == 0 && pout == 0) continue;
+            sb.append(Protocol.typeName(t)).append(" in ").append(pin)
+                    .append('/').append(m.getBytesIn(t)).append("B out ").append(pout)
+                    .append('/').append(m.getBytesOut(t)).append("B\n");
+        }
+    }
+}
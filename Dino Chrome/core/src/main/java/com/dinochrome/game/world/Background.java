@@ -1,19 +1,19 @@
 package com.dinochrome.game.world;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 
 public class Background {
 
-    private Texture texture;
+    private final TextureRegion region;
     private float x1, x2;
     private float worldWidth, worldHeight;
 
-    public Background(float worldWidth, float worldHeight) {
+    public Background(float worldWidth, float worldHeight, TextureRegion region) {
         this.worldWidth = worldWidth;
         this.worldHeight = worldHeight;
 
-        texture = new Texture("background/bg.png");
+        this.region = region;
 
         x1 = 0;
         x2 = worldWidth;
@@ -30,11 +30,7 @@ public class Background {
     }
 
     public void render(SpriteBatch batch) {
-        batch.draw(texture, x1, 0, worldWidth, worldHeight);
-        batch.draw(texture, x2, 0, worldWidth, worldHeight);
-    }
-
-    public void dispose() {
-        texture.dispose();
+        batch.draw(region, x1, 0, worldWidth, worldHeight);
+        batch.draw(region, x2, 0, worldWidth, worldHeight);
     }
 }
@@ -1,20 +1,21 @@
 package com.dinochrome.game.world;
 
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.dinochrome.game.entities.DinoBody;
 
 public class Ground {
 
-    public static final float GROUND_HEIGHT = 50f;
+    public static final float GROUND_HEIGHT = DinoBody.GROUND_Y;
 
-    private Texture texture;
+    private final TextureRegion region;
     private float x1, x2;
     private float worldWidth;
 
-    public Ground(float worldWidth) {
+    public Ground(float worldWidth, TextureRegion region) {
         this.worldWidth = worldWidth;
 
-        texture = new Texture("ground/ground.png");
+        this.region = region;
 
         x1 = 0;
         x2 = worldWidth;
@@ -31,11 +32,7 @@ public class Ground {
     }
 
     public void render(SpriteBatch batch) {
-        batch.draw(texture, x1, 0, worldWidth, GROUND_HEIGHT);
-        batch.draw(texture, x2, 0, worldWidth, GROUND_HEIGHT);
-    }
-
-    public void dispose() {
-        texture.dispose();
+        batch.draw(region, x1, 0, worldWidth, GROUND_HEIGHT);
+        batch.draw(region, x2, 0, worldWidth, GROUND_HEIGHT);
     }
 }
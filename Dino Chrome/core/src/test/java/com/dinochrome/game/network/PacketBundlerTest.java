@@ -0,0 +1,109 @@
+package com.dinochrome.game.network;
+
+import org.junit.Test;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PacketBundlerTest {
+
+    private final PacketBundler bundler = new PacketBundler();
+
+    @Test
+    public void singleMessageGoesOutWithoutBundle() {
+        bundler.add(ping(5));
+        ByteBuffer packet = copy(bundler.take());
+
+        assertEquals(Protocol.PING, Protocol.readHeader(packet));
+        assertEquals(5, packet.getShort());
+        assertEquals(8, packet.remaining());
+        assertNull(bundler.take());
+    }
+
+    @Test
+    public void bundleRoundTrip() {
+        for (int i = 1; i <= 3; i++) assertTrue(bundler.add(ping(i)));
+        ByteBuffer packet = copy(bundler.take());
+
+        assertEquals(Protocol.BUNDLE, Protocol.readHeader(packet));
+        int end = packet.limit();
+        int seen = 0;
+        while (packet.position() < end) {
+            int next = PacketBundler.nextMessage(packet);
+            assertEquals(Protocol.PING, Protocol.readHeader(packet));
+            assertEquals(++seen, packet.getShort());
+            packet.limit(end).position(next);
+        }
+        assertEquals(3, seen);
+    }
+
+    @Test
+    public void fullPacketRejectsTheNextMessage() {
+        int added = 0;
+        while (bundler.add(ping(added + 1))) added++;
+
+        ByteBuffer packet = bundler.take();
+        assertTrue(packet.remaining() <= Protocol.MAX_PACKET);
+        assertTrue(added > 1);
+        assertTrue(bundler.isEmpty());
+        // después de take() vuelve a entrar
+        assertTrue(bundler.add(ping(1)));
+    }
+
+    @Test
+    public void truncatedBundleThrows() {
+        bundler.add(ping(1));
+        bundler.add(ping(2));
+        ByteBuffer packet = copy(bundler.take());
+        packet.limit(packet.limit() - 3);    // se cortó el final del segundo mensaje
+
+        assertEquals(Protocol.BUNDLE, Protocol.readHeader(packet));
+        int end = packet.limit();
+        int next = PacketBundler.nextMessage(packet);
+        assertEquals(Protocol.PING, Protocol.readHeader(packet));
+        packet.limit(end).position(next);
+
+        try {
+            PacketBundler.nextMessage(packet);
+            fail("el segundo mensaje no entra en lo que queda");
+        } catch (BufferUnderflowException expected) {
+            // ok
+        }
+    }
+
+    @Test
+    public void lengthShorterThanHeaderThrows() {
+        ByteBuffer packet = ByteBuffer.allocate(16);
+        Protocol.writeHeader(packet, Protocol.BUNDLE);
+        Protocol.putVarInt(packet, Protocol.HEADER_SIZE - 1);
+        packet.put((byte) 0).put((byte) 0);
+        packet.flip();
+
+        Protocol.readHeader(packet);
+        try {
+            PacketBundler.nextMessage(packet);
+            fail();
+        } catch (BufferUnderflowException expected) {
+            // ok
+        }
+    }
+
+    private static ByteBuffer ping(int seq) {
+        ByteBuffer msg = ByteBuffer.allocate(32);
+        Protocol.encodePing(msg, seq, 1234L);
+        msg.flip();
+        return msg;
+    }
+
+    /** take() devuelve el buffer del bundler: lo copiamos para leerlo tranquilos. */
+    private static ByteBuffer copy(ByteBuffer packet) {
+        ByteBuffer c = ByteBuffer.allocate(packet.remaining());
+        c.put(packet).flip();
+        return c;
+    }
+}
@@ -0,0 +1,160 @@
+package com.dinochrome.game.network;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ReliableChannelTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final ReliableChannel a = new ReliableChannel();
+    private final ReliableChannel b = new ReliableChannel();
+
+    @Test
+    public void deliversInOrderAcrossSeqWraparound() {
+        // más de 0x10000 mensajes: la seq da la vuelta por 0xFFFF -> 0
+        long now = 0;
+        for (int i = 0; i < 0x10000 + 100; i++) {
+            assertTrue(a.queue(message(i)));
+            deliver(a, b, now);
+
+            ByteBuffer got = b.poll();
+            assertNotNull("mensaje " + i, got);
+            assertEquals(i, payload(got));
+            assertNull(b.poll());
+
+            deliver(b, a, now);
+            assertEquals(0, a.pendingCount());
+            now += MS;
+        }
+        assertEquals(0, a.getRetransmits());
+        assertEquals(0, b.getDuplicates());
+    }
+
+    @Test
+    public void duplicateIsDeliveredOnce() {
+        a.queue(message(7));
+        ByteBuffer datagram = write(a, 0);
+
+        receive(b, datagram.duplicate(), 0);
+        receive(b, datagram.duplicate(), 0);
+
+        assertEquals(7, payload(b.poll()));
+        assertNull(b.poll());
+        assertEquals(1, b.getDuplicates());
+    }
+
+    @Test
+    public void alreadyDeliveredIsAckedAgain() {
+        a.queue(message(1));
+        ByteBuffer datagram = write(a, 0);
+        receive(b, datagram.duplicate(), 0);
+        assertEquals(1, payload(b.poll()));
+        write(b, 0);    // el ACK se pierde
+
+        // a retransmite: b no lo entrega de nuevo pero vuelve a mandar el ack
+        receive(b, datagram.duplicate(), 0);
+        assertNull(b.poll());
+        assertEquals(1, b.getDuplicates());
+
+        receive(a, write(b, 0), 0);
+        assertEquals(0, a.pendingCount());
+    }
+
+    @Test
+    public void outOfOrderIsHeldUntilTheGapArrives() {
+        for (int i = 0; i < 3; i++) a.queue(message(i));
+        ByteBuffer first = write(a, 0);
+        ByteBuffer second = write(a, 0);
+        ByteBuffer third = write(a, 0);
+
+        receive(b, third, 0);
+        receive(b, second, 0);
+        assertNull(b.poll());
+
+        receive(b, first, 0);
+        for (int i = 0; i < 3; i++) assertEquals(i, payload(b.poll()));
+        assertNull(b.poll());
+    }
+
+    @Test
+    public void outOfWindowIsDropped() {
+        // recién creado espera la seq 0: la WINDOW ya queda fuera de la ventana
+        ByteBuffer datagram = ByteBuffer.allocate(64);
+        Protocol.writeHeader(datagram, Protocol.RELIABLE);
+        datagram.putShort((short) ReliableChannel.WINDOW);
+        datagram.putShort((short) 0xFFFF).putInt(0);
+        datagram.put(message(99));
+        datagram.flip();
+
+        receive(b, datagram, 0);
+        assertNull(b.poll());
+        assertEquals(1, b.getDuplicates());
+    }
+
+    @Test
+    public void retransmitsUntilAcked() {
+        a.queue(message(3));
+        write(a, 0);
+
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_PACKET);
+        assertFalse("todavía no venció el RTO", a.writeNext(out, 10 * MS));
+
+        ByteBuffer resent = write(a, 1000 * MS);
+        assertEquals(1, a.getRetransmits());
+        receive(b, resent, 1000 * MS);
+        assertEquals(3, payload(b.poll()));
+
+        receive(a, write(b, 1000 * MS), 1000 * MS);
+        assertEquals(0, a.pendingCount());
+        assertFalse(a.writeNext(out, 5000 * MS));
+    }
+
+    // =========================
+    // Helpers
+    // =========================
+    private static ByteBuffer message(int value) {
+        ByteBuffer msg = ByteBuffer.allocate(16);
+        Protocol.writeHeader(msg, Protocol.READY);
+        msg.putInt(value);
+        msg.flip();
+        return msg;
+    }
+
+    private static int payload(ByteBuffer msg) {
+        assertEquals(Protocol.READY, Protocol.readHeader(msg));
+        return msg.getInt();
+    }
+
+    /** Todo lo que from tiene para mandar, entregado a to. */
+    private static void deliver(ReliableChannel from, ReliableChannel to, long now) {
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_PACKET);
+        while (true) {
+            out.clear();
+            if (!from.writeNext(out, now)) return;
+            out.flip();
+            receive(to, out, now);
+        }
+    }
+
+    private static ByteBuffer write(ReliableChannel from, long now) {
+        ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_PACKET);
+        assertTrue(from.writeNext(out, now));
+        out.flip();
+        return out;
+    }
+
+    private static void receive(ReliableChannel to, ByteBuffer datagram, long now) {
+        int type = Protocol.readHeader(datagram);
+        if (type == Protocol.RELIABLE) to.onReliable(datagram, now);
+        else if (type == Protocol.ACK) to.onAck(datagram, now);
+        else throw new AssertionError("tipo inesperado " + type);
+    }
+}
@@ -0,0 +1,100 @@
+package com.dinochrome.game.network;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.utils.FixedTimestep;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StateDeltaCodecTest {
+
+    private final StateDeltaCodec sender = new StateDeltaCodec();
+    private final StateDeltaCodec receiver = new StateDeltaCodec();
+    private final NetThread.RivalState out = new NetThread.RivalState();
+    private final InputBatch inputs = new InputBatch();
+
+    @Test
+    public void roundTripAgainstBase() {
+        assertTrue(receiver.decode(encode(1, 0, 40f, 10, 100, null), out, inputs));
+        assertState(1, 40f, 10, 100);
+
+        // contra la 1 solo cambia el score: header + seq + base + máscara + varint
+        ByteBuffer delta = encode(2, 1, 40f, 10, 101, null);
+        assertEquals(Protocol.HEADER_SIZE + 5 + 1, delta.limit());
+        assertTrue(receiver.decode(delta, out, inputs));
+        assertState(2, 40f, 10, 101);
+        assertEquals(0, inputs.count);
+    }
+
+    @Test
+    public void missingBaseIsRejected() {
+        encode(5, 0, 10f, 10, 0, null);
+        ByteBuffer delta = encode(6, 5, 12f, 9, 3, null);
+
+        // el receptor nunca vio la 5
+        assertFalse(receiver.decode(delta, out, inputs));
+
+        // uno contra el estado cero se reconstruye igual
+        assertTrue(receiver.decode(encode(7, 0, 12f, 9, 3, null), out, inputs));
+        assertState(7, 12f, 9, 3);
+    }
+
+    @Test
+    public void overwrittenBaseIsRejected() {
+        assertTrue(receiver.decode(encode(1, 0, 10f, 10, 0, null), out, inputs));
+        // la 65 cae en el mismo lugar del historial que la 1 y la pisa
+        assertTrue(receiver.decode(encode(65, 0, 20f, 10, 0, null), out, inputs));
+
+        sender.reset();
+        encode(1, 0, 10f, 10, 0, null);
+        assertFalse(receiver.decode(encode(66, 1, 10f, 10, 5, null), out, inputs));
+    }
+
+    @Test
+    public void baseAcrossSeqWraparound() {
+        assertTrue(receiver.decode(encode(0xFFFF, 0, 30f, 10, 500, null), out, inputs));
+
+        int next = Protocol.nextSeq(0xFFFF);
+        assertEquals(1, next);
+        assertTrue(receiver.decode(encode(next, 0xFFFF, 31f, 10, 498, null), out, inputs));
+        assertState(1, 31f, 10, 498);
+    }
+
+    @Test
+    public void inputsAreReadOrSkipped() {
+        ClientPrediction prediction = new ClientPrediction();
+        DinoBody body = new DinoBody(0f);
+        for (int i = 0; i < 10; i++) prediction.record(i == 3 ? DinoBody.INPUT_JUMP : 0, FixedTimestep.DT, body);
+
+        ByteBuffer delta = encode(1, 0, 0f, 10, 0, prediction);
+        assertTrue(receiver.decode(delta.duplicate(), out, inputs));
+        assertEquals(10, inputs.count);
+        assertEquals(DinoBody.INPUT_JUMP, inputs.bits[3]);
+
+        // sin batch los comandos se saltean y el mensaje queda leído entero
+        ByteBuffer skipped = delta.duplicate();
+        assertTrue(new StateDeltaCodec().decode(skipped, out, null));
+        assertEquals(0, skipped.remaining());
+    }
+
+    /** STATE_DELTA de sender, con el header ya leído (listo para decode). */
+    private ByteBuffer encode(int seq, int baseSeq, float y, int hp, int score, ClientPrediction p) {
+        ByteBuffer buf = ByteBuffer.allocate(Protocol.MAX_PACKET);
+        sender.encode(buf, seq, baseSeq, y, true, false, hp, score, p);
+        buf.flip();
+        assertEquals(Protocol.STATE_DELTA, Protocol.readHeader(buf));
+        return buf;
+    }
+
+    private void assertState(int seq, float y, int hp, int score) {
+        assertEquals(seq, out.seq);
+        assertEquals(y, out.y, 1f / StateDeltaCodec.Y_SCALE);
+        assertTrue(out.onGround);
+        assertEquals(hp, out.hp);
+        assertEquals(score, out.score);
+    }
+}
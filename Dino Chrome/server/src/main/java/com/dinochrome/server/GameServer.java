@@ -0,0 +1,276 @@
+package com.dinochrome.server;
+
+import com.dinochrome.game.network.NetworkUtils;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.network.TextCodec;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Server autoritativo headless: el otro lado del protocolo de NetThread.
+ * Cada jugador tiene su World (misma seed que el cliente) simulado con sus
+ * comandos de input: los choques, la vida y la muerte se deciden acá.
+ *
+ * Un hilo de I/O (DatagramChannel no bloqueante + Selector, como el
+ * cliente) recibe todo y rutea cada datagrama al RoomShard dueño de la
+ * sesión; cada shard tiene su hilo, sus salas y sus sesiones, así que miles
+ * de salas se reparten entre los cores sin compartir estado de juego. El
+ * único estado compartido es la tabla dirección -> shard (ConcurrentHashMap,
+ * lectura sin lock). DISCOVER y PING de desconocidos se contestan acá mismo;
+ * DISCOVER llega por broadcast, directo o por el grupo multicast
+ * NetworkUtils.DISCOVERY_GROUP (nos unimos en cada interfaz que se pueda).
+ *
+ * Salas: CONNECT con room = 0 cae en matchmaking (de a MAX_PLAYERS en el mismo
+ * shard); con room != 0 va al shard room % shards, que la crea si no existe.
+ *
+ * Para tests de integración: new GameServer(0) toma un puerto libre,
+ * start() lo corre en hilos daemon y getPort() dice dónde apuntar el
+ * NetThread.
+ */
+public final class GameServer implements Runnable, Closeable {
+
+    public static final int DEFAULT_PORT = 4321;
+
+    private static final long IDLE_SELECT_MS = 1000;
+
+    private volatile boolean running = true;
+    private volatile Thread loopThread;
+
+    private final DatagramChannel channel;
+    private final Selector selector;
+
+    private final RoomShard[] shards;
+    private final Thread[] shardThreads;
+    private final ConcurrentHashMap<InetSocketAddress, RoomShard> routes = new ConcurrentHashMap<>();
+    private boolean shardsStarted;
+
+    // CONNECT de matchmaking: de a MAX_PLAYERS seguidos al mismo shard, para que se encuentren
+    private long matchmakingConnects;
+
+    // Solo los usa el hilo de I/O
+    private final ByteBuffer recvBuf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET + 200);
+    private final byte[] recvData = new byte[Protocol.MAX_PACKET + 200];
+    private final ByteBuffer sendBuf = ByteBuffer.allocateDirect(64);
+
+    public GameServer(int port) throws IOException {
+        this(port, Runtime.getRuntime().availableProcessors());
+    }
+
+    public GameServer(int port, int shardCount) throws IOException {
+        channel = DatagramChannel.open(StandardProtocolFamily.INET);
+        channel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        channel.bind(new InetSocketAddress(port));
+        channel.configureBlocking(false);
+        joinDiscoveryGroup();
+
+        selector = Selector.open();
+        channel.register(selector, SelectionKey.OP_READ);
+
+        int n = Math.max(1, shardCount);
+        shards = new RoomShard[n];
+        shardThreads = new Thread[n];
+        for (int i = 0; i < n; i++) shards[i] = new RoomShard(i, n, channel, routes);
+    }
+
+    /** Best effort: sin multicast el discovery sigue andando por broadcast. */
+    private void joinDiscoveryGroup() {
+        InetAddress group = NetworkUtils.getDiscoveryGroup();
+        if (group == null) return;
+        int joined = 0;
+        for (NetworkInterface ni : NetworkUtils.getMulticastInterfaces()) {
+            try {
+                channel.join(group, ni);
+                joined++;
+            } catch (IOException | IllegalArgumentException | UnsupportedOperationException ignored) {}
+        }
+        if (joined > 0) log("SERVER", "Discovery multicast en " + NetworkUtils.DISCOVERY_GROUP + " (" + joined + " interfaces)");
+    }
+
+    /** Puerto real (útil con port = 0). */
+    public int getPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    public int getShardCount() { return shards.length; }
+
+    public int getSessionCount() {
+        int n = 0;
+        for (RoomShard s : shards) n += s.getSessionCount();
+        return n;
+    }
+
+    public int getRoomCount() {
+        int n = 0;
+        for (RoomShard s : shards) n += s.getRoomCount();
+        return n;
+    }
+
+    /** Datagramas descartados porque algún shard tenía la cola llena. */
+    public long getDroppedPackets() {
+        long n = 0;
+        for (RoomShard s : shards) n += s.getDropped();
+        return n;
+    }
+
+    /** Corre el server en hilos daemon propios. */
+    public Thread start() {
+        Thread t = new Thread(this, "GameServer-io");
+        t.setDaemon(true);
+        loopThread = t;
+        t.start();
+        return t;
+    }
+
+    /** Corta los loops y espera a que cierren. */
+    @Override
+    public void close() {
+        running = false;
+        for (RoomShard s : shards) s.stop();
+        selector.wakeup();
+
+        Thread t = loopThread;
+        if (t != null && t != Thread.currentThread()) {
+            try { t.join(500); } catch (InterruptedException ignored) {}
+        }
+        for (Thread st : shardThreads) {
+            if (st == null) continue;
+            try { st.join(500); } catch (InterruptedException ignored) {}
+        }
+    }
+
+    // =========================
+    // Loop de I/O
+    // =========================
+    @Override
+    public void run() {
+        loopThread = Thread.currentThread();
+        startShards();
+        log("SERVER", "Escuchando en UDP " + getPort() + " (" + shards.length + " shards)");
+        try {
+            while (running) {
+                selector.select(IDLE_SELECT_MS);
+                if (!running) break;
+
+                selector.selectedKeys().clear();
+                drainReceive();
+            }
+        } catch (Exception e) {
+            if (running) e.printStackTrace();
+        } finally {
+            running = false;
+            for (RoomShard s : shards) s.stop();
+            try { selector.close(); } catch (IOException ignored) {}
+            try { channel.close(); } catch (IOException ignored) {}
+            log("SERVER", "Cerrado.");
+        }
+    }
+
+    private synchronized void startShards() {
+        if (shardsStarted) return;
+        shardsStarted = true;
+        for (int i = 0; i < shards.length; i++) {
+            Thread t = new Thread(shards[i], "GameServer-shard-" + i);
+            t.setDaemon(true);
+            shardThreads[i] = t;
+            t.start();
+        }
+    }
+
+    private void drainReceive() throws IOException {
+        while (running) {
+            recvBuf.clear();
+            SocketAddress from = channel.receive(recvBuf);
+            if (from == null) return;
+            recvBuf.flip();
+
+            int len = recvBuf.remaining();
+            recvBuf.get(recvData, 0, len);
+            // uno que rompe algo se descarta: el resto de los clientes (y los shards) siguen
+            try {
+                route((InetSocketAddress) from, recvData, len);
+            } catch (RuntimeException e) {
+                log("SERVER", "Error con un datagrama de " + from + ": " + e);
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /** Decide qué shard procesa el datagrama (o lo contesta acá si no es de nadie). */
+    private void route(InetSocketAddress from, byte[] data, int len) {
+        boolean binary = Protocol.isBinary(data, len);
+        int type = binary ? data[2] : Protocol.textType(data, len);
+
+        if (type == Protocol.DISCOVER) {
+            sendText(from, "HERE port=" + getPort());
+            return;
+        }
+
+        RoomShard shard = routes.get(from);
+        if (shard == null) {
+            if (type == Protocol.CONNECT) {
+                int room = binary ? Protocol.peekConnectRoom(data, len) : TextCodec.intValue(data, len, "room", 0) & 0xFFFF;
+                shard = room != 0 ? shards[room % shards.length] : shards[(int) (matchmakingConnects++ / Room.MAX_PLAYERS % shards.length)];
+            } else if (type == Protocol.PING) {
+                pong(from, data, len, binary);
+                return;
+            } else {
+                return;     // no es de ninguna sesión
+            }
+        }
+
+        Packet p = shard.obtain();
+        if (p == null) return;
+        System.arraycopy(data, 0, p.data, 0, len);
+        p.length = len;
+        p.from = from;
+        p.receivedNs = System.nanoTime();
+        shard.post(p);
+    }
+
+    /** PING de alguien sin sesión (ej. medir RTT antes de conectar). */
+    private void pong(InetSocketAddress from, byte[] data, int len, boolean binary) {
+        long serverMs = System.currentTimeMillis();
+        if (!binary) {
+            sendText(from, "PONG seq=" + TextCodec.intValue(data, len, "seq", 0)
+                    + ";t=" + TextCodec.longValue(data, len, "t", 0L) + ";st=" + serverMs);
+            return;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(data, 0, len);
+            Protocol.readHeader(in);
+            int seq = in.getShort() & 0xFFFF;
+            long t = in.getLong();
+
+            sendBuf.clear();
+            Protocol.encodePong(sendBuf, seq, t, serverMs);
+            sendBuf.flip();
+            channel.send(sendBuf, from);
+        } catch (BufferUnderflowException | IOException ignored) {}
+    }
+
+    private void sendText(InetSocketAddress to, String msg) {
+        try {
+            channel.send(ByteBuffer.wrap(msg.getBytes(StandardCharsets.UTF_8)), to);
+        } catch (IOException e) {
+            log("SERVER", "No se pudo enviar a " + to + ": " + e.getMessage());
+        }
+    }
+
+    static void log(String tag, String s) {
+        System.out.println("[" + tag + "] " + s);
+    }
+}
@@ -0,0 +1,16 @@
+package com.dinochrome.server;
+
+import com.dinochrome.game.network.Protocol;
+
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+
+/** Datagrama recibido en viaje del hilo de I/O a un RoomShard. Se recicla. */
+final class Packet {
+
+    final byte[] data = new byte[Protocol.MAX_PACKET + 200];
+    final ByteBuffer buf = ByteBuffer.wrap(data);
+    int length;
+    InetSocketAddress from;
+    long receivedNs;
+}
@@ -0,0 +1,92 @@
+package com.dinochrome.server;
+
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.sim.SpawnTimeline;
+import com.dinochrome.game.sim.World;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una sala de hasta MAX_PLAYERS jugadores. Arranca en LOBBY, pasa a RUNNING
+ * cuando están todos listos (y son al menos MIN_PLAYERS) y vuelve a LOBBY
+ * cuando se manda el RESULT (así los mismos jugadores pueden pedir revancha
+ * sin reconectar). Vive en un único RoomShard: solo la toca el hilo de ese
+ * shard.
+ */
+final class Room {
+
+    static final int MAX_PLAYERS = Protocol.MAX_ROOM_PLAYERS;
+    static final int MIN_PLAYERS = 2;
+
+    enum Phase { LOBBY, RUNNING }
+
+    final int id;
+    /** Creada por matchmaking (cualquiera puede caer); las pedidas por id no. */
+    final boolean isPublic;
+    final List<Session> players = new ArrayList<>(MAX_PLAYERS);
+    Phase phase = Phase.LOBBY;
+
+    /** Spawns de la partida actual: los World de todos los jugadores leen esta. */
+    final SpawnTimeline timeline = new SpawnTimeline(World.DEFAULT_SPAWN_MIN, World.DEFAULT_SPAWN_MAX);
+
+    /** Hora del server (ms) del arranque de la partida actual (el t0 del START). */
+    long t0;
+
+    long nextLobbyAt;
+
+    // registro del shard
+    int index;
+    boolean queued;
+    boolean removed;
+
+    Room(int id, boolean isPublic) {
+        this.id = id;
+        this.isPublic = isPublic;
+    }
+
+    /** Sirve para matchmaking: pública, en lobby y con lugar. */
+    boolean isOpen() {
+        return !removed && isPublic && phase == Phase.LOBBY && !isFull();
+    }
+
+    boolean isFull() {
+        return players.size() >= MAX_PLAYERS;
+    }
+
+    boolean allReady() {
+        if (players.size() < MIN_PLAYERS) return false;
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).ready) return false;
+        }
+        return true;
+    }
+
+    /** Vivos en la partida; si queda uno solo, ese es el ganador. */
+    int aliveCount() {
+        int n = 0;
+        for (int i = 0; i < players.size(); i++) {
+            if (!players.get(i).dead) n++;
+        }
+        return n;
+    }
+
+    /**
+     * Ganador con la partida terminada: el último vivo o, si murieron todos,
+     * el de más score. 0 = empate.
+     */
+    int winnerId() {
+        Session best = null;
+        boolean tie = false;
+        for (int i = 0; i < players.size(); i++) {
+            Session s = players.get(i);
+            if (best == null || rank(s) > rank(best)) { best = s; tie = false; }
+            else if (rank(s) == rank(best)) tie = true;
+        }
+        return best == null || tie ? 0 : best.id;
+    }
+
+    private static long rank(Session s) {
+        return (s.dead ? 0L : 1L << 32) + s.score;
+    }
+}
@@ -0,0 +1,807 @@
+package com.dinochrome.server;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.network.InputBatch;
+import com.dinochrome.game.network.NetThread;
+import com.dinochrome.game.network.PacketBundler;
+import com.dinochrome.game.network.Protocol;
+import com.dinochrome.game.network.ReliableChannel;
+import com.dinochrome.game.network.TextCodec;
+import com.dinochrome.game.utils.FixedTimestep;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Un pedazo del registro de salas con su propio hilo. Las salas con
+ * id % shardCount == index viven acá, junto con sus sesiones: nada de esto
+ * se comparte con otros shards, así que la lógica de juego no toma locks.
+ *
+ * El hilo de I/O de GameServer le pasa los datagramas por inbox (cola
+ * acotada: si el shard no da abasto se descarta, como haría la red) y
+ * devuelve los Packet a free para reciclarlos. Las respuestas salen por el
+ * canal compartido: las de sesiones binarias se juntan en el PacketBundler
+ * de cada una y salen en un datagrama por sesión al terminar cada tanda de
+ * la inbox (o el tick), así los RIVAL_STATE de toda la sala, el STATE_ACK
+ * y los acks viajan juntos.
+ */
+final class RoomShard implements Runnable {
+
+    // =========================
+    // Config
+    // =========================
+    private static final int QUEUE_SIZE = 1024;
+
+    private static final long TICK_NS = 50_000_000L;
+    // sin recibir nada del cliente (pinguea cada 1.2 s) lo damos por caído
+    private static final long SESSION_TIMEOUT_NS = 5_000_000_000L;
+    // el LOBBY se reenvía por si UDP se come alguno
+    private static final long LOBBY_RESEND_NS = 1_000_000_000L;
+
+    private static final long COUNTDOWN_MS = 3000;
+    private static final float START_SPEED = 220f;
+    private static final int MAX_NAME_LENGTH = 12;
+    private static final int MAX_ROOM_ID = 0xFFFF;
+    // tope de comandos perdidos que se rellenan de una vez (5 s de pasos)
+    private static final int MAX_MISSING_STEPS = 5 * FixedTimestep.HZ;
+
+    final int index;
+    private final int shardCount;
+    private final DatagramChannel channel;
+    private final ConcurrentHashMap<InetSocketAddress, RoomShard> routes;
+
+    private volatile boolean running = true;
+
+    // I/O -> shard
+    private final ArrayBlockingQueue<Packet> inbox = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private final ArrayBlockingQueue<Packet> free = new ArrayBlockingQueue<>(QUEUE_SIZE);
+    private int allocated;          // solo lo toca el hilo de I/O
+    private volatile long dropped;  // idem (lectura desde afuera)
+
+    // =========================
+    // Estado (solo lo toca el hilo del shard)
+    // =========================
+    private final Map<InetSocketAddress, Session> sessions = new HashMap<>();
+
+    // salas por id: slot = id / shardCount (todas las de este shard tienen el mismo resto)
+    private final Room[] roomsBySlot;
+    private final List<Room> rooms = new ArrayList<>();
+    // salas públicas con lugar, para matchmaking sin recorrer todo
+    private final ArrayDeque<Room> waiting = new ArrayDeque<>();
+    private int nextAutoSlot;
+
+    private int nextSessionSerial;
+    private final Random rng = new Random();
+
+    private volatile int sessionCount;
+    private volatile int roomCount;
+
+    private long nextTickAt;
+
+    // sesiones con mensajes en su PacketBundler, para flushOut()
+    private final List<Session> pendingOut = new ArrayList<>();
+
+    private final ByteBuffer sendBuf = ByteBuffer.allocateDirect(Protocol.MAX_PACKET);
+    private final ByteBuffer reliableBuf = ByteBuffer.allocate(ReliableChannel.MAX_MESSAGE);
+    private final NetThread.RivalState stateScratch = new NetThread.RivalState();
+    private final InputBatch inputScratch = new InputBatch();
+    private final NetThread.PingInfo pingScratch = new NetThread.PingInfo();
+    private final NetThread.ConnectInfo connectScratch = new NetThread.ConnectInfo();
+    private final NetThread.LobbyState lobbyScratch = new NetThread.LobbyState();
+    private final int[] deadScratch = new int[2];
+
+    RoomShard(int index, int shardCount, DatagramChannel channel, ConcurrentHashMap<InetSocketAddress, RoomShard> routes) {
+        this.index = index;
+        this.shardCount = shardCount;
+        this.channel = channel;
+        this.routes = routes;
+        this.roomsBySlot = new Room[MAX_ROOM_ID / shardCount + 1];
+    }
+
+    int getSessionCount() { return sessionCount; }
+    int getRoomCount() { return roomCount; }
+    long getDropped() { return dropped; }
+
+    void stop() {
+        running = false;
+    }
+
+    // =========================
+    // Lado I/O (hilo de GameServer)
+    // =========================
+
+    /** Packet libre para llenar, o null si el shard tiene la cola llena. */
+    Packet obtain() {
+        Packet p = free.poll();
+        if (p == null && allocated < QUEUE_SIZE) {
+            allocated++;
+            p = new Packet();
+        }
+        if (p == null) dropped++;
+        return p;
+    }
+
+    void post(Packet p) {
+        if (!inbox.offer(p)) {
+            dropped++;
+            free.offer(p);
+        }
+    }
+
+    // =========================
+    // Loop
+    // =========================
+    @Override
+    public void run() {
+        nextTickAt = System.nanoTime();
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                if (now - nextTickAt >= 0) {
+                    try {
+                        tick(now);
+                    } catch (RuntimeException e) {
+                        logError("tick", e);
+                    }
+                    flushOut();
+                    nextTickAt = now + TICK_NS;
+                }
+
+                long waitNs = Math.max(0, nextTickAt - System.nanoTime());
+                Packet p = inbox.poll(waitNs, TimeUnit.NANOSECONDS);
+                while (p != null) {
+                    // un datagrama que rompe algo no se lleva puesto al shard (ni a sus salas)
+                    try {
+                        process(p);
+                    } catch (RuntimeException e) {
+                        logError("datagrama de " + p.from, e);
+                    }
+                    free.offer(p);
+                    p = inbox.poll();
+                }
+                flushOut();
+            }
+        } catch (InterruptedException ignored) {
+        }
+    }
+
+    private void logError(String what, RuntimeException e) {
+        GameServer.log("SERVER", "Error en el shard " + index + " (" + what + "): " + e);
+        e.printStackTrace();
+    }
+
+    private void tick(long now) {
+        Iterator<Session> it = sessions.values().iterator();
+        while (it.hasNext()) {
+            Session s = it.next();
+            if (now - s.lastReceiveNs > SESSION_TIMEOUT_NS) {
+                it.remove();
+                routes.remove(s.address, this);
+                leaveRoom(s, "timeout");
+                GameServer.log("SERVER", "Sesión " + s.id + " (" + s.name + ") sin respuesta, desconectada.");
+                continue;
+            }
+
+            if (!s.binary) continue;
+            flushReliable(s, now);
+            if (s.reliable.isFailed()) {
+                it.remove();
+                routes.remove(s.address, this);
+                leaveRoom(s, "timeout");
+                GameServer.log("SERVER", "Sesión " + s.id + " (" + s.name + ") sin ack de mensajes de control, desconectada.");
+            }
+        }
+
+        for (int i = 0; i < rooms.size(); i++) {
+            Room r = rooms.get(i);
+            if (r.phase == Room.Phase.LOBBY && now - r.nextLobbyAt >= 0) {
+                broadcastLobby(r);
+                r.nextLobbyAt = now + LOBBY_RESEND_NS;
+            }
+        }
+
+        sessionCount = sessions.size();
+        roomCount = rooms.size();
+    }
+
+    private void process(Packet p) {
+        ByteBuffer buf = p.buf;
+        buf.clear();
+        buf.limit(p.length);
+
+        Session s = sessions.get(p.from);
+        if (s != null) s.lastReceiveNs = p.receivedNs;
+
+        if (Protocol.isBinary(buf)) procesarBinario(buf, p.from, s);
+        else procesarTexto(p.data, p.length, p.from, s);
+
+        // ack de lo confiable que llegó, junto con lo que haya para mandar (sale en flushOut)
+        if (s != null && s.binary && sessions.get(p.from) == s) flushReliable(s, System.nanoTime());
+    }
+
+    // =========================
+    // Entrada
+    // =========================
+    private void procesarBinario(ByteBuffer buf, InetSocketAddress from, Session s) {
+        int len = buf.remaining();
+        try {
+            int type = Protocol.readHeader(buf);
+            if (type == Protocol.CONNECT) {
+                Protocol.decodeConnect(buf, connectScratch);
+                onConnect(from, s, connectScratch.name, connectScratch.room, true);
+                return;
+            }
+            if (type == Protocol.PING) {
+                Protocol.decodePing(buf, pingScratch);
+                onPing(from, s, pingScratch.seq, pingScratch.timeNs, true);
+                return;
+            }
+            if (s == null) return;
+
+            switch (type) {
+                case Protocol.READY:
+                    onReady(s, Protocol.decodeReady(buf));
+                    return;
+
+                case Protocol.STATE:
+                    Protocol.decodeState(buf, stateScratch, inputScratch);
+                    onState(s, stateScratch, inputScratch);
+                    return;
+
+                case Protocol.STATE_DELTA:
+                    // sin la base no se puede reconstruir: el cliente reintenta contra otra
+                    if (s.deltaIn.decode(buf, stateScratch, inputScratch)) onState(s, stateScratch, inputScratch);
+                    return;
+
+                case Protocol.DEAD:
+                    Protocol.decodeDead(buf, deadScratch);
+                    onDead(s, deadScratch[0]);
+                    return;
+
+                case Protocol.DISCONNECT:
+                    disconnect(s, "disconnect");
+                    return;
+
+                case Protocol.RELIABLE:
+                    s.reliable.onReliable(buf, System.nanoTime());
+                    deliverReliable(from, s);
+                    return;
+
+                case Protocol.ACK:
+                    s.reliable.onAck(buf, System.nanoTime());
+                    return;
+
+                case Protocol.BUNDLE: {
+                    int end = buf.limit();
+                    while (buf.position() < end) {
+                        int next = PacketBundler.nextMessage(buf);
+                        if (buf.get(buf.position() + 2) != Protocol.BUNDLE) procesarBinario(buf, from, s);
+                        buf.limit(end).position(next);
+                        if (sessions.get(from) != s) return;    // se desconectó en el medio
+                    }
+                    return;
+                }
+
+                default:
+                    // tipo desconocido: se descarta
+            }
+        } catch (BufferUnderflowException e) {
+            GameServer.log("SERVER", "Datagrama binario truncado (" + len + " bytes) de " + from + ", descartado.");
+        }
+    }
+
+    /** Mensajes confiables ya en orden: mismo camino que los sueltos (sin RELIABLE anidados). */
+    private void deliverReliable(InetSocketAddress from, Session s) {
+        ByteBuffer msg;
+        while ((msg = s.reliable.poll()) != null) {
+            int type = msg.remaining() >= Protocol.HEADER_SIZE ? msg.get(msg.position() + 2) : -1;
+            if (type == Protocol.RELIABLE || type == Protocol.ACK) continue;
+            procesarBinario(msg, from, s);
+            if (sessions.get(from) != s) return;    // se desconectó en el medio
+        }
+    }
+
+    private void procesarTexto(byte[] msg, int len, InetSocketAddress from, Session s) {
+        int type = Protocol.textType(msg, len);
+
+        switch (type) {
+            case Protocol.CONNECT: {
+                int i = TextCodec.valueIndex(msg, len, "name");
+                String name = i < 0 ? null : TextCodec.stringValue(msg, i, TextCodec.valueEnd(msg, len, i), null);
+                // proto= avisa que el cliente entiende binario
+                boolean binary = TextCodec.intValue(msg, len, "proto", 0) >= Protocol.VERSION;
+                onConnect(from, s, name, TextCodec.intValue(msg, len, "room", 0) & MAX_ROOM_ID, binary);
+                return;
+            }
+
+            case Protocol.PING:
+                onPing(from, s, TextCodec.intValue(msg, len, "seq", 0), TextCodec.longValue(msg, len, "t", 0L), false);
+                return;
+
+            default:
+        }
+        if (s == null) return;
+
+        switch (type) {
+            case Protocol.READY:
+                onReady(s, TextCodec.flagValue(msg, len, "v"));
+                return;
+
+            case Protocol.STATE: {
+                NetThread.RivalState st = stateScratch;
+                st.seq = TextCodec.intValue(msg, len, "seq", 0) & 0xFFFF;
+                st.y = TextCodec.floatValue(msg, len, "y", s.body.getGroundY());
+                st.onGround = TextCodec.flagValue(msg, len, "g");
+                st.sliding = TextCodec.flagValue(msg, len, "s");
+                st.hp = TextCodec.intValue(msg, len, "hp", s.body.getHp());
+                st.score = TextCodec.intValue(msg, len, "score", 0);
+                inputScratch.count = 0;
+                onState(s, st, inputScratch);
+                return;
+            }
+
+            case Protocol.DEAD:
+                onDead(s, TextCodec.intValue(msg, len, "score", s.score));
+                return;
+
+            case Protocol.DISCONNECT:
+                disconnect(s, "disconnect");
+                return;
+
+            default:
+        }
+    }
+
+    // =========================
+    // Salas
+    // =========================
+    private void onConnect(InetSocketAddress from, Session s, String name, int roomId, boolean binary) {
+        if (s != null) {
+            // CONNECT repetido (se perdió el WELCOME o el cliente hizo reconectar)
+            sendWelcome(s);
+            if (s.room != null && s.room.phase == Room.Phase.LOBBY) broadcastLobby(s.room);
+            return;
+        }
+
+        Room r = roomId != 0 ? joinableRoom(roomId) : null;
+        if (r == null) r = matchmakingRoom();
+        if (r == null) {
+            GameServer.log("SERVER", "Sin salas libres en el shard " + index + ", CONNECT de " + from + " ignorado.");
+            return;
+        }
+
+        // ids únicos entre shards: serial * shardCount + index
+        int id;
+        do { id = (++nextSessionSerial * shardCount + index) & 0xFFFF; } while (id == 0);
+        s = new Session(id, from, sanitizeName(name), binary, r.timeline);
+        s.lastReceiveNs = System.nanoTime();
+        sessions.put(from, s);
+        routes.put(from, this);
+
+        r.players.add(s);
+        s.room = r;
+
+        GameServer.log("SERVER", "CONNECT " + s.name + " id=" + s.id + " desde " + from + (binary ? " (bin)" : "") + " -> sala " + r.id);
+        sendWelcome(s);
+        broadcastLobby(r);
+        sessionCount = sessions.size();
+    }
+
+    /** Sala pedida por id: se crea si no existe; null si está llena o jugando. */
+    private Room joinableRoom(int roomId) {
+        Room r = roomsBySlot[roomId / shardCount];
+        if (r == null) return createRoom(roomId, false);
+        if (r.phase == Room.Phase.LOBBY && !r.isFull()) return r;
+        GameServer.log("SERVER", "Sala " + roomId + " ocupada, se asigna otra.");
+        return null;
+    }
+
+    private Room matchmakingRoom() {
+        while (!waiting.isEmpty()) {
+            Room r = waiting.peekFirst();
+            if (r.isOpen()) return r;
+            waiting.pollFirst();
+            r.queued = false;
+        }
+
+        int id = allocateRoomId();
+        if (id < 0) return null;
+        Room r = createRoom(id, true);
+        queueIfOpen(r);
+        return r;
+    }
+
+    private Room createRoom(int id, boolean isPublic) {
+        Room r = new Room(id, isPublic);
+        r.index = rooms.size();
+        rooms.add(r);
+        roomsBySlot[id / shardCount] = r;
+        roomCount = rooms.size();
+        return r;
+    }
+
+    private void removeRoom(Room r) {
+        // swap-remove: O(1)
+        Room last = rooms.remove(rooms.size() - 1);
+        if (last != r) {
+            rooms.set(r.index, last);
+            last.index = r.index;
+        }
+        roomsBySlot[r.id / shardCount] = null;
+        r.removed = true;
+        roomCount = rooms.size();
+    }
+
+    /** Siguiente id libre con resto index (así el hilo de I/O sabe a qué shard rutear). */
+    private int allocateRoomId() {
+        int slots = roomsBySlot.length;
+        for (int n = 0; n < slots; n++) {
+            int slot = nextAutoSlot;
+            nextAutoSlot = (nextAutoSlot + 1) % slots;
+            int id = slot * shardCount + index;
+            if (id == 0 || id > MAX_ROOM_ID) continue;
+            if (roomsBySlot[slot] == null) return id;
+        }
+        return -1;
+    }
+
+    private void queueIfOpen(Room r) {
+        if (!r.queued && r.isOpen()) {
+            r.queued = true;
+            waiting.addLast(r);
+        }
+    }
+
+    // =========================
+    // Lógica
+    // =========================
+    private void onReady(Session s, boolean ready) {
+        Room r = s.room;
+        if (r == null || r.phase != Room.Phase.LOBBY) return;
+        if (s.ready == ready) return;
+
+        s.ready = ready;
+        broadcastLobby(r);
+        if (r.allReady()) startMatch(r);
+    }
+
+    private void startMatch(Room r) {
+        int seed = rng.nextInt();
+        long t0 = System.currentTimeMillis() + COUNTDOWN_MS;
+
+        r.phase = Room.Phase.RUNNING;
+        r.t0 = t0;
+        r.timeline.reset(seed);
+        for (int i = 0; i < r.players.size(); i++) {
+            Session p = r.players.get(i);
+            p.resetForMatch(seed);
+            sendStart(p, r.id, seed, t0, START_SPEED);
+        }
+        GameServer.log("SERVER", "START sala " + r.id + " seed=" + seed + " t0=" + t0);
+    }
+
+    /**
+     * STATE / STATE_DELTA ya decodificado. Cada comando nuevo es un paso
+     * del World de la sesión (un paso de FixedTimestep, como en el cliente):
+     * los choques, la vida, el score y la muerte salen de ahí, no de lo que
+     * reporta el cliente. El resultado vuelve al dueño como STATE_ACK y al
+     * resto como RIVAL_STATE.
+     */
+    private void onState(Session s, NetThread.RivalState st, InputBatch inputs) {
+        Room r = s.room;
+        if (r == null || r.phase != Room.Phase.RUNNING || s.dead) return;
+
+        // desordenado o duplicado: ya mandamos algo más nuevo
+        if (s.lastStateSeq != 0 && !Protocol.seqNewer(st.seq, s.lastStateSeq)) return;
+        s.lastStateSeq = st.seq;
+
+        if (inputs.count > 0) {
+            s.simulated = true;
+            for (int k = 0; k < inputs.count && !s.dead; k++) {
+                int seq = inputs.seqAt(k);
+                if (s.lastInputSeq != 0 && !Protocol.seqNewer(seq, s.lastInputSeq)) continue;
+                // la primera seq de la partida es 1 (nextSeq de 0)
+                stepMissing(s, Protocol.nextSeq(s.lastInputSeq), seq);
+                if (!s.dead) stepWorld(s, inputs.bits[k]);
+                s.lastInputSeq = seq;
+            }
+        } else if (!s.simulated) {
+            // cliente sin predicción (texto): no hay inputs para simular, confiamos en lo que reporta
+            s.body.setPhysics(st.y, 0f, st.onGround, st.sliding);
+            if (st.hp < s.body.getHp()) s.body.setHp(st.hp);
+            s.score = st.score;
+        }
+
+        if (s.binary && s.simulated) sendStateAck(s);
+        if (s.dead) {
+            GameServer.log("SERVER", "DEAD " + s.name + " score=" + s.score + " (sala " + r.id + ", simulado)");
+            if (r.aliveCount() <= 1) finishMatch(r, "dead");
+            if (r.phase != Room.Phase.RUNNING) return;
+        }
+
+        for (int i = 0; i < r.players.size(); i++) {
+            Session other = r.players.get(i);
+            if (other != s) sendRivalState(other, s);
+        }
+    }
+
+    /** Un comando del cliente: un paso de su World. */
+    private void stepWorld(Session s, int bits) {
+        s.world.step(bits);
+        s.lastInputBits = bits;
+        s.score = s.world.getScore();
+        if (s.body.isDead()) s.dead = true;
+    }
+
+    /**
+     * Comandos que se perdieron (más que la redundancia de los STATE): el
+     * cliente igual los simuló, así que se rellenan con el último input
+     * (sin el salto) para que el mundo no quede atrasado en el tiempo.
+     */
+    private void stepMissing(Session s, int fromSeq, int toSeq) {
+        int bits = s.lastInputBits & ~DinoBody.INPUT_JUMP;
+        int n = 0;
+        for (int q = fromSeq; q != toSeq && n < MAX_MISSING_STEPS && !s.dead; q = Protocol.nextSeq(q), n++) {
+            stepWorld(s, bits);
+        }
+    }
+
+    private void onDead(Session s, int score) {
+        Room r = s.room;
+        if (r == null || r.phase != Room.Phase.RUNNING || s.dead) return;
+
+        s.dead = true;
+        // con comandos el score es el del World del server (el DEAD del cliente es rendirse)
+        s.score = s.simulated ? s.world.getScore() : score;
+        GameServer.log("SERVER", "DEAD " + s.name + " score=" + s.score + " (sala " + r.id + ")");
+        if (r.aliveCount() <= 1) finishMatch(r, "dead");
+    }
+
+    private void finishMatch(Room r, String reason) {
+        int winner = r.winnerId();
+        for (int i = 0; i < r.players.size(); i++) {
+            Session p = r.players.get(i);
+            sendResult(p, winner, reason);
+            p.ready = false;
+        }
+        GameServer.log("SERVER", "RESULT sala " + r.id + " winner=" + winner + " reason=" + reason);
+
+        // de vuelta al lobby: los mismos jugadores pueden volver a poner READY
+        r.phase = Room.Phase.LOBBY;
+        r.nextLobbyAt = System.nanoTime();
+        // el matchmaking la sacó de la cola mientras jugaba: si tiene lugar, vuelve
+        queueIfOpen(r);
+    }
+
+    private void disconnect(Session s, String reason) {
+        sessions.remove(s.address);
+        routes.remove(s.address, this);
+        leaveRoom(s, reason);
+        sessionCount = sessions.size();
+        GameServer.log("SERVER", "DISCONNECT " + s.name + " id=" + s.id);
+    }
+
+    private void leaveRoom(Session s, String reason) {
+        Room r = s.room;
+        if (r == null) return;
+        s.room = null;
+
+        if (r.phase == Room.Phase.RUNNING) {
+            // el que se va pierde; si queda uno solo, gana
+            s.dead = true;
+            if (r.aliveCount() <= 1) finishMatch(r, reason);
+        }
+        r.players.remove(s);
+
+        if (r.players.isEmpty()) {
+            removeRoom(r);
+        } else if (r.phase == Room.Phase.LOBBY) {
+            for (int i = 0; i < r.players.size(); i++) r.players.get(i).ready = false;
+            broadcastLobby(r);
+            queueIfOpen(r);
+        }
+    }
+
+    private void onPing(InetSocketAddress from, Session s, int seq, long clientTimeNs, boolean binary) {
+        long serverMs = System.currentTimeMillis();
+        if (binary) {
+            Protocol.encodePong(beginSend(), seq, clientTimeNs, serverMs);
+            if (s != null && s.binary) endSend(s);
+            else sendNow(from);
+        } else {
+            sendText(from, "PONG seq=" + seq + ";t=" + clientTimeNs + ";st=" + serverMs);
+        }
+    }
+
+    // =========================
+    // Salida
+    // =========================
+    private void sendWelcome(Session s) {
+        if (s.binary) {
+            Protocol.encodeWelcome(beginSend(), s.id);
+            endSend(s);
+        } else {
+            sendText(s.address, "WELCOME id=" + s.id);
+        }
+    }
+
+    private void broadcastLobby(Room r) {
+        NetThread.LobbyState st = lobbyScratch;
+        st.room = r.id;
+        st.players = r.players.size();
+        for (int i = 0; i < st.ids.length; i++) {
+            Session p = i < r.players.size() ? r.players.get(i) : null;
+            st.ids[i] = p != null ? p.id : 0;
+            st.names[i] = p != null ? p.name : null;
+            st.ready[i] = p != null && p.ready;
+        }
+
+        String text = null;
+        for (int i = 0; i < r.players.size(); i++) {
+            Session p = r.players.get(i);
+            if (p.binary) {
+                Protocol.encodeLobby(beginSend(), st);
+                endSend(p);
+            } else {
+                if (text == null) text = lobbyText(st);
+                sendText(p.address, text);
+            }
+        }
+    }
+
+    private static String lobbyText(NetThread.LobbyState st) {
+        StringBuilder sb = new StringBuilder("LOBBY room=").append(st.room).append(";players=").append(st.players);
+        for (int i = 0; i < st.players; i++) {
+            sb.append(";p").append(i + 1).append('=').append(st.names[i])
+                    .append(',').append(st.ready[i] ? '1' : '0').append(',').append(st.ids[i]);
+        }
+        return sb.toString();
+    }
+
+    private void sendStart(Session s, int room, int seed, long t0, float speed) {
+        if (s.binary) {
+            Protocol.encodeStart(beginReliable(), room, seed, t0, speed);
+            endReliable(s);
+        } else {
+            sendText(s.address, "START room=" + room + ";seed=" + seed + ";t0=" + t0 + ";speed=" + speed);
+        }
+    }
+
+    private void sendStateAck(Session s) {
+        Protocol.encodeStateAck(beginSend(), s.lastStateSeq, s.lastInputSeq,
+                s.body.getY(), s.body.getVelocityY(), s.body.isOnGround(), s.body.isSliding(), s.body.getHp());
+        endSend(s);
+    }
+
+    /**
+     * Estado de from visto por to. La seq es la del STATE de from (el rival
+     * descarta desordenados) y el momento, el de su World (pasos desde t0),
+     * así el rival interpola en el tiempo de la partida y no en el de llegada.
+     */
+    private void sendRivalState(Session to, Session from) {
+        int timeMs = matchTimeMs(from);
+        if (to.binary) {
+            Protocol.encodeRivalState(beginSend(), from.id, from.lastStateSeq, timeMs,
+                    from.body.getY(), from.body.isOnGround(), from.body.isSliding(), from.body.getHp(), from.score);
+            endSend(to);
+        } else {
+            sendText(to.address, "RIVAL_STATE id=" + from.id
+                    + ";seq=" + from.lastStateSeq
+                    + ";t=" + timeMs
+                    + ";y=" + from.body.getY()
+                    + ";g=" + (from.body.isOnGround() ? "1" : "0")
+                    + ";s=" + (from.body.isSliding() ? "1" : "0")
+                    + ";hp=" + from.body.getHp()
+                    + ";score=" + from.score);
+        }
+    }
+
+    /** Sin comandos (texto) no hay pasos: vale la hora del server. */
+    private static int matchTimeMs(Session s) {
+        if (s.simulated) return Math.round(s.world.getSteps() * 1000f / FixedTimestep.HZ);
+        Room r = s.room;
+        return r == null ? 0 : (int) Math.max(0, System.currentTimeMillis() - r.t0);
+    }
+
+    private void sendResult(Session s, int winner, String reason) {
+        if (s.binary) {
+            Protocol.encodeResult(beginReliable(), winner, reason);
+            endReliable(s);
+        } else {
+            sendText(s.address, "RESULT winner=" + winner + ";reason=" + reason);
+        }
+    }
+
+    private ByteBuffer beginReliable() {
+        reliableBuf.clear();
+        return reliableBuf;
+    }
+
+    /** Encola el mensaje en el canal confiable de s y lo manda ya. */
+    private void endReliable(Session s) {
+        reliableBuf.flip();
+        if (!s.reliable.queue(reliableBuf)) {
+            GameServer.log("SERVER", "Canal confiable de " + s.name + " lleno, mensaje descartado.");
+            return;
+        }
+        flushReliable(s, System.nanoTime());
+    }
+
+    /** Mensajes nuevos, retransmisiones vencidas y el ack pendiente de s. */
+    private void flushReliable(Session s, long now) {
+        while (s.reliable.writeNext(beginSend(), now)) endSend(s);
+    }
+
+    private ByteBuffer beginSend() {
+        sendBuf.clear();
+        return sendBuf;
+    }
+
+    /** Encola sendBuf en el PacketBundler de s (sesión binaria); sale en flushOut(). */
+    private void endSend(Session s) {
+        sendBuf.flip();
+        if (!s.out.add(sendBuf)) {
+            send(s.out.take(), s.address);
+            s.out.add(sendBuf);
+        }
+        if (!s.outQueued) {
+            s.outQueued = true;
+            pendingOut.add(s);
+        }
+    }
+
+    /** sendBuf ya, sin sesión (PONG a un PING suelto). */
+    private void sendNow(InetSocketAddress to) {
+        sendBuf.flip();
+        send(sendBuf, to);
+    }
+
+    /** Un datagrama por sesión con lo que se le encoló desde el último flush. */
+    private void flushOut() {
+        for (int i = 0; i < pendingOut.size(); i++) {
+            Session s = pendingOut.get(i);
+            s.outQueued = false;
+            ByteBuffer packet = s.out.take();
+            if (packet != null) send(packet, s.address);
+        }
+        pendingOut.clear();
+    }
+
+    private void send(ByteBuffer packet, InetSocketAddress to) {
+        try {
+            channel.send(packet, to);
+        } catch (IOException e) {
+            GameServer.log("SERVER", "No se pudo enviar a " + to + ": " + e.getMessage());
+        }
+    }
+
+    private void sendText(InetSocketAddress to, String msg) {
+        try {
+            channel.send(ByteBuffer.wrap(msg.getBytes(StandardCharsets.UTF_8)), to);
+        } catch (IOException e) {
+            GameServer.log("SERVER", "No se pudo enviar a " + to + ": " + e.getMessage());
+        }
+    }
+
+    private static String sanitizeName(String name) {
+        if (name == null) return "Player";
+        name = name.trim().replaceAll("[^a-zA-Z0-9_\\-]", "");
+        if (name.isEmpty()) return "Player";
+        if (name.length() > MAX_NAME_LENGTH) name = name.substring(0, MAX_NAME_LENGTH);
+        return name;
+    }
+}
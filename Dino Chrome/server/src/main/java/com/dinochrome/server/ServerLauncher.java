@@ -0,0 +1,19 @@
+package com.dinochrome.server;
+
+import java.io.IOException;
+
+/** Arranca el server headless: java -jar DinoChrome-server.jar [puerto] [shards] */
+public final class ServerLauncher {
+
+    private ServerLauncher() {}
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : GameServer.DEFAULT_PORT;
+
+        int shards = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        GameServer server = new GameServer(port, shards);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close, "GameServer-shutdown"));
+        server.run();
+    }
+}
@@ -0,0 +1,84 @@
+package com.dinochrome.server;
+
+import com.dinochrome.game.entities.DinoBody;
+import com.dinochrome.game.network.PacketBundler;
+import com.dinochrome.game.network.ReliableChannel;
+import com.dinochrome.game.network.StateDeltaCodec;
+import com.dinochrome.game.sim.SpawnTimeline;
+import com.dinochrome.game.sim.World;
+
+import java.net.InetSocketAddress;
+
+/**
+ * Un cliente conectado. Solo lo toca el hilo del RoomShard que lo tiene.
+ */
+final class Session {
+
+    final int id;
+    final InetSocketAddress address;
+    final String name;
+
+    /** Habla binario (mandó CONNECT binario o con proto=). */
+    final boolean binary;
+
+    /** Sala actual (lookup directo, sin buscar en el registro). */
+    Room room;
+    boolean ready;
+
+    long lastReceiveNs;
+
+    /** START / RESULT de ida y READY / DEAD de vuelta (solo binario). */
+    final ReliableChannel reliable = new ReliableChannel();
+
+    /** Lo que le mandamos en esta tanda, junto en un datagrama (solo binario). */
+    final PacketBundler out = new PacketBundler();
+    boolean outQueued;
+
+    // =========================
+    // Partida
+    // =========================
+
+    /**
+     * La partida de este jugador, con la seed del START: se simula con sus
+     * comandos de input, así que los choques, la vida y el score los decide
+     * el server (el cliente simula lo mismo para predecir). Los spawns
+     * son los de la sala (Room.timeline).
+     */
+    final World world;
+    /** El dino de world (estado autoritativo). */
+    final DinoBody body;
+
+    /** Historial de STATE_DELTA recibidos (bases para decodificar). */
+    final StateDeltaCodec deltaIn = new StateDeltaCodec();
+
+    int lastStateSeq;
+    int lastInputSeq;
+    int lastInputBits;
+
+    /** True cuando el cliente mandó comandos: desde ahí manda la simulación del server. */
+    boolean simulated;
+
+    int score;
+    boolean dead;
+
+    Session(int id, InetSocketAddress address, String name, boolean binary, SpawnTimeline timeline) {
+        this.id = id;
+        this.address = address;
+        this.name = name;
+        this.binary = binary;
+        this.world = new World(timeline);
+        this.body = world.getDino();
+    }
+
+    /** Partida nueva con esa seed (la timeline de la sala ya está en ella). */
+    void resetForMatch(int seed) {
+        world.reset(seed);
+        deltaIn.reset();
+        lastStateSeq = 0;
+        lastInputSeq = 0;
+        lastInputBits = 0;
+        simulated = false;
+        score = 0;
+        dead = false;
+    }
+}